@@ -0,0 +1,203 @@
+package com.example.cinema.aspect;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+
+/**
+ * Передаёт записи о вызовах из потоков запросов одному фоновому потоку, который пишет их в
+ * лог, поэтому запрос не ждёт аппендер. Записи проходят через ограниченное кольцо заранее
+ * созданных ячеек: поток запроса занимает ячейку одним compare-and-set, заполняет её и
+ * публикует номером последовательности, без выделения памяти и блокировок. Если кольцо
+ * заполнено, вызовы и успешные завершения отбрасываются и учитываются в счётчике, а запрос
+ * не ждёт; ошибки не теряются и в этом случае пишутся в лог из потока запроса.
+ *
+ * <p>Исключение аппендера не останавливает запись следующих событий, но учитывается в
+ * счётчике неудачных записей.
+ */
+final class AsyncRequestLog implements AutoCloseable {
+
+  /**
+   * Вид записи, определяющий её сообщение.
+   */
+  enum Kind {
+    CALLED, RETURNED, FAILED
+  }
+
+  private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final Logger logger;
+  private final Slot[] slots;
+  private final int mask;
+  private final AtomicLong tail = new AtomicLong();
+  private final LongAdder dropped = new LongAdder();
+  private final LongAdder failedWrites = new LongAdder();
+  private final Thread writer;
+  private volatile boolean running = true;
+  private volatile boolean idle;
+  private long head;
+
+  /**
+   * Создаёт журнал и запускает поток записи.
+   *
+   * @param logger   логгер, в который пишутся записи
+   * @param capacity число ожидающих записей, округляется вверх до степени двойки
+   */
+  AsyncRequestLog(Logger logger, int capacity) {
+    this.logger = logger;
+    int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+    this.slots = new Slot[size];
+    for (int i = 0; i < size; i++) {
+      slots[i] = new Slot(i);
+    }
+    this.mask = size - 1;
+    this.writer = new Thread(this::drainLoop, "request-log");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  /**
+   * Ставит запись в очередь.
+   *
+   * @param kind      вид записи
+   * @param signature метод, к которому относится запись
+   * @param detail    описание результата или сообщение об ошибке, {@code null} для вызова
+   * @return {@code false}, если кольцо заполнено и запись отброшена или, для ошибки,
+   *         записана в потоке вызывающего
+   */
+  boolean offer(Kind kind, String signature, String detail) {
+    Slot slot;
+    long sequence;
+    while (true) {
+      sequence = tail.get();
+      slot = slots[(int) (sequence & mask)];
+      long published = slot.sequence;
+      if (published < sequence) {
+        // Слот ещё не прочитан: кольцо заполнено
+        if (kind == Kind.FAILED) {
+          write(kind, signature, detail);
+        } else {
+          dropped.increment();
+        }
+        return false;
+      }
+      if (published == sequence && tail.compareAndSet(sequence, sequence + 1)) {
+        break;
+      }
+    }
+    slot.kind = kind;
+    slot.signature = signature;
+    slot.detail = detail;
+    slot.sequence = sequence + 1;
+    if (idle) {
+      LockSupport.unpark(writer);
+    }
+    return true;
+  }
+
+  /**
+   * Возвращает число записей, отброшенных из-за заполненного кольца.
+   *
+   * @return число отброшенных записей
+   */
+  long getDropped() {
+    return dropped.sum();
+  }
+
+  /**
+   * Возвращает число записей, которые аппендер не смог записать из-за исключения.
+   *
+   * @return число неудачных записей
+   */
+  long getFailedWrites() {
+    return failedWrites.sum();
+  }
+
+  /**
+   * Записывает оставшиеся записи и останавливает поток записи.
+   */
+  @Override
+  public void close() {
+    running = false;
+    LockSupport.unpark(writer);
+    try {
+      writer.join(TimeUnit.SECONDS.toMillis(5));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void drainLoop() {
+    while (true) {
+      boolean stopping = !running;
+      if (drain() == 0) {
+        if (stopping) {
+          return;
+        }
+        idle = true;
+        // Повторная проверка после объявления простоя, чтобы не пропустить пробуждение
+        if (!hasNext()) {
+          LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+        }
+        idle = false;
+      }
+    }
+  }
+
+  private boolean hasNext() {
+    return slots[(int) (head & mask)].sequence == head + 1;
+  }
+
+  private int drain() {
+    int written = 0;
+    while (hasNext()) {
+      Slot slot = slots[(int) (head & mask)];
+      Kind kind = slot.kind;
+      String signature = slot.signature;
+      String detail = slot.detail;
+      slot.signature = null;
+      slot.detail = null;
+      slot.sequence = head + slots.length;
+      head++;
+      write(kind, signature, detail);
+      written++;
+    }
+    return written;
+  }
+
+  private void write(Kind kind, String signature, String detail) {
+    try {
+      switch (kind) {
+        case CALLED:
+          logger.info("Выполнение метода: {}", signature);
+          break;
+        case RETURNED:
+          logger.info("Метод {} успешно выполнен. Результат: {}", signature, detail);
+          break;
+        default:
+          logger.error("Ошибка в методе: {}. Сообщение: {}", signature, detail);
+          break;
+      }
+    } catch (RuntimeException e) {
+      // Ошибка аппендера не должна останавливать запись следующих событий
+      failedWrites.increment();
+    }
+  }
+
+  /**
+   * Ячейка кольца. Её номер равен номеру занятия, для которого она свободна, и этому номеру
+   * плюс один после публикации записи.
+   */
+  private static final class Slot {
+    private volatile long sequence;
+    private Kind kind;
+    private String signature;
+    private String detail;
+
+    Slot(long sequence) {
+      this.sequence = sequence;
+    }
+  }
+}
@@ -1,18 +1,43 @@
 package com.example.cinema.aspect;
 
-import org.aspectj.lang.JoinPoint;
-import org.aspectj.lang.annotation.AfterReturning;
-import org.aspectj.lang.annotation.AfterThrowing;
+import com.example.cinema.metrics.EndpointLatencies;
+import com.example.cinema.service.VisitCounterService;
+import jakarta.annotation.PreDestroy;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
-import org.aspectj.lang.annotation.Before;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
+import org.springframework.web.ErrorResponse;
+import org.springframework.web.bind.annotation.ResponseStatus;
 
 /**
  * Аспект для логирования вызовов методов в контроллерах.
  * Обеспечивает логирование перед выполнением, после успешного выполнения
  * и при возникновении исключений в методах контроллеров.
+ *
+ * <p>Записи передаются в лог фоновым потоком через {@link AsyncRequestLog}, поэтому запрос
+ * не ждёт записи в файл. Вместо {@code toString()} результата записывается его краткое
+ * описание ({@link PayloadSummary}). Вызовы и успешные завершения записываются для доли
+ * вызовов, заданной для метода, ошибки — всегда, даже при переполнении буфера. Число
+ * отброшенных и неудачных записей отдаёт {@code /api/metrics/request-log}.
+ *
+ * <p>Время выполнения каждого вызова, успешного или нет, записывается в распределение
+ * задержек метода ({@link EndpointLatencies}), а сам вызов — в счётчик вызовов метода по
+ * статусу ответа ({@link VisitCounterService}).
  */
 @Aspect
 @Component
@@ -20,51 +45,159 @@ public class LoggingAspect {
 
   private static final Logger logger = LoggerFactory.getLogger(LoggingAspect.class);
 
+  private final AsyncRequestLog requestLog;
+  private final EndpointLatencies latencies;
+  private final VisitCounterService visits;
+  private final int maxPayloadLength;
+  private final double sampleRate;
+  private final Map<String, Double> endpointSampleRates;
+  private final Map<Method, Endpoint> endpoints = new ConcurrentHashMap<>();
+
   /**
-   * Логирует вызов метода перед его выполнением.
+   * Создаёт аспект.
    *
-   * @param joinPoint точка соединения, содержащая информацию о вызываемом методе
+   * @param bufferSize          число записей, ожидающих записи в лог
+   *                            ({@code aspect.log.buffer-size})
+   * @param maxPayloadLength    наибольшая длина описания результата
+   *                            ({@code aspect.log.max-payload-length})
+   * @param sampleRate          доля записываемых вызовов ({@code aspect.log.sample-rate})
+   * @param endpointSampleRates доли для отдельных методов в виде
+   *                            {@code Controller.method=0.1,...}
+   *                            ({@code aspect.log.endpoint-sample-rates})
+   * @param latencies           распределения задержек методов
+   * @param visits              счётчики вызовов методов
    */
-  @Before("execution(* com.example.cinema.controller.*.*(..))")
-  public void logBefore(JoinPoint joinPoint) {
-    if (logger.isInfoEnabled()) {
-      logger.info("Выполнение метода: {}", joinPoint.getSignature().toShortString());
-    }
+  public LoggingAspect(@Value("${aspect.log.buffer-size:8192}") int bufferSize,
+                       @Value("${aspect.log.max-payload-length:200}") int maxPayloadLength,
+                       @Value("${aspect.log.sample-rate:1.0}") double sampleRate,
+                       @Value("${aspect.log.endpoint-sample-rates:}")
+                       String endpointSampleRates,
+                       EndpointLatencies latencies,
+                       VisitCounterService visits) {
+    this.requestLog = new AsyncRequestLog(logger, bufferSize);
+    this.latencies = latencies;
+    this.visits = visits;
+    this.maxPayloadLength = maxPayloadLength;
+    this.sampleRate = sampleRate;
+    this.endpointSampleRates = parseSampleRates(endpointSampleRates);
   }
 
   /**
-   * Логирует успешное выполнение метода.
+   * Логирует вызов метода, его успешное выполнение или возникшее исключение, записывает
+   * время выполнения и считает вызов.
    *
    * @param joinPoint точка соединения, содержащая информацию о вызываемом методе
-   * @param result выполнения метода
+   * @return результат выполнения метода
+   * @throws Throwable исключение, выброшенное методом
    */
-  @AfterReturning(
-          pointcut = "execution(* com.example.cinema.controller.*.*(..))",
-          returning = "result")
-  public void logAfterReturning(JoinPoint joinPoint, Object result) {
-    if (logger.isInfoEnabled()) {
-      logger.info(
-              "Метод {} успешно выполнен. Результат: {}",
-              joinPoint.getSignature().toShortString(),
-              result != null ? result.toString() : "null");
+  @Around("execution(* com.example.cinema.controller.*.*(..))")
+  public Object logAround(ProceedingJoinPoint joinPoint) throws Throwable {
+    Endpoint endpoint = endpoint(joinPoint);
+    boolean sampled = endpoint.sampleRate >= 1.0
+            || ThreadLocalRandom.current().nextDouble() < endpoint.sampleRate;
+    if (sampled && logger.isInfoEnabled()) {
+      requestLog.offer(AsyncRequestLog.Kind.CALLED, endpoint.name, null);
+    }
+    Object result;
+    long start = System.nanoTime();
+    try {
+      result = joinPoint.proceed();
+    } catch (Throwable error) {
+      endpoint.latency.accept(System.nanoTime() - start);
+      endpoint.visits.accept(status(error));
+      if (logger.isErrorEnabled()) {
+        requestLog.offer(AsyncRequestLog.Kind.FAILED, endpoint.name, error.getMessage());
+      }
+      throw error;
     }
+    endpoint.latency.accept(System.nanoTime() - start);
+    endpoint.visits.accept(result instanceof ResponseEntity
+            ? ((ResponseEntity<?>) result).getStatusCode().value() : HttpStatus.OK.value());
+    if (sampled && logger.isInfoEnabled()) {
+      requestLog.offer(AsyncRequestLog.Kind.RETURNED, endpoint.name,
+              PayloadSummary.summarize(result, maxPayloadLength));
+    }
+    return result;
   }
 
   /**
-   * Логирует исключение, возникшее при выполнении метода.
+   * Возвращает число записей, отброшенных из-за переполнения буфера.
    *
-   * @param joinPoint точка соединения, содержащая информацию о вызываемом методе
-   * @param error исключение, которое было выброшено
+   * @return число отброшенных записей
+   */
+  public long getDroppedEvents() {
+    return requestLog.getDropped();
+  }
+
+  /**
+   * Возвращает число записей, которые не удалось записать из-за ошибки аппендера.
+   *
+   * @return число неудачных записей
+   */
+  public long getFailedWrites() {
+    return requestLog.getFailedWrites();
+  }
+
+  @PreDestroy
+  void shutdown() {
+    requestLog.close();
+  }
+
+  /**
+   * Возвращает имя, долю записи, распределение задержек и счётчик вызовов метода; они
+   * находятся один раз для каждого метода.
+   */
+  private Endpoint endpoint(ProceedingJoinPoint joinPoint) {
+    MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+    return endpoints.computeIfAbsent(signature.getMethod(), method -> {
+      String key = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+      String name = signature.toShortString();
+      return new Endpoint(name, endpointSampleRates.getOrDefault(key, sampleRate),
+              latencies.recorder(name), visits.recorder(name));
+    });
+  }
+
+  /**
+   * Определяет статус ответа на исключение так же, как Spring: по статусу исключения или его
+   * аннотации {@link ResponseStatus}, иначе 500.
    */
-  @AfterThrowing(
-          pointcut = "execution(* com.example.cinema.controller.*.*(..))",
-          throwing = "error")
-  public void logAfterThrowing(JoinPoint joinPoint, Throwable error) {
-    if (logger.isErrorEnabled()) {
-      logger.error(
-              "Ошибка в методе: {}. Сообщение: {}",
-              joinPoint.getSignature().toShortString(),
-              error.getMessage());
+  static int status(Throwable error) {
+    if (error instanceof ErrorResponse) {
+      return ((ErrorResponse) error).getStatusCode().value();
+    }
+    ResponseStatus annotation =
+            AnnotatedElementUtils.findMergedAnnotation(error.getClass(), ResponseStatus.class);
+    return annotation != null ? annotation.code().value()
+            : HttpStatus.INTERNAL_SERVER_ERROR.value();
+  }
+
+  static Map<String, Double> parseSampleRates(String value) {
+    Map<String, Double> rates = new HashMap<>();
+    for (String entry : value.split(",")) {
+      int separator = entry.indexOf('=');
+      if (separator > 0) {
+        rates.put(entry.substring(0, separator).trim(),
+                Double.parseDouble(entry.substring(separator + 1).trim()));
+      }
+    }
+    return rates;
+  }
+
+  /**
+   * Имя метода в логе, доля записываемых вызовов, получатель времени выполнения и счётчик
+   * вызовов.
+   */
+  private static final class Endpoint {
+    private final String name;
+    private final double sampleRate;
+    private final LongConsumer latency;
+    private final IntConsumer visits;
+
+    Endpoint(String name, double sampleRate, LongConsumer latency, IntConsumer visits) {
+      this.name = name;
+      this.sampleRate = sampleRate;
+      this.latency = latency;
+      this.visits = visits;
     }
   }
-}
\ No newline at end of file
+}
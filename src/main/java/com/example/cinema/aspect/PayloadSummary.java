@@ -0,0 +1,60 @@
+package com.example.cinema.aspect;
+
+import java.lang.reflect.Array;
+import java.time.temporal.Temporal;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Краткое описание результата метода контроллера для лога вместо его {@code toString()}:
+ * коллекции и словари описываются типом и размером, ResponseEntity — статусом и телом,
+ * простые значения — текстом, обрезанным до заданной длины, остальные объекты — именем
+ * класса. Стоимость описания не зависит от размера результата.
+ */
+final class PayloadSummary {
+
+  private PayloadSummary() {
+  }
+
+  /**
+   * Описывает значение.
+   *
+   * @param value     значение, может быть {@code null}
+   * @param maxLength наибольшая длина текста простого значения
+   * @return описание
+   */
+  static String summarize(Object value, int maxLength) {
+    if (value == null) {
+      return "null";
+    }
+    if (value instanceof ResponseEntity) {
+      ResponseEntity<?> entity = (ResponseEntity<?>) value;
+      return "ResponseEntity<" + entity.getStatusCode().value() + ", "
+              + summarize(entity.getBody(), maxLength) + ">";
+    }
+    if (value instanceof Collection) {
+      return value.getClass().getSimpleName() + "(size=" + ((Collection<?>) value).size() + ")";
+    }
+    if (value instanceof Map) {
+      return value.getClass().getSimpleName() + "(size=" + ((Map<?, ?>) value).size() + ")";
+    }
+    if (value.getClass().isArray()) {
+      return value.getClass().getComponentType().getSimpleName() + "["
+              + Array.getLength(value) + "]";
+    }
+    if (value instanceof CharSequence || value instanceof Number || value instanceof Boolean
+            || value instanceof Enum || value instanceof Temporal || value instanceof UUID) {
+      return truncate(value.toString(), maxLength);
+    }
+    return value.getClass().getSimpleName();
+  }
+
+  private static String truncate(String text, int maxLength) {
+    if (text.length() <= maxLength) {
+      return text;
+    }
+    return text.substring(0, maxLength) + "...(" + text.length() + " chars)";
+  }
+}
@@ -0,0 +1,41 @@
+package com.example.cinema.cache;
+
+/**
+ * Entry of the intrusive lists maintained by an {@link EvictionPolicy} and a {@link TimerWheel}.
+ * Only the volatile fields may be accessed without holding the owner's lock; everything else
+ * is guarded by it.
+ *
+ * @param <T> the type of the stored value
+ */
+final class CacheNode<T> {
+  final Long key;
+  volatile T value;
+  CacheNode<T> prev;
+  CacheNode<T> next;
+  /** Access frequency, maintained by the {@link EvictionPolicy}. */
+  int frequency;
+  /** Frequency bucket holding the node, maintained by {@link FrequencyBuckets}. */
+  FrequencyBuckets.Bucket<T> bucket;
+  /** Region holding the node, maintained by {@link WindowTinyLfuPolicy}. */
+  int queue;
+  /** Set once the node has left the cache, so that late buffered reads are ignored. */
+  boolean retired;
+  /** Links of the {@link TimerWheel} bucket holding the node, {@code null} if unscheduled. */
+  CacheNode<T> prevInTimer;
+  CacheNode<T> nextInTimer;
+  /** Ticker time after which the node expires regardless of reads (time-to-live). */
+  volatile long writeDeadline;
+  /** Ticker time of the last read or write, for time-to-idle. */
+  volatile long accessTime;
+
+  /**
+   * Creates a node that is not yet linked into any list.
+   *
+   * @param key   the key of the node
+   * @param value the value to store
+   */
+  CacheNode(Long key, T value) {
+    this.key = key;
+    this.value = value;
+  }
+}
@@ -0,0 +1,40 @@
+package com.example.cinema.cache;
+
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Immutable snapshot of a cache's activity counters since it was created.
+ */
+@Getter
+@AllArgsConstructor
+public class CacheStats {
+  private final long hitCount;
+  private final long missCount;
+  private final long putCount;
+  private final long evictionCount;
+  private final long expirationCount;
+  /**
+   * Inserts that were not cached because no slot could be freed for them.
+   */
+  private final long rejectedPutCount;
+  private final int size;
+  private final int capacity;
+  /**
+   * Number of evicted entries by their access frequency at eviction time, in power-of-two
+   * ranges ("1", "2-3", "4-7", ...). Many evictions of frequent entries mean the cache is
+   * too small for the working set.
+   */
+  private final Map<String, Long> evictionFrequencyHistogram;
+
+  /**
+   * Returns the share of lookups that were served from the cache.
+   *
+   * @return the hit rate between 0 and 1, or 0 if there were no lookups
+   */
+  public double getHitRate() {
+    long requests = hitCount + missCount;
+    return requests == 0 ? 0 : (double) hitCount / requests;
+  }
+}
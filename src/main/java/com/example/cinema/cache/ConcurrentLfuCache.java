@@ -0,0 +1,619 @@
+package com.example.cinema.cache;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Thread-safe LFU (Least Frequently Used) cache.
+ * The key space is split into segments, each with its own lock, map and eviction policy,
+ * so writers to different segments never contend. Reads never block: the value is taken from
+ * a {@link ConcurrentHashMap} and the access is recorded in a lossy {@link ReadBuffer} that is
+ * replayed into the policy by whichever thread next holds the segment lock.
+ *
+ * <p>The policy is chosen by {@link EvictionMode}: plain LFU frequency buckets, or Window
+ * TinyLFU, which filters admission through a decaying frequency sketch.
+ *
+ * <p>The capacity is a single budget shared by all segments: an insert reserves a slot with a
+ * CAS on the global size, and when the cache is full the writer evicts the least frequently
+ * used entry of its own segment (or, if that segment is empty, of another one), so the total
+ * number of entries never exceeds the capacity. Other segments are only locked with
+ * {@code tryLock}, to rule out deadlocks between writers; if the writer's segment is empty and
+ * every other segment stays busy for a few attempts, the value is not cached and the put is
+ * counted as rejected in {@link #stats()}. {@code null} keys are ignored.
+ *
+ * <p>Entries may expire a fixed time after they were written (time-to-live), after they were
+ * last read or written (time-to-idle), or at a per-value deadline given by
+ * {@link #timeToLive(Object)}. Expired entries are never returned; they are removed by a
+ * {@link TimerWheel} that advances whenever a thread holds the segment lock, so there are no
+ * per-entry timers and no background scans.
+ *
+ * <p>Activity is counted in {@code LongAdder}-based counters exposed by {@link #stats()}.
+ * Individual operations are logged only at DEBUG level, and only a sampled share of them
+ * (see {@link #setLogSampleRate(double)}), so logging never dominates a cache hit.
+ *
+ * <p>Every write to a key bumps a version shared by a stripe of keys. A read-through loader
+ * takes {@link #version(Long)} before reading the source and stores the result with
+ * {@link #putIfUnchanged(Long, Object, long)}, so a value loaded before a concurrent
+ * {@link #put} or {@link #remove} can never overwrite the newer state.
+ *
+ * @param <T> the type of stored objects
+ */
+@Slf4j
+public abstract class ConcurrentLfuCache<T> {
+
+  private static final int MAX_SEGMENTS = 16;
+  private static final int MIN_SEGMENT_CAPACITY = 64;
+  private static final long NO_DEADLINE = Long.MAX_VALUE;
+  private static final double DEFAULT_LOG_SAMPLE_RATE = 0.01;
+  private static final int EVICTION_ATTEMPTS = 3;
+  private static final int VERSION_STRIPES = 256;
+
+  private final int capacity;
+  private final AtomicInteger size = new AtomicInteger();
+  private final Segment<T>[] segments;
+  private final int segmentMask;
+  private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+  private final long timeToLiveNanos;
+  private final long timeToIdleNanos;
+  private final LongSupplier ticker;
+  private final StatsCounter stats = new StatsCounter(DEFAULT_LOG_SAMPLE_RATE);
+
+  /**
+   * Creates a concurrent LFU cache with the specified capacity.
+   *
+   * @param capacity the maximum number of elements the cache can hold
+   */
+  protected ConcurrentLfuCache(int capacity) {
+    this(capacity, EvictionMode.LFU);
+  }
+
+  /**
+   * Creates a concurrent cache with the specified capacity and eviction strategy.
+   *
+   * @param capacity the maximum number of elements the cache can hold
+   * @param mode     the eviction strategy
+   */
+  protected ConcurrentLfuCache(int capacity, EvictionMode mode) {
+    this(capacity, mode, Duration.ZERO, Duration.ZERO);
+  }
+
+  /**
+   * Creates a concurrent cache whose entries expire.
+   *
+   * @param capacity   the maximum number of elements the cache can hold
+   * @param mode       the eviction strategy
+   * @param timeToLive how long an entry lives after it was written; zero disables it
+   * @param timeToIdle how long an entry lives after it was last accessed; zero disables it
+   */
+  protected ConcurrentLfuCache(int capacity, EvictionMode mode,
+                               Duration timeToLive, Duration timeToIdle) {
+    this(capacity, mode, timeToLive, timeToIdle, System::nanoTime);
+  }
+
+  @SuppressWarnings("unchecked")
+  ConcurrentLfuCache(int capacity, EvictionMode mode,
+                     Duration timeToLive, Duration timeToIdle, LongSupplier ticker) {
+    this.capacity = capacity;
+    this.timeToLiveNanos = toNanos(timeToLive);
+    this.timeToIdleNanos = toNanos(timeToIdle);
+    this.ticker = ticker;
+    int segmentCount = Integer.highestOneBit(
+            Math.max(1, Math.min(MAX_SEGMENTS, capacity / MIN_SEGMENT_CAPACITY)));
+    this.segments = new Segment[segmentCount];
+    this.segmentMask = segmentCount - 1;
+    int segmentCapacity = (capacity + segmentCount - 1) / segmentCount;
+    for (int i = 0; i < segmentCount; i++) {
+      segments[i] = new Segment<>(this, mode.newPolicy(segmentCapacity));
+    }
+  }
+
+  /**
+   * Returns how long the given value may stay cached, independently of the configured
+   * time-to-live. Subclasses override this to derive expiry from the value itself.
+   *
+   * @param value the value being cached
+   * @return the remaining lifetime, or {@code null} for no value-specific limit; a zero or
+   *         negative duration means the value must not be cached
+   */
+  protected Duration timeToLive(T value) {
+    return null;
+  }
+
+  /**
+   * Retrieves an object from the cache without blocking.
+   * If the object is found, its frequency is increased.
+   *
+   * @param id the ID of the object
+   * @return the stored object if present and not expired, otherwise {@code null}
+   */
+  public T get(Long id) {
+    if (id == null) {
+      return null;
+    }
+    return segmentFor(id).get(id);
+  }
+
+  /**
+   * Checks whether an unexpired object is cached, without counting it as a read.
+   *
+   * @param id the ID of the object
+   * @return {@code true} if the object would be returned by {@link #get(Long)}
+   */
+  public boolean containsKey(Long id) {
+    if (id == null) {
+      return false;
+    }
+    return segmentFor(id).contains(id);
+  }
+
+  /**
+   * Adds or updates an object in the cache.
+   * If the cache is full, it removes the least frequently used item of the key's segment.
+   *
+   * @param id    the ID of the object
+   * @param value the value to store
+   */
+  public void put(Long id, T value) {
+    if (id == null) {
+      return;
+    }
+    segmentFor(id).put(id, value);
+  }
+
+  /**
+   * Returns the write version of the stripe the ID belongs to. It changes whenever that ID
+   * (or another one sharing its stripe) is put, removed or cleared; read it before loading
+   * a value and pass it to {@link #putIfUnchanged(Long, Object, long)}.
+   *
+   * @param id the ID of the object
+   * @return the current version
+   */
+  public long version(Long id) {
+    if (id == null) {
+      return 0;
+    }
+    return versions.get(stripeFor(id));
+  }
+
+  /**
+   * Stores an object only if no write to its ID happened since {@link #version(Long)} was
+   * taken. Unlike {@link #put(Long, Object)} this does not change the version, so it never
+   * invalidates another loader.
+   *
+   * @param id      the ID of the object
+   * @param value   the value to store
+   * @param version the version read before the value was loaded
+   * @return {@code true} if the value was offered to the cache, {@code false} if it was stale
+   */
+  public boolean putIfUnchanged(Long id, T value, long version) {
+    if (id == null) {
+      return false;
+    }
+    return segmentFor(id).putIfUnchanged(id, value, version);
+  }
+
+  /**
+   * Removes an object from the cache by its ID.
+   *
+   * @param id the ID of the object to remove
+   */
+  public void remove(Long id) {
+    if (id == null) {
+      return;
+    }
+    segmentFor(id).remove(id);
+  }
+
+  /**
+   * Clears all objects from the cache.
+   */
+  public void clear() {
+    for (int i = 0; i < VERSION_STRIPES; i++) {
+      versions.incrementAndGet(i);
+    }
+    for (Segment<T> segment : segments) {
+      segment.clear();
+    }
+    log.debug("Все объекты успешно удалены из кэша.");
+  }
+
+  /**
+   * Removes expired entries and applies pending reads in every segment.
+   * Maintenance otherwise happens on writes; this is for callers that want it done eagerly.
+   */
+  public void cleanUp() {
+    for (Segment<T> segment : segments) {
+      segment.lock.lock();
+      try {
+        segment.maintain();
+      } finally {
+        segment.lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Returns the number of objects currently stored in the cache.
+   * Expired entries that have not been cleaned up yet are included.
+   *
+   * @return the number of cached objects
+   */
+  public int size() {
+    return size.get();
+  }
+
+  /**
+   * Returns the maximum number of objects the cache can hold.
+   *
+   * @return the cache capacity
+   */
+  public int capacity() {
+    return capacity;
+  }
+
+  /**
+   * Returns a snapshot of the cache's activity counters.
+   *
+   * @return the counters accumulated since the cache was created
+   */
+  public CacheStats stats() {
+    return stats.snapshot(size(), capacity);
+  }
+
+  /**
+   * Sets the share of cache operations written to the DEBUG log.
+   *
+   * @param logSampleRate a value between 0 (none) and 1 (every operation)
+   */
+  public void setLogSampleRate(double logSampleRate) {
+    stats.setLogSampleRate(logSampleRate);
+  }
+
+  private boolean shouldLog() {
+    return log.isDebugEnabled() && stats.sampled();
+  }
+
+  /**
+   * Reserves room for one more entry.
+   *
+   * @return {@code true} if a slot was reserved, {@code false} if the cache is full
+   */
+  private boolean tryReserve() {
+    int current;
+    do {
+      current = size.get();
+      if (current >= capacity) {
+        return false;
+      }
+    } while (!size.compareAndSet(current, current + 1));
+    return true;
+  }
+
+  /**
+   * Frees a slot by evicting from a segment other than the caller's, which is empty.
+   * Only {@code tryLock} is used so that two writers can never deadlock on each other.
+   *
+   * @param owner the segment whose lock the caller holds
+   * @return {@code true} if an entry was evicted
+   */
+  private boolean evictFromOtherSegment(Segment<T> owner) {
+    for (Segment<T> segment : segments) {
+      if (segment != owner && segment.lock.tryLock()) {
+        try {
+          if (segment.evictLeastFrequentlyUsed()) {
+            return true;
+          }
+        } finally {
+          segment.lock.unlock();
+        }
+      }
+    }
+    return false;
+  }
+
+  private Segment<T> segmentFor(Long id) {
+    return segments[spread(id) & segmentMask];
+  }
+
+  /**
+   * Picks the version stripe of an ID. There are at least as many stripes as segments and both
+   * use the low bits of the same hash, so all IDs of a stripe share one segment lock.
+   */
+  private static int stripeFor(Long id) {
+    return spread(id) & (VERSION_STRIPES - 1);
+  }
+
+  private static int spread(Long id) {
+    int hash = id.hashCode() * 0x9E3779B9;
+    return hash ^ (hash >>> 16);
+  }
+
+  /**
+   * Computes the write deadline of a value, combining the cache-wide and value-specific TTL.
+   *
+   * @return the deadline, {@link #NO_DEADLINE}, or {@code now} if the value must not be cached
+   */
+  private long writeDeadline(T value, long now) {
+    long deadline = saturatedAdd(now, timeToLiveNanos);
+    Duration valueTtl = timeToLive(value);
+    if (valueTtl != null) {
+      if (valueTtl.isZero() || valueTtl.isNegative()) {
+        return now;
+      }
+      deadline = Math.min(deadline, saturatedAdd(now, toNanos(valueTtl)));
+    }
+    return deadline;
+  }
+
+  private long deadline(CacheNode<T> node) {
+    return Math.min(node.writeDeadline, saturatedAdd(node.accessTime, timeToIdleNanos));
+  }
+
+  private static long toNanos(Duration duration) {
+    if (duration == null || duration.isZero() || duration.isNegative()) {
+      return NO_DEADLINE;
+    }
+    try {
+      return duration.toNanos();
+    } catch (ArithmeticException e) {
+      return NO_DEADLINE;
+    }
+  }
+
+  /**
+   * Tells whether a deadline has passed. Deadlines are compared by difference so that a ticker
+   * crossing zero keeps working; {@link #NO_DEADLINE} is checked first because subtracting a
+   * negative time from it would overflow.
+   */
+  private static boolean isExpired(long deadline, long now) {
+    return deadline != NO_DEADLINE && deadline - now <= 0;
+  }
+
+  private static long saturatedAdd(long time, long nanos) {
+    return nanos == NO_DEADLINE || time > NO_DEADLINE - nanos ? NO_DEADLINE : time + nanos;
+  }
+
+  /**
+   * Independently locked part of the cache.
+   *
+   * @param <T> the type of stored objects
+   */
+  private static final class Segment<T> {
+    private final ConcurrentLfuCache<T> cache;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Long, CacheNode<T>> map = new ConcurrentHashMap<>();
+    private final EvictionPolicy<T> policy;
+    private final ReadBuffer<CacheNode<T>> readBuffer = new ReadBuffer<>();
+    private final TimerWheel<T> timerWheel;
+
+    Segment(ConcurrentLfuCache<T> cache, EvictionPolicy<T> policy) {
+      this.cache = cache;
+      this.policy = policy;
+      this.timerWheel = new TimerWheel<>(cache::deadline, cache.ticker.getAsLong());
+    }
+
+    T get(Long id) {
+      CacheNode<T> node = map.get(id);
+      if (node == null) {
+        cache.stats.recordMiss();
+        return null;
+      }
+      long now = cache.ticker.getAsLong();
+      if (isExpired(cache.deadline(node), now)) {
+        cache.stats.recordMiss();
+        tryMaintain();
+        return null;
+      }
+      T value = node.value;
+      node.accessTime = now;
+      if (!readBuffer.offer(node)) {
+        tryMaintain();
+      }
+      cache.stats.recordHit();
+      if (cache.shouldLog()) {
+        log.debug("Объект успешно извлечён из кэша. ID: {}", id);
+      }
+      return value;
+    }
+
+    boolean contains(Long id) {
+      CacheNode<T> node = map.get(id);
+      return node != null && !isExpired(cache.deadline(node), cache.ticker.getAsLong());
+    }
+
+    void put(Long id, T value) {
+      lock.lock();
+      try {
+        cache.versions.incrementAndGet(stripeFor(id));
+        store(id, value);
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    boolean putIfUnchanged(Long id, T value, long version) {
+      lock.lock();
+      try {
+        if (cache.versions.get(stripeFor(id)) != version) {
+          if (cache.shouldLog()) {
+            log.debug("Устаревший объект не добавлен в кэш. ID: {}", id);
+          }
+          return false;
+        }
+        store(id, value);
+        return true;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /**
+     * Writes the value, evicting if needed. Must be called with the lock held.
+     */
+    private void store(Long id, T value) {
+      maintain();
+      long now = cache.ticker.getAsLong();
+      long writeDeadline = cache.writeDeadline(value, now);
+      CacheNode<T> node = map.get(id);
+      if (isExpired(writeDeadline, now)) {
+        if (node != null) {
+          removeNode(node);
+        }
+        return;
+      }
+      if (node != null) {
+        node.value = value;
+        node.writeDeadline = writeDeadline;
+        node.accessTime = now;
+        policy.onAccess(node);
+        schedule(node);
+        cache.stats.recordPut();
+        if (cache.shouldLog()) {
+          log.debug("Объект обновлен в кэше. ID: {}", id);
+        }
+        return;
+      }
+      if (!reserveSlot()) {
+        cache.stats.recordRejectedPut();
+        if (cache.shouldLog()) {
+          log.debug("Объект не добавлен в кэш: не удалось освободить место. ID: {}", id);
+        }
+        return;
+      }
+      node = new CacheNode<>(id, value);
+      node.writeDeadline = writeDeadline;
+      node.accessTime = now;
+      policy.onAdd(node);
+      schedule(node);
+      map.put(id, node);
+      cache.stats.recordPut();
+      if (cache.shouldLog()) {
+        log.debug("Новый объект добавлен в кэш. ID: {}", id);
+      }
+    }
+
+    void remove(Long id) {
+      lock.lock();
+      try {
+        cache.versions.incrementAndGet(stripeFor(id));
+        maintain();
+        CacheNode<T> node = map.get(id);
+        if (node != null) {
+          removeNode(node);
+          if (cache.shouldLog()) {
+            log.debug("Объект успешно удалён из кэша. ID: {}", id);
+          }
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    void clear() {
+      lock.lock();
+      try {
+        readBuffer.drainTo(node -> { });
+        cache.size.addAndGet(-map.size());
+        map.values().forEach(node -> node.retired = true);
+        map.clear();
+        policy.clear();
+        timerWheel.clear();
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /**
+     * Applies buffered reads and expires due entries. Must be called with the lock held.
+     */
+    void maintain() {
+      readBuffer.drainTo(this::onAccess);
+      timerWheel.advance(cache.ticker.getAsLong(), this::expire);
+    }
+
+    private void tryMaintain() {
+      if (lock.tryLock()) {
+        try {
+          maintain();
+        } finally {
+          lock.unlock();
+        }
+      }
+    }
+
+    /**
+     * Makes room for a new entry of this segment, evicting if the cache is full. When this
+     * segment is empty and the other segments are busy, retries a few times before giving up.
+     *
+     * @return {@code false} if no slot could be freed and the entry should not be cached
+     */
+    private boolean reserveSlot() {
+      int attempts = 0;
+      while (!cache.tryReserve()) {
+        if (evictLeastFrequentlyUsed() || cache.evictFromOtherSegment(this)) {
+          continue;
+        }
+        if (++attempts >= EVICTION_ATTEMPTS) {
+          return false;
+        }
+        Thread.onSpinWait();
+      }
+      return true;
+    }
+
+    private boolean evictLeastFrequentlyUsed() {
+      readBuffer.drainTo(this::onAccess);
+      CacheNode<T> victim = policy.victim();
+      if (victim == null) {
+        return false;
+      }
+      cache.stats.recordEviction(victim.frequency);
+      removeNode(victim);
+      if (cache.shouldLog()) {
+        log.debug("Удалённый объект из кэша. ID: {}, Частота при удалении: {}",
+                victim.key, victim.frequency);
+      }
+      return true;
+    }
+
+    private void expire(CacheNode<T> node) {
+      removeNode(node);
+      cache.stats.recordExpiration();
+      if (cache.shouldLog()) {
+        log.debug("Объект удалён из кэша по истечении срока. ID: {}", node.key);
+      }
+    }
+
+    private void removeNode(CacheNode<T> node) {
+      node.retired = true;
+      policy.onRemove(node);
+      timerWheel.deschedule(node);
+      map.remove(node.key, node);
+      cache.size.decrementAndGet();
+    }
+
+    /**
+     * Puts the node on the timer wheel, unless it can never expire.
+     */
+    private void schedule(CacheNode<T> node) {
+      if (cache.deadline(node) == NO_DEADLINE) {
+        timerWheel.deschedule(node);
+      } else {
+        timerWheel.schedule(node);
+      }
+    }
+
+    private void onAccess(CacheNode<T> node) {
+      // Nodes evicted or removed after the read was recorded are no longer linked.
+      if (!node.retired) {
+        policy.onAccess(node);
+      }
+    }
+  }
+}
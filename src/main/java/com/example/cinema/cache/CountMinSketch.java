@@ -0,0 +1,93 @@
+package com.example.cinema.cache;
+
+/**
+ * Count-Min sketch of 4-bit counters estimating how often a key was seen recently.
+ * Each key maps to one counter in each of four rows; its estimate is the minimum of the
+ * four. After {@code 10 * expectedSize} increments every counter is halved, so popularity
+ * ages out and yesterday's hits cannot outvote today's.
+ * Not thread-safe; callers serialize access with their own lock.
+ */
+final class CountMinSketch {
+
+  private static final long[] SEEDS = {
+    0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+  };
+  private static final long RESET_MASK = 0x7777777777777777L;
+  private static final int MAX_COUNT = 15;
+
+  private final long[] table;
+  private final int tableMask;
+  private final int sampleSize;
+  private int additions;
+
+  /**
+   * Creates a sketch sized for the given number of distinct hot keys.
+   *
+   * @param expectedSize the capacity of the cache the sketch serves
+   */
+  CountMinSketch(int expectedSize) {
+    int size = Math.max(2, Integer.highestOneBit(Math.max(1, expectedSize) - 1) << 1);
+    this.table = new long[size];
+    this.tableMask = size - 1;
+    this.sampleSize = 10 * Math.max(1, expectedSize);
+  }
+
+  /**
+   * Returns the estimated recent frequency of the key.
+   *
+   * @param key the key
+   * @return the estimate, between 0 and 15
+   */
+  int frequency(long key) {
+    int min = MAX_COUNT;
+    for (int row = 0; row < SEEDS.length; row++) {
+      long hash = hash(key, row);
+      min = Math.min(min, (int) ((table[index(hash)] >>> offset(hash, row)) & 0xF));
+    }
+    return min;
+  }
+
+  /**
+   * Records one occurrence of the key, aging the sketch when the sample period ends.
+   *
+   * @param key the key
+   */
+  void increment(long key) {
+    boolean added = false;
+    for (int row = 0; row < SEEDS.length; row++) {
+      long hash = hash(key, row);
+      int index = index(hash);
+      int offset = offset(hash, row);
+      if (((table[index] >>> offset) & 0xF) < MAX_COUNT) {
+        table[index] += 1L << offset;
+        added = true;
+      }
+    }
+    if (added && ++additions >= sampleSize) {
+      reset();
+    }
+  }
+
+  private void reset() {
+    for (int i = 0; i < table.length; i++) {
+      table[i] = (table[i] >>> 1) & RESET_MASK;
+    }
+    additions /= 2;
+  }
+
+  private int index(long hash) {
+    return (int) (hash >>> 32) & tableMask;
+  }
+
+  /**
+   * Each row owns four of the sixteen nibbles of a word, so rows never share a counter.
+   */
+  private static int offset(long hash, int row) {
+    return ((row << 2) + (int) (hash & 3)) << 2;
+  }
+
+  private static long hash(long key, int row) {
+    long hash = (key + SEEDS[row]) * SEEDS[row];
+    return hash ^ (hash >>> 29);
+  }
+}
@@ -0,0 +1,21 @@
+package com.example.cinema.cache;
+
+/**
+ * Eviction strategies supported by {@link ConcurrentLfuCache}.
+ */
+public enum EvictionMode {
+
+  /** Pure LFU with LRU tie-breaking; frequencies never decay. */
+  LFU,
+
+  /**
+   * Window TinyLFU: new entries enter a small LRU window and are admitted to the main
+   * segmented LRU region only if a decaying frequency sketch rates them above the entry
+   * they would replace.
+   */
+  WINDOW_TINY_LFU;
+
+  <T> EvictionPolicy<T> newPolicy(int capacity) {
+    return this == LFU ? new FrequencyBuckets<>() : new WindowTinyLfuPolicy<>(capacity);
+  }
+}
@@ -0,0 +1,44 @@
+package com.example.cinema.cache;
+
+/**
+ * Decides which entry of a bounded cache to evict. Implementations are not thread-safe;
+ * callers serialize access with their own lock.
+ *
+ * @param <T> the type of stored values
+ */
+interface EvictionPolicy<T> {
+
+  /**
+   * Links a node that has just been inserted.
+   *
+   * @param node the new node
+   */
+  void onAdd(CacheNode<T> node);
+
+  /**
+   * Registers a read or an update of a node.
+   *
+   * @param node the accessed node
+   */
+  void onAccess(CacheNode<T> node);
+
+  /**
+   * Unlinks a node that leaves the cache.
+   *
+   * @param node the removed node
+   */
+  void onRemove(CacheNode<T> node);
+
+  /**
+   * Picks the node to evict to make room for a new one. The node stays linked until the
+   * caller passes it to {@link #onRemove}.
+   *
+   * @return the eviction victim, or {@code null} if there are no nodes
+   */
+  CacheNode<T> victim();
+
+  /**
+   * Drops all nodes.
+   */
+  void clear();
+}
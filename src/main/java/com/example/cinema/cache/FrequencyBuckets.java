@@ -0,0 +1,153 @@
+package com.example.cinema.cache;
+
+/**
+ * Frequency-ordered list of cache nodes with constant-time add, touch, unlink and victim lookup.
+ * Nodes with the same access frequency share a bucket, buckets are kept in ascending frequency
+ * order and nodes inside a bucket in access order, so the head of the first bucket is always
+ * the least frequently used node and, among equals, the least recently used one.
+ *
+ * @param <T> the type of stored values
+ */
+final class FrequencyBuckets<T> implements EvictionPolicy<T> {
+
+  private Bucket<T> head;
+
+  /**
+   * Group of nodes sharing the same access frequency.
+   *
+   * @param <T> the type of stored values
+   */
+  static final class Bucket<T> {
+    final int frequency;
+    Bucket<T> prev;
+    Bucket<T> next;
+    CacheNode<T> head;
+    CacheNode<T> tail;
+
+    Bucket(int frequency) {
+      this.frequency = frequency;
+    }
+  }
+
+  /**
+   * Links a new node with frequency 1 as the most recently used node of the first bucket.
+   *
+   * @param node the node to add
+   */
+  @Override
+  public void onAdd(CacheNode<T> node) {
+    Bucket<T> first = head;
+    if (first == null || first.frequency != 1) {
+      Bucket<T> bucket = new Bucket<>(1);
+      bucket.next = first;
+      if (first != null) {
+        first.prev = bucket;
+      }
+      head = bucket;
+      first = bucket;
+    }
+    append(first, node);
+  }
+
+  /**
+   * Registers an access: moves the node into the bucket of the next frequency.
+   *
+   * @param node the accessed node
+   */
+  @Override
+  public void onAccess(CacheNode<T> node) {
+    Bucket<T> current = node.bucket;
+    if (current.frequency == Integer.MAX_VALUE) {
+      detach(node);
+      append(current, node);
+      return;
+    }
+    int nextFrequency = current.frequency + 1;
+    Bucket<T> target = current.next;
+    if (target == null || target.frequency != nextFrequency) {
+      target = new Bucket<>(nextFrequency);
+      target.prev = current;
+      target.next = current.next;
+      if (current.next != null) {
+        current.next.prev = target;
+      }
+      current.next = target;
+    }
+    detach(node);
+    append(target, node);
+  }
+
+  /**
+   * Removes the node from the structure.
+   *
+   * @param node the node to remove
+   */
+  @Override
+  public void onRemove(CacheNode<T> node) {
+    detach(node);
+  }
+
+  /**
+   * Returns the eviction candidate without removing it.
+   *
+   * @return the least frequently used node, or {@code null} if there are no nodes
+   */
+  @Override
+  public CacheNode<T> victim() {
+    return head == null ? null : head.head;
+  }
+
+  /**
+   * Drops all nodes.
+   */
+  @Override
+  public void clear() {
+    head = null;
+  }
+
+  private void append(Bucket<T> bucket, CacheNode<T> node) {
+    node.bucket = bucket;
+    node.frequency = bucket.frequency;
+    node.next = null;
+    node.prev = bucket.tail;
+    if (bucket.tail == null) {
+      bucket.head = node;
+    } else {
+      bucket.tail.next = node;
+    }
+    bucket.tail = node;
+  }
+
+  private void detach(CacheNode<T> node) {
+    Bucket<T> bucket = node.bucket;
+    if (node.prev == null) {
+      bucket.head = node.next;
+    } else {
+      node.prev.next = node.next;
+    }
+    if (node.next == null) {
+      bucket.tail = node.prev;
+    } else {
+      node.next.prev = node.prev;
+    }
+    node.prev = null;
+    node.next = null;
+    node.bucket = null;
+    if (bucket.head == null) {
+      removeBucket(bucket);
+    }
+  }
+
+  private void removeBucket(Bucket<T> bucket) {
+    if (bucket.prev == null) {
+      head = bucket.next;
+    } else {
+      bucket.prev.next = bucket.next;
+    }
+    if (bucket.next != null) {
+      bucket.next.prev = bucket.prev;
+    }
+    bucket.prev = null;
+    bucket.next = null;
+  }
+}
@@ -7,6 +7,9 @@ import lombok.extern.slf4j.Slf4j;
 /**
  * LFU (Least Frequently Used) cache implementation.
  * Stores a limited number of objects and removes the least frequently used ones.
+ * Lookups, inserts and evictions run in constant time: entries are grouped into
+ * frequency buckets (see {@link FrequencyBuckets}) instead of being scanned on eviction.
+ * Operations are logged at DEBUG level only.
  *
  * @param <T> the type of stored objects
  */
@@ -14,28 +17,8 @@ import lombok.extern.slf4j.Slf4j;
 public abstract class LfuCache<T> {
 
   private final int capacity;
-  private final Map<Long, Entry<T>> cache = new HashMap<>();
-
-  /**
-   * Represents a cache entry with a stored value and access frequency.
-   *
-   * @param <T> the type of the stored value
-   */
-  protected static class Entry<T> {
-    T value;
-    int frequency;
-
-    /**
-     * Creates a new cache entry with the specified value.
-     * The access frequency is set to 1 by default.
-     *
-     * @param value the value to store
-     */
-    Entry(T value) {
-      this.value = value;
-      this.frequency = 1;
-    }
-  }
+  private final Map<Long, CacheNode<T>> cache = new HashMap<>();
+  private final FrequencyBuckets<T> buckets = new FrequencyBuckets<>();
 
   /**
    * Creates an LFU cache with the specified capacity.
@@ -54,65 +37,69 @@ public abstract class LfuCache<T> {
    * @return the stored object if present, otherwise {@code null}
    */
   public T get(Long id) {
-    Entry<T> entry = cache.get(id);
+    CacheNode<T> entry = cache.get(id);
     if (entry == null) {
       return null;
     }
-    entry.frequency++;
-    log.info(
-            "Объект успешно извлечён из кэша. ID: {}, Частота доступа: {}",
-            id, entry.frequency
-    );
+    buckets.onAccess(entry);
+    if (log.isDebugEnabled()) {
+      log.debug(
+              "Объект успешно извлечён из кэша. ID: {}, Частота доступа: {}",
+              id, entry.frequency
+      );
+    }
     return entry.value;
   }
 
   /**
    * Adds or updates an object in the cache.
-   * If the cache is full, it removes the least frequently used item.
+   * If the cache is full, it removes the least frequently used item;
+   * among items with equal frequency the least recently used one goes first.
    *
    * @param id    the ID of the object
    * @param value the value to store
    */
   public void put(Long id, T value) {
-    if (cache.containsKey(id)) {
-      Entry<T> entry = cache.get(id);
+    CacheNode<T> entry = cache.get(id);
+    if (entry != null) {
       entry.value = value;
-      entry.frequency++;
-      log.info(
-              "Объект обновлен в кэше. ID: {}, Новая частота: {}",
-              id, entry.frequency
-      );
+      buckets.onAccess(entry);
+      if (log.isDebugEnabled()) {
+        log.debug(
+                "Объект обновлен в кэше. ID: {}, Новая частота: {}",
+                id, entry.frequency
+        );
+      }
     } else {
       if (cache.size() >= capacity) {
         evictLeastFrequentlyUsed();
       }
-      cache.put(id, new Entry<>(value));
-      log.info(
-              "Новый объект добавлен в кэш. ID: {}",
-              id
-      );
+      entry = new CacheNode<>(id, value);
+      cache.put(id, entry);
+      buckets.onAdd(entry);
+      if (log.isDebugEnabled()) {
+        log.debug(
+                "Новый объект добавлен в кэш. ID: {}",
+                id
+        );
+      }
     }
   }
 
 
   private void evictLeastFrequentlyUsed() {
-    Long lfuKey = null;
-    int minFrequency = Integer.MAX_VALUE;
-
-    for (Map.Entry<Long, Entry<T>> entry : cache.entrySet()) {
-      if (entry.getValue().frequency < minFrequency) {
-        minFrequency = entry.getValue().frequency;
-        lfuKey = entry.getKey();
+    CacheNode<T> victim = buckets.victim();
+    if (victim != null) {
+      int frequency = victim.frequency;
+      buckets.onRemove(victim);
+      cache.remove(victim.key);
+      if (log.isDebugEnabled()) {
+        log.debug(
+                "Удалённый объект из кэша. ID: {}, Частота при удалении: {}",
+                victim.key, frequency
+        );
       }
     }
-
-    if (lfuKey != null) {
-      cache.remove(lfuKey);
-      log.info(
-              "Удалённый объект из кэша. ID: {}, Частота при удалении: {}",
-              lfuKey, minFrequency
-      );
-    }
   }
 
   /**
@@ -121,11 +108,15 @@ public abstract class LfuCache<T> {
    * @param id the ID of the object to remove
    */
   public void remove(Long id) {
-    if (cache.remove(id) != null) {
-      log.info(
-              "Объект успешно удалён из кэша. ID: {}",
-              id
-      );
+    CacheNode<T> entry = cache.remove(id);
+    if (entry != null) {
+      buckets.onRemove(entry);
+      if (log.isDebugEnabled()) {
+        log.debug(
+                "Объект успешно удалён из кэша. ID: {}",
+                id
+        );
+      }
     }
   }
 
@@ -134,6 +125,16 @@ public abstract class LfuCache<T> {
    */
   public void clear() {
     cache.clear();
-    log.info("Все объекты успешно удалены из кэша.");
+    buckets.clear();
+    log.debug("Все объекты успешно удалены из кэша.");
+  }
+
+  /**
+   * Returns the number of objects currently stored in the cache.
+   *
+   * @return the number of cached objects
+   */
+  public int size() {
+    return cache.size();
   }
 }
\ No newline at end of file
@@ -0,0 +1,63 @@
+package com.example.cinema.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded, lossy ring buffer that lets readers record accesses without taking a lock.
+ * Any number of threads may {@link #offer} elements; {@link #drainTo} must only be called
+ * by the thread holding the owner's lock. When the buffer is full, or a concurrent offer
+ * wins the slot, the element is dropped: access frequencies are a heuristic and losing a
+ * few samples under contention is cheaper than making readers wait.
+ *
+ * @param <E> the type of buffered elements
+ */
+final class ReadBuffer<E> {
+
+  private static final int SIZE = 64;
+  private static final int MASK = SIZE - 1;
+
+  private final AtomicReferenceArray<E> buffer = new AtomicReferenceArray<>(SIZE);
+  private final AtomicLong writeCounter = new AtomicLong();
+  private volatile long readCounter;
+
+  /**
+   * Records an element.
+   *
+   * @param element the element to record
+   * @return {@code false} if the buffer is full and should be drained
+   */
+  boolean offer(E element) {
+    long head = readCounter;
+    long tail = writeCounter.get();
+    if (tail - head >= SIZE) {
+      return false;
+    }
+    if (writeCounter.compareAndSet(tail, tail + 1)) {
+      buffer.lazySet((int) (tail & MASK), element);
+    }
+    return true;
+  }
+
+  /**
+   * Hands every published element to the consumer and frees its slot.
+   *
+   * @param consumer the consumer applying the recorded accesses
+   */
+  void drainTo(Consumer<E> consumer) {
+    long head = readCounter;
+    long tail = writeCounter.get();
+    while (head < tail) {
+      int index = (int) (head & MASK);
+      E element = buffer.get(index);
+      if (element == null) {
+        break;
+      }
+      buffer.lazySet(index, null);
+      consumer.accept(element);
+      head++;
+    }
+    readCounter = head;
+  }
+}
@@ -1,20 +1,53 @@
 package com.example.cinema.cache;
 
 import com.example.cinema.model.Showtime;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 /**
  * Cache for storing Showtime objects using LFU (Least Frequently Used) eviction strategy.
  * This cache holds a limited number of Showtime objects and removes the least frequently used ones.
+ * It is shared by all request threads, hence the thread-safe {@link ConcurrentLfuCache} base.
+ * A showtime is never served from the cache once the session has started.
  */
 @Component
-public class ShowtimeCache extends LfuCache<Showtime> {
+public class ShowtimeCache extends ConcurrentLfuCache<Showtime> {
 
   /**
-   * Creates a Showtime cache with a predefined capacity of 3.
-   * This value can be adjusted as needed.
+   * Creates a Showtime cache with the configured capacity, eviction strategy and expiry.
+   *
+   * @param capacity   the maximum number of showtimes to keep ({@code cache.showtime.capacity})
+   * @param mode       the eviction strategy ({@code cache.showtime.mode}), {@code LFU} or
+   *                   {@code WINDOW_TINY_LFU}
+   * @param timeToLive how long a showtime stays cached after it was written
+   *                   ({@code cache.showtime.time-to-live}, {@code 0} disables it)
+   * @param timeToIdle how long a showtime stays cached after it was last read
+   *                   ({@code cache.showtime.time-to-idle}, {@code 0} disables it)
+   * @param logSampleRate share of cache operations written to the DEBUG log
+   *                   ({@code cache.log.sample-rate})
    */
-  public ShowtimeCache() {
-    super(3); // Sets the cache size (modifiable)
+  public ShowtimeCache(@Value("${cache.showtime.capacity:1000}") int capacity,
+                       @Value("${cache.showtime.mode:LFU}") EvictionMode mode,
+                       @Value("${cache.showtime.time-to-live:0}") Duration timeToLive,
+                       @Value("${cache.showtime.time-to-idle:0}") Duration timeToIdle,
+                       @Value("${cache.log.sample-rate:0.01}") double logSampleRate) {
+    super(capacity, mode, timeToLive, timeToIdle);
+    setLogSampleRate(logSampleRate);
+  }
+
+  /**
+   * Expires a showtime when its session starts.
+   *
+   * @param showtime the showtime being cached
+   * @return the time left until the session starts, or {@code null} if it has no date
+   */
+  @Override
+  protected Duration timeToLive(Showtime showtime) {
+    if (showtime.getDateTime() == null) {
+      return null;
+    }
+    return Duration.between(LocalDateTime.now(), showtime.getDateTime());
   }
 }
@@ -0,0 +1,342 @@
+package com.example.cinema.cache;
+
+import com.example.cinema.model.Showtime;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache of showtime query results, keyed by hall and date or by hall and lower-cased title.
+ * Results are stored as immutable lists and dropped as soon as a showtime they could contain
+ * is created, updated or deleted: a change in a hall evicts the entry for its day and every
+ * title query that matches its film title, and leaves the rest of the hall's entries alone.
+ *
+ * <p>Each hall carries a version stamp that every invalidation increments. A caller reads the
+ * stamp before querying the database and passes it back with the result; the result is
+ * discarded if the hall changed in the meantime, so a slow reader can never cache a list that
+ * predates a committed write. Reads are lock-free; puts and invalidations of one hall are
+ * serialized on the hall's entries.
+ *
+ * <p>When the cache is full, a new result takes the place of an older one chosen by the CLOCK
+ * (second chance) policy: results wait in a queue in insertion order, a read marks its result,
+ * and the eviction hand requeues marked results once before dropping an unmarked one. Hot
+ * results therefore stay cached while a burst of one-off title searches only displaces other
+ * one-off results, and a read never takes a lock.
+ */
+@Slf4j
+@Component
+public class ShowtimeQueryCache {
+
+  private final int capacity;
+  private final AtomicInteger size = new AtomicInteger();
+  private final Map<Long, HallEntries> halls = new ConcurrentHashMap<>();
+  // Eviction queue; may still hold results that were removed since they were queued.
+  private final Queue<Entry> clock = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger queued = new AtomicInteger();
+  private final StatsCounter stats;
+
+  /**
+   * Creates a query cache holding at most the given number of result lists.
+   *
+   * @param capacity      the maximum number of cached results
+   *                      ({@code cache.showtime-query.capacity})
+   * @param logSampleRate share of cache operations written to the DEBUG log
+   *                      ({@code cache.log.sample-rate})
+   */
+  public ShowtimeQueryCache(@Value("${cache.showtime-query.capacity:10000}") int capacity,
+                            @Value("${cache.log.sample-rate:0.01}") double logSampleRate) {
+    this.capacity = capacity;
+    this.stats = new StatsCounter(logSampleRate);
+  }
+
+  /**
+   * Returns the current version stamp of a hall, to be read before querying the database.
+   *
+   * @param hallId the ID of the hall
+   * @return the hall's version
+   */
+  public long version(Long hallId) {
+    HallEntries entries = hallId == null ? null : halls.get(hallId);
+    return entries == null ? 0 : entries.version;
+  }
+
+  /**
+   * Looks up the showtimes of a hall on a date.
+   *
+   * @param hallId the ID of the hall
+   * @param date   the date of the showtimes
+   * @return the cached result, or empty on a miss
+   */
+  public Optional<List<Showtime>> getByDate(Long hallId, LocalDate date) {
+    HallEntries entries = hallId == null ? null : halls.get(hallId);
+    return lookup(entries == null || date == null ? null : entries.byDate.get(date),
+            hallId, date);
+  }
+
+  /**
+   * Caches the showtimes of a hall on a date, unless the hall changed since {@code version}.
+   *
+   * @param hallId    the ID of the hall
+   * @param date      the date of the showtimes
+   * @param version   the hall's version read before the query
+   * @param showtimes the query result
+   */
+  public void putByDate(Long hallId, LocalDate date, long version, List<Showtime> showtimes) {
+    if (hallId != null && date != null) {
+      HallEntries entries = halls.computeIfAbsent(hallId, id -> new HallEntries());
+      store(entries, entries.byDate, date, version, showtimes);
+    }
+  }
+
+  /**
+   * Looks up the showtimes of a hall whose film title contains the given text.
+   *
+   * @param hallId the ID of the hall
+   * @param title  the searched text, in any case
+   * @return the cached result, or empty on a miss
+   */
+  public Optional<List<Showtime>> getByTitle(Long hallId, String title) {
+    HallEntries entries = hallId == null ? null : halls.get(hallId);
+    return lookup(entries == null || title == null ? null : entries.byTitle.get(normalize(title)),
+            hallId, title);
+  }
+
+  /**
+   * Caches a title search of a hall, unless the hall changed since {@code version}.
+   *
+   * @param hallId    the ID of the hall
+   * @param title     the searched text, in any case
+   * @param version   the hall's version read before the query
+   * @param showtimes the query result
+   */
+  public void putByTitle(Long hallId, String title, long version, List<Showtime> showtimes) {
+    if (hallId != null && title != null) {
+      HallEntries entries = halls.computeIfAbsent(hallId, id -> new HallEntries());
+      store(entries, entries.byTitle, normalize(title), version, showtimes);
+    }
+  }
+
+  /**
+   * Evicts every result that could contain a showtime with the given attributes and bumps
+   * the hall's version. Called with the old and the new state of a changed showtime.
+   *
+   * @param hallId    the ID of the showtime's hall
+   * @param dateTime  the date and time of the showtime, {@code null} evicts all dates
+   * @param filmTitle the film title of the showtime, {@code null} evicts all title searches
+   */
+  public void invalidate(Long hallId, LocalDateTime dateTime, String filmTitle) {
+    if (hallId == null) {
+      return;
+    }
+    HallEntries entries = halls.computeIfAbsent(hallId, id -> new HallEntries());
+    synchronized (entries) {
+      entries.version++;
+      if (dateTime == null) {
+        entries.byDate.keySet().forEach(date -> evict(entries.byDate, date));
+      } else {
+        evict(entries.byDate, dateTime.toLocalDate());
+      }
+      String title = filmTitle == null ? null : normalize(filmTitle);
+      entries.byTitle.keySet().stream()
+              .filter(query -> title == null || matches(title, query))
+              .forEach(query -> evict(entries.byTitle, query));
+    }
+    log.debug("Результаты запросов зала инвалидированы. ID: {}", hallId);
+  }
+
+  /**
+   * Removes every cached result.
+   */
+  public void clear() {
+    halls.values().forEach(this::invalidateAll);
+  }
+
+  /**
+   * Returns a snapshot of the cache's activity counters; evictions are invalidated results and
+   * results dropped to make room for new ones.
+   *
+   * @return the counters accumulated since the cache was created
+   */
+  public CacheStats stats() {
+    return stats.snapshot(size.get(), capacity);
+  }
+
+  private Optional<List<Showtime>> lookup(Entry entry, Long hallId, Object key) {
+    if (entry == null) {
+      stats.recordMiss();
+      return Optional.empty();
+    }
+    entry.hits.incrementAndGet();
+    if (!entry.referenced) {
+      entry.referenced = true;
+    }
+    stats.recordHit();
+    if (log.isDebugEnabled() && stats.sampled()) {
+      log.debug("Результат запроса извлечён из кэша. ID: {}, Ключ: {}", hallId, key);
+    }
+    return Optional.of(entry.showtimes);
+  }
+
+  private <K> void store(HallEntries entries, Map<K, Entry> map, K key, long version,
+                         List<Showtime> showtimes) {
+    Entry entry = new Entry(List.copyOf(showtimes), entries, map, key);
+    synchronized (entries) {
+      if (entries.version != version) {
+        return;
+      }
+      if (map.containsKey(key)) {
+        map.put(key, entry);
+        enqueue(entry);
+        stats.recordPut();
+        return;
+      }
+    }
+    // Room is made without holding this hall: eviction locks the victim's hall.
+    if (!reserveSlot()) {
+      stats.recordRejectedPut();
+      return;
+    }
+    synchronized (entries) {
+      if (entries.version != version) {
+        size.decrementAndGet();
+        return;
+      }
+      if (map.put(key, entry) != null) {
+        size.decrementAndGet();
+      }
+      enqueue(entry);
+    }
+    stats.recordPut();
+  }
+
+  /**
+   * Reserves room for one more result, evicting with the CLOCK hand while the cache is full.
+   *
+   * @return {@code false} if nothing could be evicted
+   */
+  private boolean reserveSlot() {
+    while (true) {
+      int current = size.get();
+      if (current < capacity) {
+        if (size.compareAndSet(current, current + 1)) {
+          return true;
+        }
+      } else if (!evictOne()) {
+        return false;
+      }
+    }
+  }
+
+  private boolean evictOne() {
+    for (int scanned = 0, limit = 2 * queued.get() + 1; scanned < limit; scanned++) {
+      Entry entry = clock.poll();
+      if (entry == null) {
+        return false;
+      }
+      synchronized (entry.owner) {
+        if (entry.map.get(entry.key) != entry) {
+          queued.decrementAndGet();
+        } else if (entry.referenced) {
+          entry.referenced = false;
+          clock.offer(entry);
+        } else {
+          entry.map.remove(entry.key);
+          queued.decrementAndGet();
+          size.decrementAndGet();
+          stats.recordEviction(entry.hits.get() + 1);
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Puts a result at the tail of the eviction queue, dropping the queued results that were
+   * removed meanwhile once they outnumber the live ones.
+   */
+  private void enqueue(Entry entry) {
+    clock.offer(entry);
+    if (queued.incrementAndGet() <= 2 * capacity) {
+      return;
+    }
+    for (int remaining = queued.get(); remaining > 0 && queued.get() > capacity; remaining--) {
+      Entry queuedEntry = clock.poll();
+      if (queuedEntry == null) {
+        return;
+      }
+      if (queuedEntry.map.get(queuedEntry.key) == queuedEntry) {
+        clock.offer(queuedEntry);
+      } else {
+        queued.decrementAndGet();
+      }
+    }
+  }
+
+  private void invalidateAll(HallEntries entries) {
+    synchronized (entries) {
+      entries.version++;
+      entries.byDate.keySet().forEach(date -> evict(entries.byDate, date));
+      entries.byTitle.keySet().forEach(query -> evict(entries.byTitle, query));
+    }
+  }
+
+  private <K> void evict(Map<K, Entry> map, K key) {
+    Entry entry = map.remove(key);
+    if (entry != null) {
+      size.decrementAndGet();
+      stats.recordEviction(entry.hits.get() + 1);
+    }
+  }
+
+  /**
+   * Tells whether a title search could match the title. LIKE wildcards in the search make
+   * the outcome unpredictable, so such searches always match.
+   */
+  private static boolean matches(String title, String query) {
+    return title.contains(query) || query.indexOf('%') >= 0 || query.indexOf('_') >= 0;
+  }
+
+  private static String normalize(String title) {
+    return title.toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Cached results of one hall. The version is only written while holding the monitor.
+   */
+  private static final class HallEntries {
+    private final Map<LocalDate, Entry> byDate = new ConcurrentHashMap<>();
+    private final Map<String, Entry> byTitle = new ConcurrentHashMap<>();
+    private volatile long version;
+  }
+
+  /**
+   * Cached result with the number of times it was served, its place in the hall's entries and
+   * the CLOCK mark set by reads.
+   */
+  private static final class Entry {
+    private final List<Showtime> showtimes;
+    private final HallEntries owner;
+    private final Map<?, Entry> map;
+    private final Object key;
+    private final AtomicInteger hits = new AtomicInteger();
+    private volatile boolean referenced;
+
+    Entry(List<Showtime> showtimes, HallEntries owner, Map<?, Entry> map, Object key) {
+      this.showtimes = showtimes;
+      this.owner = owner;
+      this.map = map;
+      this.key = key;
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package com.example.cinema.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contention-free activity counters of a cache, plus the sampling decision for its debug log.
+ */
+final class StatsCounter {
+
+  private static final int HISTOGRAM_BUCKETS = 12;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder puts = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder expirations = new LongAdder();
+  private final LongAdder rejectedPuts = new LongAdder();
+  private final LongAdder[] evictionFrequencies = new LongAdder[HISTOGRAM_BUCKETS];
+  private volatile double logSampleRate;
+
+  StatsCounter(double logSampleRate) {
+    this.logSampleRate = logSampleRate;
+    for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+      evictionFrequencies[i] = new LongAdder();
+    }
+  }
+
+  void recordHit() {
+    hits.increment();
+  }
+
+  void recordMiss() {
+    misses.increment();
+  }
+
+  void recordPut() {
+    puts.increment();
+  }
+
+  void recordEviction(int frequency) {
+    evictions.increment();
+    int bucket = 31 - Integer.numberOfLeadingZeros(Math.max(1, frequency));
+    evictionFrequencies[Math.min(bucket, HISTOGRAM_BUCKETS - 1)].increment();
+  }
+
+  void recordExpiration() {
+    expirations.increment();
+  }
+
+  void recordRejectedPut() {
+    rejectedPuts.increment();
+  }
+
+  void setLogSampleRate(double logSampleRate) {
+    this.logSampleRate = logSampleRate;
+  }
+
+  /**
+   * Decides whether this operation is one of the sampled ones written to the debug log.
+   *
+   * @return {@code true} for roughly {@code logSampleRate} of the calls
+   */
+  boolean sampled() {
+    double rate = logSampleRate;
+    return rate >= 1 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
+  }
+
+  CacheStats snapshot(int size, int capacity) {
+    Map<String, Long> histogram = new LinkedHashMap<>();
+    for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+      long low = 1L << i;
+      String label;
+      if (i == HISTOGRAM_BUCKETS - 1) {
+        label = low + "+";
+      } else if (i == 0) {
+        label = "1";
+      } else {
+        label = low + "-" + ((low << 1) - 1);
+      }
+      histogram.put(label, evictionFrequencies[i].sum());
+    }
+    return new CacheStats(hits.sum(), misses.sum(), puts.sum(), evictions.sum(),
+            expirations.sum(), rejectedPuts.sum(), size, capacity, histogram);
+  }
+}
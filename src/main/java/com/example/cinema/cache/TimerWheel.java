@@ -0,0 +1,170 @@
+package com.example.cinema.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timer wheel scheduling cache nodes for expiration in O(1).
+ * Five levels of buckets cover roughly 1 second, 1 minute, 1 hour, 1.6 days and beyond; a node
+ * is placed in the coarsest level whose span still distinguishes its deadline, and is cascaded
+ * into finer levels as time approaches it. Advancing the wheel only visits the buckets whose
+ * time has passed, so expiry never scans the whole cache.
+ *
+ * <p>Deadlines are read through {@link Expiry}, which lets reads postpone a node's deadline
+ * (time-to-idle) without touching the wheel: a node found in a due bucket whose deadline has
+ * moved is simply rescheduled. Times are divided into ticks with an arithmetic shift, so the
+ * wheel keeps working when the ticker, like {@link System#nanoTime()}, is negative or crosses
+ * zero. Not thread-safe; callers serialize access with their own lock.
+ *
+ * @param <T> the type of stored values
+ */
+final class TimerWheel<T> {
+
+  private static final int[] BUCKETS = {64, 64, 32, 4, 1};
+  private static final long[] SPANS = {
+    1L << 30, // 1.07 s
+    1L << 36, // 1.14 min
+    1L << 42, // 1.22 h
+    1L << 47, // 1.63 d
+    1L << 49, // 6.5 d
+    1L << 49
+  };
+  private static final long[] SHIFT = {
+    Long.numberOfTrailingZeros(SPANS[0]),
+    Long.numberOfTrailingZeros(SPANS[1]),
+    Long.numberOfTrailingZeros(SPANS[2]),
+    Long.numberOfTrailingZeros(SPANS[3]),
+    Long.numberOfTrailingZeros(SPANS[4])
+  };
+
+  private final CacheNode<T>[][] wheel;
+  private final Expiry<T> expiry;
+  private long nanos;
+
+  /**
+   * Supplies the current deadline of a node.
+   *
+   * @param <T> the type of stored values
+   */
+  interface Expiry<T> {
+    long deadline(CacheNode<T> node);
+  }
+
+  /**
+   * Creates an empty wheel.
+   *
+   * @param expiry the source of node deadlines
+   * @param nanos  the current time of the cache's ticker
+   */
+  @SuppressWarnings("unchecked")
+  TimerWheel(Expiry<T> expiry, long nanos) {
+    this.expiry = expiry;
+    this.nanos = nanos;
+    this.wheel = new CacheNode[BUCKETS.length][];
+    for (int i = 0; i < BUCKETS.length; i++) {
+      wheel[i] = new CacheNode[BUCKETS[i]];
+      for (int j = 0; j < BUCKETS[i]; j++) {
+        CacheNode<T> sentinel = new CacheNode<>(null, null);
+        sentinel.prevInTimer = sentinel;
+        sentinel.nextInTimer = sentinel;
+        wheel[i][j] = sentinel;
+      }
+    }
+  }
+
+  /**
+   * Places the node according to its current deadline, moving it if it is already scheduled.
+   *
+   * @param node the node to schedule
+   */
+  void schedule(CacheNode<T> node) {
+    deschedule(node);
+    CacheNode<T> sentinel = findBucket(Math.max(expiry.deadline(node), nanos));
+    node.prevInTimer = sentinel.prevInTimer;
+    node.nextInTimer = sentinel;
+    sentinel.prevInTimer.nextInTimer = node;
+    sentinel.prevInTimer = node;
+  }
+
+  /**
+   * Removes the node from the wheel if it is scheduled.
+   *
+   * @param node the node to remove
+   */
+  void deschedule(CacheNode<T> node) {
+    if (node.nextInTimer != null) {
+      node.nextInTimer.prevInTimer = node.prevInTimer;
+      node.prevInTimer.nextInTimer = node.nextInTimer;
+      node.nextInTimer = null;
+      node.prevInTimer = null;
+    }
+  }
+
+  /**
+   * Advances the wheel to the current time, handing every node whose deadline has passed to
+   * the consumer and cascading the others into finer buckets.
+   *
+   * @param currentTime the current time of the cache's ticker
+   * @param expired     receives the expired nodes, already descheduled
+   */
+  void advance(long currentTime, Consumer<CacheNode<T>> expired) {
+    long previousTime = nanos;
+    nanos = currentTime;
+    for (int i = 0; i < SHIFT.length; i++) {
+      long previousTicks = previousTime >> SHIFT[i];
+      long currentTicks = currentTime >> SHIFT[i];
+      if (currentTicks - previousTicks <= 0) {
+        break;
+      }
+      expireLevel(i, previousTicks, currentTicks - previousTicks, expired);
+    }
+  }
+
+  /**
+   * Detaches every node, e.g. when the cache is cleared.
+   */
+  void clear() {
+    for (CacheNode<T>[] level : wheel) {
+      for (CacheNode<T> sentinel : level) {
+        sentinel.prevInTimer = sentinel;
+        sentinel.nextInTimer = sentinel;
+      }
+    }
+  }
+
+  private void expireLevel(int level, long previousTicks, long delta,
+                           Consumer<CacheNode<T>> expired) {
+    CacheNode<T>[] buckets = wheel[level];
+    int mask = buckets.length - 1;
+    int steps = (int) Math.min(1 + delta, buckets.length);
+    int start = (int) (previousTicks & mask);
+    for (int i = 0; i < steps; i++) {
+      CacheNode<T> sentinel = buckets[(start + i) & mask];
+      CacheNode<T> node = sentinel.nextInTimer;
+      sentinel.prevInTimer = sentinel;
+      sentinel.nextInTimer = sentinel;
+      while (node != sentinel) {
+        CacheNode<T> next = node.nextInTimer;
+        node.prevInTimer = null;
+        node.nextInTimer = null;
+        if (expiry.deadline(node) - nanos <= 0) {
+          expired.accept(node);
+        } else {
+          schedule(node);
+        }
+        node = next;
+      }
+    }
+  }
+
+  private CacheNode<T> findBucket(long time) {
+    long duration = time - nanos;
+    int last = wheel.length - 1;
+    for (int i = 0; i < last; i++) {
+      if (duration < SPANS[i + 1]) {
+        long ticks = time >> SHIFT[i];
+        return wheel[i][(int) (ticks & (wheel[i].length - 1))];
+      }
+    }
+    return wheel[last][0];
+  }
+}
@@ -0,0 +1,169 @@
+package com.example.cinema.cache;
+
+/**
+ * Window TinyLFU eviction policy.
+ * New nodes enter a small LRU window (1% of the capacity). The rest of the capacity is a
+ * segmented LRU: nodes pushed out of the window land in the probation region and move to the
+ * protected region (80% of the main space) when accessed again. When the cache is full the
+ * node leaving the window competes with the probation victim and a {@link CountMinSketch}
+ * keeps whichever was seen more often recently, so one-off reads cannot flush popular
+ * entries while stale favourites still age out as the sketch decays.
+ *
+ * @param <T> the type of stored values
+ */
+final class WindowTinyLfuPolicy<T> implements EvictionPolicy<T> {
+
+  private static final int WINDOW = 0;
+  private static final int PROBATION = 1;
+  private static final int PROTECTED = 2;
+
+  private final AccessOrderQueue<T> window = new AccessOrderQueue<>();
+  private final AccessOrderQueue<T> probation = new AccessOrderQueue<>();
+  private final AccessOrderQueue<T> protectedQueue = new AccessOrderQueue<>();
+  private final int maxWindow;
+  private final int maxProtected;
+  private final CountMinSketch sketch;
+
+  /**
+   * Creates a policy sized for the given number of entries.
+   *
+   * @param capacity the number of entries the policy manages
+   */
+  WindowTinyLfuPolicy(int capacity) {
+    this.maxWindow = Math.max(1, capacity / 100);
+    this.maxProtected = Math.max(1, capacity - maxWindow) * 4 / 5;
+    this.sketch = new CountMinSketch(capacity);
+  }
+
+  @Override
+  public void onAdd(CacheNode<T> node) {
+    sketch.increment(node.key);
+    node.frequency = 1;
+    node.queue = WINDOW;
+    window.addLast(node);
+    while (window.size > maxWindow) {
+      moveToProbation(window.first);
+    }
+  }
+
+  @Override
+  public void onAccess(CacheNode<T> node) {
+    sketch.increment(node.key);
+    if (node.frequency < Integer.MAX_VALUE) {
+      node.frequency++;
+    }
+    if (node.queue == WINDOW) {
+      window.moveToLast(node);
+    } else if (node.queue == PROBATION) {
+      probation.remove(node);
+      node.queue = PROTECTED;
+      protectedQueue.addLast(node);
+      while (protectedQueue.size > maxProtected) {
+        moveToProbation(protectedQueue.first);
+      }
+    } else {
+      protectedQueue.moveToLast(node);
+    }
+  }
+
+  @Override
+  public void onRemove(CacheNode<T> node) {
+    queueOf(node).remove(node);
+  }
+
+  /**
+   * Makes room for an incoming node: the window's LRU node, which the newcomer pushes out,
+   * is admitted to the main region only if the sketch rates it above the main victim.
+   */
+  @Override
+  public CacheNode<T> victim() {
+    CacheNode<T> candidate = null;
+    if (window.size >= maxWindow && window.first != null) {
+      candidate = window.first;
+      moveToProbation(candidate);
+    }
+    CacheNode<T> victim = probation.first;
+    if (victim == candidate) {
+      victim = protectedQueue.first;
+    }
+    if (candidate == null) {
+      return victim != null ? victim : window.first;
+    }
+    if (victim == null) {
+      return candidate;
+    }
+    return sketch.frequency(candidate.key) > sketch.frequency(victim.key) ? victim : candidate;
+  }
+
+  @Override
+  public void clear() {
+    window.clear();
+    probation.clear();
+    protectedQueue.clear();
+  }
+
+  private void moveToProbation(CacheNode<T> node) {
+    queueOf(node).remove(node);
+    node.queue = PROBATION;
+    probation.addLast(node);
+  }
+
+  private AccessOrderQueue<T> queueOf(CacheNode<T> node) {
+    if (node.queue == WINDOW) {
+      return window;
+    }
+    return node.queue == PROBATION ? probation : protectedQueue;
+  }
+
+  /**
+   * Intrusive doubly linked LRU list; the first node is the least recently used.
+   *
+   * @param <T> the type of stored values
+   */
+  private static final class AccessOrderQueue<T> {
+    private CacheNode<T> first;
+    private CacheNode<T> last;
+    private int size;
+
+    void addLast(CacheNode<T> node) {
+      node.next = null;
+      node.prev = last;
+      if (last == null) {
+        first = node;
+      } else {
+        last.next = node;
+      }
+      last = node;
+      size++;
+    }
+
+    void remove(CacheNode<T> node) {
+      if (node.prev == null) {
+        first = node.next;
+      } else {
+        node.prev.next = node.next;
+      }
+      if (node.next == null) {
+        last = node.prev;
+      } else {
+        node.next.prev = node.prev;
+      }
+      node.prev = null;
+      node.next = null;
+      size--;
+    }
+
+    void moveToLast(CacheNode<T> node) {
+      if (node != last) {
+        remove(node);
+        addLast(node);
+      }
+    }
+
+    void clear() {
+      first = null;
+      last = null;
+      size = 0;
+    }
+  }
+}
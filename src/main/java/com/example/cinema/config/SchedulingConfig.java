@@ -0,0 +1,12 @@
+package com.example.cinema.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Включает выполнение периодических задач, например очистку реестра задач логов.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
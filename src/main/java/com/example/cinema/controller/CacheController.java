@@ -0,0 +1,75 @@
+package com.example.cinema.controller;
+
+import com.example.cinema.cache.CacheStats;
+import com.example.cinema.cache.ShowtimeCache;
+import com.example.cinema.cache.ShowtimeQueryCache;
+import com.example.cinema.service.ShowtimeService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.Map;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller exposing the activity counters of the application caches and warming the
+ * showtime cache up with the most viewed showtimes.
+ */
+@RestController
+@RequestMapping("/api/cache")
+@Tag(name = "Cache Controller", description = "API for monitoring application caches")
+public class CacheController {
+
+  private final ShowtimeCache showtimeCache;
+  private final ShowtimeQueryCache showtimeQueryCache;
+  private final ShowtimeService showtimeService;
+
+  /**
+   * Constructs a CacheController for the given caches.
+   *
+   * @param showtimeCache the cache of showtimes
+   * @param showtimeQueryCache the cache of showtime filter results
+   * @param showtimeService the service loading showtimes into the cache
+   */
+  public CacheController(ShowtimeCache showtimeCache, ShowtimeQueryCache showtimeQueryCache,
+                         ShowtimeService showtimeService) {
+    this.showtimeCache = showtimeCache;
+    this.showtimeQueryCache = showtimeQueryCache;
+    this.showtimeService = showtimeService;
+  }
+
+  /**
+   * Retrieves a snapshot of every cache's counters.
+   *
+   * @return ResponseEntity containing the statistics keyed by cache name
+   */
+  @GetMapping("/stats")
+  @Operation(summary = "Get cache statistics",
+          description = "Returns hits, misses, puts, evictions, expirations and rejected puts "
+                  + "of each cache")
+  @ApiResponse(responseCode = "200", description = "Successfully retrieved")
+  public ResponseEntity<Map<String, CacheStats>> getStats() {
+    return ResponseEntity.ok(Map.of(
+            "showtimes", showtimeCache.stats(),
+            "showtimeQueries", showtimeQueryCache.stats()));
+  }
+
+  /**
+   * Loads the most viewed showtimes that are not cached yet into the showtime cache.
+   *
+   * @param limit the number of most viewed showtimes to consider
+   * @return ResponseEntity containing the number of showtimes loaded
+   */
+  @PostMapping("/showtimes/warm-up")
+  @Operation(summary = "Warm up the showtime cache",
+          description = "Loads the most viewed showtimes missing from the cache in one query")
+  @ApiResponse(responseCode = "200", description = "Successfully warmed up")
+  public ResponseEntity<Integer> warmUpShowtimes(
+          @RequestParam(defaultValue = "100") int limit) {
+    return ResponseEntity.ok(showtimeService.warmUpCache(limit));
+  }
+}
@@ -1,20 +1,28 @@
 package com.example.cinema.controller;
 
+import com.example.cinema.exception.ResourceNotFoundException;
+import com.example.cinema.logs.LogRollup;
+import com.example.cinema.logs.LogTaskStats;
 import com.example.cinema.model.LogObject;
+import com.example.cinema.service.LogRollupService;
 import com.example.cinema.service.LogService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/logs")
@@ -23,15 +31,19 @@ import org.springframework.web.bind.annotation.RestController;
 public class LogController {
 
   private final LogService logService;
+  private final LogRollupService logRollupService;
 
-  public LogController(LogService logService) {
+  public LogController(LogService logService, LogRollupService logRollupService) {
     this.logService = logService;
+    this.logRollupService = logRollupService;
   }
 
   @PostMapping("/create")
   @Operation(
           summary = "Создать лог-файл асинхронно",
-          description = "Запускает генерацию лог-файла и возвращает его ID"
+          description = "Запускает генерацию лог-файла и возвращает его ID. Неверная дата "
+                  + "отклоняется с 400, переполненный реестр задач — с 429, заполненная "
+                  + "очередь — с 503"
   )
   public ResponseEntity<Long> createLogFile(@RequestParam String date) {
     Long id = logService.createLogAsync(date);
@@ -41,24 +53,106 @@ public class LogController {
   @GetMapping("/status/{id}")
   @Operation(
           summary = "Получить состояние создания лог-файла",
-          description = "Возвращает состояние создания лог-файла по ID"
+          description = "Возвращает состояние создания лог-файла по ID: прочитанные и ожидаемые "
+                  + "байты, найденные строки, процент выполнения и оценку оставшегося времени. "
+                  + "Для неизвестной или удалённой из реестра задачи возвращает 404"
   )
-  public ResponseEntity<Map<String, String>> getStatus(@PathVariable Long id) {
+  public ResponseEntity<Map<String, Object>> getStatus(@PathVariable Long id) {
     LogObject logObject = logService.getStatus(id);
-    Map<String, String> response = new HashMap<>();
+    if (logObject == null) {
+      // Задача не создавалась или уже удалена из реестра
+      throw new ResourceNotFoundException("Не найдена задача создания логов: " + id);
+    }
+    Map<String, Object> response = new HashMap<>();
     response.put("status", logObject.getStatus());
     if (logObject.getErrorMessage() != null) {
       response.put("error", logObject.getErrorMessage());
     }
+    response.put("bytesScanned", logObject.getBytesScanned());
+    response.put("bytesTotal", logObject.getBytesTotal());
+    response.put("linesMatched", logObject.getLinesMatched());
+    response.put("percent", logObject.getPercent());
+    Long eta = logObject.getEtaSeconds();
+    if (eta != null) {
+      response.put("etaSeconds", eta);
+    }
     return ResponseEntity.ok(response);
   }
 
+  @GetMapping("/query")
+  @Operation(
+          summary = "Найти записи лога за дату",
+          description = "Возвращает текстом записи за дату с указанными уровнями, временем в "
+                  + "интервале [from, to) и текстом или регулярным выражением, не больше limit "
+                  + "записей. Поиск останавливается, как только найдено limit записей. "
+                  + "Регулярное выражение — не длиннее 200 символов; если его проверка "
+                  + "требует слишком большого перебора, ответ обрывается"
+  )
+  public ResponseEntity<StreamingResponseBody> queryLogs(
+          @RequestParam String date,
+          @RequestParam(required = false, defaultValue = "") List<String> level,
+          @RequestParam(required = false) String from,
+          @RequestParam(required = false) String to,
+          @RequestParam(required = false) String text,
+          @RequestParam(defaultValue = "false") boolean regex,
+          @RequestParam(defaultValue = "100") int limit) {
+    return logService.queryLogs(date, level, from, to, text, regex, limit);
+  }
+
+  @GetMapping("/rollups")
+  @Operation(
+          summary = "Получить поминутную сводку логов",
+          description = "Возвращает число записей по уровням, вызовов методов контроллеров и "
+                  + "исключений по типам за интервал [from, to) не длиннее 31 дня, "
+                  + "сгруппированное по периодам из resolution минут"
+  )
+  public ResponseEntity<List<LogRollup>> getRollups(
+          @RequestParam String from,
+          @RequestParam String to,
+          @RequestParam(defaultValue = "1") int resolution) {
+    return ResponseEntity.ok(logRollupService.getRollups(from, to, resolution));
+  }
+
+  @GetMapping("/stats")
+  @Operation(
+          summary = "Получить состояние реестра задач",
+          description = "Возвращает число задач по состояниям, занятое выгрузками место на "
+                  + "диске и число удалённых задач"
+  )
+  public ResponseEntity<LogTaskStats> getTaskStats() {
+    return ResponseEntity.ok(logService.getTaskStats());
+  }
+
   @GetMapping("/download/{id}")
   @Operation(
           summary = "Скачать созданный лог-файл",
-          description = "Скачивает созданный лог-файл по ID"
+          description = "Скачивает созданный лог-файл по ID. Поддерживает Range для докачки, "
+                  + "сжатие gzip по Accept-Encoding и ответ 304 по If-None-Match "
+                  + "и If-Modified-Since"
   )
-  public ResponseEntity<Resource> getLogFileById(@PathVariable Long id) throws IOException {
-    return logService.downloadCreatedLogs(id);
+  public ResponseEntity<Resource> getLogFileById(
+          @PathVariable Long id,
+          @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+          String acceptEncoding) throws IOException {
+    return logService.downloadCreatedLogs(id, acceptsGzip(acceptEncoding));
+  }
+
+  /**
+   * Проверяет, что gzip указан в Accept-Encoding и не запрещён параметром q=0.
+   */
+  static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    for (String coding : acceptEncoding.split(",")) {
+      String[] parts = coding.trim().split(";");
+      String name = parts[0].trim();
+      if (name.equalsIgnoreCase("gzip") || name.equals("*")) {
+        boolean refused = parts.length > 1
+                && parts[1].trim().replace(" ", "").matches("q=0(\\.0{0,3})?");
+        return !refused;
+      }
+    }
+    return false;
   }
-}
\ No newline at end of file
+}
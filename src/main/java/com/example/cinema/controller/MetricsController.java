@@ -0,0 +1,107 @@
+package com.example.cinema.controller;
+
+import com.example.cinema.aspect.LoggingAspect;
+import com.example.cinema.metrics.EndpointLatencies;
+import com.example.cinema.metrics.HeavyHitter;
+import com.example.cinema.metrics.LatencySnapshot;
+import com.example.cinema.metrics.PopularEntities;
+import com.example.cinema.metrics.RequestLogStats;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.List;
+import java.util.Map;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller exposing the latency percentiles of the controller endpoints, the most
+ * viewed showtimes and halls and the entries lost by the request log.
+ */
+@RestController
+@RequestMapping("/api/metrics")
+@Tag(name = "Metrics Controller",
+        description = "API for monitoring endpoint latency, popular entities and request log")
+public class MetricsController {
+
+  private final EndpointLatencies endpointLatencies;
+  private final PopularEntities popularEntities;
+  private final LoggingAspect loggingAspect;
+
+  /**
+   * Constructs a MetricsController for the given registries.
+   *
+   * @param endpointLatencies the latencies recorded by the controller aspect
+   * @param popularEntities the views of showtimes and halls
+   * @param loggingAspect the controller aspect writing the request log
+   */
+  public MetricsController(EndpointLatencies endpointLatencies,
+                           PopularEntities popularEntities,
+                           LoggingAspect loggingAspect) {
+    this.endpointLatencies = endpointLatencies;
+    this.popularEntities = popularEntities;
+    this.loggingAspect = loggingAspect;
+  }
+
+  /**
+   * Retrieves the latency percentiles of every endpoint called since start.
+   *
+   * @return ResponseEntity containing the percentiles keyed by method signature
+   */
+  @GetMapping("/endpoints")
+  @Operation(summary = "Get endpoint latency percentiles",
+          description = "Returns p50, p90, p99, p99.9 and max latency in milliseconds of each "
+                  + "endpoint over the rolling window")
+  @ApiResponse(responseCode = "200", description = "Successfully retrieved")
+  public ResponseEntity<Map<String, LatencySnapshot>> getEndpointLatencies() {
+    return ResponseEntity.ok(endpointLatencies.snapshot());
+  }
+
+  /**
+   * Retrieves the most viewed showtimes.
+   *
+   * @param limit the largest number of showtimes to return
+   * @return ResponseEntity containing the showtime IDs with their estimated recent views
+   */
+  @GetMapping("/popular/showtimes")
+  @Operation(summary = "Get the most viewed showtimes",
+          description = "Returns showtime IDs in descending order of recent views")
+  @ApiResponse(responseCode = "200", description = "Successfully retrieved")
+  public ResponseEntity<List<HeavyHitter>> getPopularShowtimes(
+          @RequestParam(defaultValue = "10") int limit) {
+    return ResponseEntity.ok(popularEntities.topShowtimes(limit));
+  }
+
+  /**
+   * Retrieves the most viewed halls.
+   *
+   * @param limit the largest number of halls to return
+   * @return ResponseEntity containing the hall IDs with their estimated recent views
+   */
+  @GetMapping("/popular/halls")
+  @Operation(summary = "Get the most viewed halls",
+          description = "Returns hall IDs in descending order of recent views")
+  @ApiResponse(responseCode = "200", description = "Successfully retrieved")
+  public ResponseEntity<List<HeavyHitter>> getPopularHalls(
+          @RequestParam(defaultValue = "10") int limit) {
+    return ResponseEntity.ok(popularEntities.topHalls(limit));
+  }
+
+  /**
+   * Retrieves the number of request log entries lost since start.
+   *
+   * @return ResponseEntity containing the dropped and failed entries
+   */
+  @GetMapping("/request-log")
+  @Operation(summary = "Get request log losses",
+          description = "Returns the call entries dropped because the log buffer was full and "
+                  + "the entries the appender failed to write")
+  @ApiResponse(responseCode = "200", description = "Successfully retrieved")
+  public ResponseEntity<RequestLogStats> getRequestLogStats() {
+    return ResponseEntity.ok(new RequestLogStats(loggingAspect.getDroppedEvents(),
+            loggingAspect.getFailedWrites()));
+  }
+}
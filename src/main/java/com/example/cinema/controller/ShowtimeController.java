@@ -1,18 +1,26 @@
 package com.example.cinema.controller;
 
 import com.example.cinema.dto.ShowtimeDto;
+import com.example.cinema.dto.ShowtimePageDto;
+import com.example.cinema.exception.ValidationException;
 import com.example.cinema.model.Hall;
 import com.example.cinema.model.Showtime;
 import com.example.cinema.service.ShowtimeService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -23,6 +31,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * REST controller for managing movie showtimes.
@@ -34,15 +43,21 @@ import org.springframework.web.bind.annotation.RestController;
 @Tag(name = "Showtimes", description = "Movie showtimes management")
 public class ShowtimeController {
 
+  private static final int MAX_PAGE_SIZE = 500;
+  private static final int MAX_TITLES = 50;
+
   private final ShowtimeService showtimeService;
+  private final ObjectMapper objectMapper;
 
   /**
    * Constructs a ShowtimeController with the specified ShowtimeService.
    *
    * @param showtimeService the service to handle showtime operations
+   * @param objectMapper the mapper used to write streamed showtimes
    */
-  public ShowtimeController(ShowtimeService showtimeService) {
+  public ShowtimeController(ShowtimeService showtimeService, ObjectMapper objectMapper) {
     this.showtimeService = showtimeService;
+    this.objectMapper = objectMapper;
   }
 
   /**
@@ -73,6 +88,54 @@ public class ShowtimeController {
     return ResponseEntity.ok(showtimeService.getAllShowtimes());
   }
 
+  /**
+   * Retrieves showtimes page by page, ordered by date and ID, showtimes without a date last.
+   *
+   * @param cursor the cursor returned with the previous page, absent for the first page
+   * @param size the maximum number of showtimes on the page
+   * @return the page of showtimes and the cursor of the next page
+   */
+  @Operation(summary = "Get showtimes page by page")
+  @GetMapping("/page")
+  public ResponseEntity<ShowtimePageDto> getShowtimePage(
+          @Parameter(description = "Cursor returned with the previous page")
+          @RequestParam(required = false) String cursor,
+          @Parameter(description = "Page size (1-" + MAX_PAGE_SIZE + ")")
+          @RequestParam(defaultValue = "50") int size) {
+    if (size < 1 || size > MAX_PAGE_SIZE) {
+      throw new ValidationException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+    }
+    return ResponseEntity.ok(showtimeService.getShowtimePage(cursor, size));
+  }
+
+  /**
+   * Streams all showtimes as newline-delimited JSON, one showtime per line,
+   * writing each row as soon as it is read from the database.
+   *
+   * @return the streaming response body
+   */
+  @Operation(summary = "Stream all showtimes as NDJSON")
+  @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> streamShowtimes() {
+    StreamingResponseBody body = outputStream -> {
+      OutputStream out = new BufferedOutputStream(outputStream);
+      try {
+        showtimeService.streamShowtimes(showtime -> {
+          try {
+            out.write(objectMapper.writeValueAsBytes(showtime));
+            out.write('\n');
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+      out.flush();
+    };
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+  }
+
   /**
    * Retrieves a specific showtime by its ID.
    *
@@ -153,6 +216,66 @@ public class ShowtimeController {
     return showtimeService.filterByDate(hallId, date);
   }
 
+  /**
+   * Filters showtimes by a range of dates in a specific cinema hall.
+   *
+   * @param hallId the ID of the cinema hall
+   * @param from the first date of the range, inclusive
+   * @param to the last date of the range, inclusive
+   * @return list of showtimes on the specified dates, at most 31 days
+   */
+  @Operation(summary = "Filter showtimes by date range")
+  @GetMapping("/filter/range/{hallId}")
+  public List<Showtime> getShowtimesByDateRange(
+          @Parameter(description = "ID of the cinema hall") @PathVariable Long hallId,
+          @Parameter(description = "First date, inclusive (format: yyyy-MM-dd)",
+                  example = "2023-12-25")
+          @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+          @Parameter(description = "Last date, inclusive (format: yyyy-MM-dd)",
+                  example = "2023-12-31")
+          @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+    return showtimeService.filterByDateRange(hallId, from, to);
+  }
+
+  /**
+   * Searches film titles containing the given text across all cinema halls.
+   *
+   * @param query the text to search for, in any case
+   * @param limit the maximum number of titles
+   * @return distinct film titles, those with the most upcoming sessions first
+   */
+  @Operation(summary = "Search film titles")
+  @GetMapping("/titles/search")
+  public List<String> searchFilmTitles(
+          @Parameter(description = "Part of the film title") @RequestParam String query,
+          @Parameter(description = "Maximum number of titles (1-" + MAX_TITLES + ")")
+          @RequestParam(defaultValue = "10") int limit) {
+    return showtimeService.searchFilmTitles(query, checkTitleLimit(limit));
+  }
+
+  /**
+   * Suggests film titles for a typed prefix across all cinema halls.
+   *
+   * @param prefix the typed beginning of the title or of one of its words
+   * @param limit the maximum number of titles
+   * @return distinct film titles, those with the most upcoming sessions first
+   */
+  @Operation(summary = "Suggest film titles for typeahead")
+  @GetMapping("/titles/typeahead")
+  public List<String> suggestFilmTitles(
+          @Parameter(description = "Beginning of the film title") @RequestParam String prefix,
+          @Parameter(description = "Maximum number of titles (1-" + MAX_TITLES + ")")
+          @RequestParam(defaultValue = "10") int limit) {
+    return showtimeService.suggestFilmTitles(prefix, checkTitleLimit(limit));
+  }
+
+  private static int checkTitleLimit(int limit) {
+    if (limit < 1 || limit > MAX_TITLES) {
+      throw new ValidationException("Limit must be between 1 and " + MAX_TITLES);
+    }
+    return limit;
+  }
+
   /**
    * Request object for creating or updating showtimes.
    * Contains the necessary information to schedule a movie showing.
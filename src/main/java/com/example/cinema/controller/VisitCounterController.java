@@ -1,9 +1,12 @@
 package com.example.cinema.controller;
 
+import com.example.cinema.metrics.VisitCount;
 import com.example.cinema.service.VisitCounterService;
+import java.util.Map;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -21,4 +24,10 @@ public class VisitCounterController {
     Long count = visitCounterService.getCounter();
     return ResponseEntity.ok(count);
   }
-}
\ No newline at end of file
+
+  @GetMapping("/count/endpoints")
+  public ResponseEntity<Map<String, Map<Integer, VisitCount>>> getEndpointCounts(
+          @RequestParam(required = false) String endpoint) {
+    return ResponseEntity.ok(visitCounterService.getEndpointCounts(endpoint));
+  }
+}
@@ -14,4 +14,19 @@ public class ShowtimeDto {
   private LocalDateTime dateTime;
   private String filmTitle;
   private HallDto hall; // Создайте аналогичный HallDto
+
+  /**
+   * Constructor for JPQL projections: builds the DTO straight from showtime and hall columns.
+   *
+   * @param id the ID of the showtime
+   * @param dateTime the date and time of the showtime
+   * @param filmTitle the title of the film
+   * @param hallId the ID of the hall
+   * @param hallName the name of the hall
+   * @param hallCapacity the capacity of the hall
+   */
+  public ShowtimeDto(Long id, LocalDateTime dateTime, String filmTitle,
+                     Long hallId, String hallName, Integer hallCapacity) {
+    this(id, dateTime, filmTitle, new HallDto(hallId, hallName, hallCapacity));
+  }
 }
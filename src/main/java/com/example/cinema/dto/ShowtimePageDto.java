@@ -0,0 +1,14 @@
+package com.example.cinema.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShowtimePageDto {
+  private List<ShowtimeDto> content;
+  private String nextCursor; // null на последней странице
+}
@@ -0,0 +1,369 @@
+package com.example.cinema.logs;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Extracts a day's entries from the current log and from the archives it was rotated into,
+ * named {@code <log>.<yyyy-MM-dd>.<n>.gz} (or without {@code .gz}) by the rolling policy.
+ * An archive holds the entries logged up to the end of the day in its name, since the
+ * previous archive date, so only the archives whose range can contain the day are opened.
+ * They are decompressed and filtered concurrently on a bounded pool, each into a temporary
+ * part, and the parts are merged in timestamp order.
+ *
+ * <p>An entry is a line starting with a {@code dd-MM-yyyy} date together with the following
+ * lines without a date, such as a stack trace. Lines are decoded as ISO-8859-1, which maps
+ * every byte to one character, so UTF-8 messages are written back unchanged.
+ */
+@Slf4j
+public final class LogArchiveSearch implements AutoCloseable {
+
+  private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+  private static final int TIMESTAMP_LENGTH = "dd-MM-yyyy HH:mm:ss".length();
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final ExecutorService pool;
+  private final LogExtractor extractor = new LogExtractor();
+
+  /**
+   * Creates a search using at most four threads, fewer on smaller machines.
+   */
+  public LogArchiveSearch() {
+    this(Math.min(4, Runtime.getRuntime().availableProcessors()));
+  }
+
+  /**
+   * Creates a search decompressing at most the given number of archives at once.
+   *
+   * @param parallelism the number of threads of the pool
+   */
+  public LogArchiveSearch(int parallelism) {
+    AtomicInteger counter = new AtomicInteger();
+    this.pool = Executors.newFixedThreadPool(parallelism, task -> {
+      Thread thread = new Thread(task, "log-archive-" + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Finds the rotated archives of a log that can contain entries of a day.
+   *
+   * @param logFile the current log file
+   * @param day     the requested day
+   * @return the archives, oldest first
+   * @throws IOException if the log's directory cannot be listed
+   */
+  public List<Path> archivesFor(Path logFile, LocalDate day) throws IOException {
+    List<Archive> archives = listArchives(logFile);
+    NavigableSet<LocalDate> dates = archives.stream()
+            .map(archive -> archive.date)
+            .collect(Collectors.toCollection(TreeSet::new));
+    return archives.stream()
+            .filter(archive -> !day.isAfter(archive.date))
+            .filter(archive -> {
+              LocalDate previous = dates.lower(archive.date);
+              return previous == null || previous.isBefore(day);
+            })
+            .map(archive -> archive.path)
+            .collect(Collectors.toList());
+  }
+
+  /**
+   * Writes the entries of a day found in the log's archives and in the current log to the
+   * target file, in timestamp order. The archives are scanned while the index of the current
+   * log is brought up to date.
+   *
+   * @param index    the day index of the current log
+   * @param day      the requested day
+   * @param target   the file receiving the entries
+   * @param progress receives the bytes to read and the scanning progress
+   * @return the number of entries and bytes written
+   * @throws IOException if a log or archive cannot be read or the target written
+   */
+  public LogExtractor.Result extract(LogDayIndex index, LocalDate day, Path target,
+                                     ScanProgress progress) throws IOException {
+    Path logFile = index.getLogFile();
+    List<Path> archives = archivesFor(logFile, day);
+    if (archives.isEmpty()) {
+      return extractor.transfer(logFile, target, index.find(day, progress), progress);
+    }
+    log.debug("Поиск логов за {} в архивах: {}", day, archives.size());
+
+    List<Path> parts = new ArrayList<>();
+    List<Future<Path>> futures = new ArrayList<>();
+    try {
+      for (Path archive : archives) {
+        progress.expect(Files.size(archive));
+      }
+      for (Path archive : archives) {
+        futures.add(pool.submit(() -> scanArchive(archive, day, progress)));
+      }
+      List<LogDayIndex.Segment> segments = index.find(day, progress);
+      for (Future<Path> future : futures) {
+        parts.add(await(future));
+      }
+      if (!segments.isEmpty()) {
+        Path current = Files.createTempFile("logs-part", ".log");
+        parts.add(current);
+        extractor.transfer(logFile, current, segments, progress);
+      }
+      return merge(parts, target);
+    } finally {
+      futures.forEach(future -> future.cancel(true));
+      for (Future<Path> future : futures) {
+        if (future.isDone() && !future.isCancelled()) {
+          deletePart(future);
+        }
+      }
+      for (Path part : parts) {
+        Files.deleteIfExists(part);
+      }
+    }
+  }
+
+  /**
+   * Stops the pool; running scans are interrupted.
+   */
+  @Override
+  public void close() {
+    pool.shutdownNow();
+  }
+
+  private List<Archive> listArchives(Path logFile) throws IOException {
+    Path directory = logFile.toAbsolutePath().getParent();
+    Pattern pattern = Pattern.compile(Pattern.quote(logFile.getFileName().toString())
+            + "\\.(\\d{4}-\\d{2}-\\d{2})\\.(\\d{1,9})(\\.gz)?");
+    List<Archive> archives = new ArrayList<>();
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+      for (Path file : files) {
+        Matcher matcher = pattern.matcher(file.getFileName().toString());
+        if (matcher.matches() && Files.isRegularFile(file)) {
+          archives.add(new Archive(file, LocalDate.parse(matcher.group(1)),
+                  Integer.parseInt(matcher.group(2))));
+        }
+      }
+    }
+    archives.sort(Comparator.comparing((Archive archive) -> archive.date)
+            .thenComparingInt(archive -> archive.index));
+    return archives;
+  }
+
+  /**
+   * Copies the entries of the day from one archive into a temporary part.
+   */
+  private static Path scanArchive(Path archive, LocalDate day, ScanProgress progress)
+          throws IOException {
+    String prefix = day.format(DATE);
+    Path part = Files.createTempFile("logs-part", ".log");
+    try (InputStream raw = new CountingInputStream(Files.newInputStream(archive), progress);
+         InputStream in = archive.toString().endsWith(".gz")
+                 ? new GZIPInputStream(raw, BUFFER_SIZE) : raw;
+         BufferedReader reader = new BufferedReader(
+                 new InputStreamReader(in, StandardCharsets.ISO_8859_1), BUFFER_SIZE);
+         BufferedWriter writer = Files.newBufferedWriter(part, StandardCharsets.ISO_8859_1)) {
+      boolean copying = false;
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (Thread.currentThread().isInterrupted()) {
+          throw new InterruptedIOException("Поиск в архиве прерван: " + archive);
+        }
+        if (startsWithDate(line)) {
+          copying = line.startsWith(prefix);
+          if (copying) {
+            progress.scanned(0, 1);
+          }
+        }
+        if (copying) {
+          writer.write(line);
+          writer.write('\n');
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(part);
+      throw e;
+    }
+    return part;
+  }
+
+  /**
+   * Merges parts whose entries are each in time order into the target. Entries with the same
+   * timestamp keep the order of the parts.
+   */
+  private static LogExtractor.Result merge(List<Path> parts, Path target) throws IOException {
+    List<EntryReader> readers = new ArrayList<>();
+    long lines = 0;
+    long bytes = 0;
+    try (BufferedWriter writer = Files.newBufferedWriter(target, StandardCharsets.ISO_8859_1)) {
+      PriorityQueue<EntryReader> queue = new PriorityQueue<>(
+              Comparator.comparing((EntryReader reader) -> reader.timestamp)
+                      .thenComparingInt(reader -> reader.order));
+      for (Path part : parts) {
+        EntryReader reader = new EntryReader(part, readers.size());
+        readers.add(reader);
+        if (reader.next()) {
+          queue.add(reader);
+        }
+      }
+      while (!queue.isEmpty()) {
+        EntryReader reader = queue.poll();
+        for (String line : reader.entry) {
+          writer.write(line);
+          writer.write('\n');
+          bytes += line.length() + 1;
+        }
+        lines++;
+        if (reader.next()) {
+          queue.add(reader);
+        }
+      }
+    } finally {
+      for (EntryReader reader : readers) {
+        reader.close();
+      }
+    }
+    return new LogExtractor.Result(lines, bytes);
+  }
+
+  private static Path await(Future<Path> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Поиск в архивах прерван");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      throw new IOException("Ошибка поиска в архиве", cause);
+    }
+  }
+
+  private static void deletePart(Future<Path> future) {
+    try {
+      Files.deleteIfExists(future.get());
+    } catch (Exception e) {
+      // Часть не была создана или уже удалена
+    }
+  }
+
+  static boolean startsWithDate(String line) {
+    if (line.length() < 10 || line.charAt(2) != '-' || line.charAt(5) != '-') {
+      return false;
+    }
+    for (int i = 0; i < 10; i++) {
+      if (i != 2 && i != 5 && (line.charAt(i) < '0' || line.charAt(i) > '9')) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Reports the compressed bytes read from an archive as scanned.
+   */
+  private static final class CountingInputStream extends FilterInputStream {
+    private final ScanProgress progress;
+
+    CountingInputStream(InputStream in, ScanProgress progress) {
+      super(in);
+      this.progress = progress;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b >= 0) {
+        progress.scanned(1, 0);
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      int read = super.read(buffer, offset, length);
+      if (read > 0) {
+        progress.scanned(read, 0);
+      }
+      return read;
+    }
+  }
+
+  /**
+   * A rotated archive with the date and index from its name.
+   */
+  private static final class Archive {
+    private final Path path;
+    private final LocalDate date;
+    private final int index;
+
+    Archive(Path path, LocalDate date, int index) {
+      this.path = path;
+      this.date = date;
+      this.index = index;
+    }
+  }
+
+  /**
+   * Reads a part entry by entry, looking one line ahead for the start of the next entry.
+   */
+  private static final class EntryReader implements AutoCloseable {
+    private final BufferedReader reader;
+    private final int order;
+    private final List<String> entry = new ArrayList<>();
+    private String timestamp;
+    private String pending;
+
+    EntryReader(Path part, int order) throws IOException {
+      this.reader = Files.newBufferedReader(part, StandardCharsets.ISO_8859_1);
+      this.order = order;
+      this.pending = reader.readLine();
+    }
+
+    boolean next() throws IOException {
+      entry.clear();
+      if (pending == null) {
+        return false;
+      }
+      timestamp = pending.substring(0, Math.min(TIMESTAMP_LENGTH, pending.length()));
+      entry.add(pending);
+      while ((pending = reader.readLine()) != null && !startsWithDate(pending)) {
+        entry.add(pending);
+      }
+      return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+      reader.close();
+    }
+  }
+}
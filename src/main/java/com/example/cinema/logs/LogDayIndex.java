@@ -0,0 +1,437 @@
+package com.example.cinema.logs;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Index of the byte ranges each day occupies in a log whose lines start with a
+ * {@code dd-MM-yyyy} date. Lines are appended in time order, so a day is normally one
+ * contiguous segment and extracting it is a seek plus a bounded copy instead of a scan of the
+ * whole file. Lines without a date, such as stack traces, belong to the day of the line above.
+ * If the clock goes back a day can occur more than once; each occurrence is kept as a separate
+ * segment.
+ *
+ * <p>The index is built incrementally: a refresh only scans the bytes appended since the last
+ * one, up to the last complete line. It is persisted to a sidecar file next to the log
+ * ({@code cinema.log.idx}) and reloaded on start. The sidecar records the indexed length and a
+ * checksum of the beginning of the log; if the log was rotated or truncated, the index is
+ * rebuilt from the start. Instances are thread-safe.
+ */
+@Slf4j
+public final class LogDayIndex {
+
+  private static final String SUFFIX = ".idx";
+  private static final String HEADER = "# log day index v1";
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final int HEAD_SIZE = 256;
+  private static final int DATE_LENGTH = 10;
+  private static final byte LF = '\n';
+  private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+
+  private final Path logFile;
+  private final Path sidecar;
+  private final NavigableMap<LocalDate, List<Segment>> days = new TreeMap<>();
+  private long indexedLength;
+  private int headLength;
+  private long headChecksum;
+  private Segment last;
+  private boolean loaded;
+
+  /**
+   * Creates an index of a log, persisted to {@code <log>.idx}.
+   *
+   * @param logFile the log file
+   */
+  public LogDayIndex(Path logFile) {
+    this(logFile, logFile.resolveSibling(logFile.getFileName() + SUFFIX));
+  }
+
+  /**
+   * Creates an index of a log, persisted to the given file.
+   *
+   * @param logFile the log file
+   * @param sidecar the file holding the persisted index
+   */
+  public LogDayIndex(Path logFile, Path sidecar) {
+    this.logFile = logFile;
+    this.sidecar = sidecar;
+  }
+
+  /**
+   * Brings the index up to date with the log and returns the segments of a day.
+   *
+   * @param day the day to look up
+   * @return the day's segments in file order, empty if the log has no lines of that day
+   * @throws IOException if the log cannot be read
+   */
+  public List<Segment> find(LocalDate day) throws IOException {
+    return find(day, ScanProgress.NONE);
+  }
+
+  /**
+   * Brings the index up to date with the log, reporting the bytes it scans, and returns the
+   * segments of a day.
+   *
+   * @param day      the day to look up
+   * @param progress receives the number of unindexed bytes and the scanning progress
+   * @return the day's segments in file order, empty if the log has no lines of that day
+   * @throws IOException if the log cannot be read
+   */
+  public synchronized List<Segment> find(LocalDate day, ScanProgress progress)
+          throws IOException {
+    refresh(progress);
+    return snapshot(days.getOrDefault(day, List.of()));
+  }
+
+  /**
+   * Brings the index up to date with the log and returns every indexed day.
+   *
+   * @return the days with their segments, in ascending order
+   * @throws IOException if the log cannot be read
+   */
+  public synchronized NavigableMap<LocalDate, List<Segment>> days() throws IOException {
+    refresh();
+    NavigableMap<LocalDate, List<Segment>> copy = new TreeMap<>();
+    days.forEach((day, segments) -> copy.put(day, snapshot(segments)));
+    return Collections.unmodifiableNavigableMap(copy);
+  }
+
+  /**
+   * Indexes the lines appended to the log since the last refresh and persists the result.
+   * The index is rebuilt if the log no longer starts with the bytes it was built from.
+   *
+   * @throws IOException if the log cannot be read
+   */
+  public void refresh() throws IOException {
+    refresh(ScanProgress.NONE);
+  }
+
+  /**
+   * Returns the log this index describes.
+   *
+   * @return the log file
+   */
+  public Path getLogFile() {
+    return logFile;
+  }
+
+  private synchronized void refresh(ScanProgress progress) throws IOException {
+    if (!loaded) {
+      load();
+      loaded = true;
+    }
+    boolean changed = false;
+    try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < indexedLength || !sameHead(channel)) {
+        log.debug("Лог изменился, индекс по датам перестраивается: {}", logFile);
+        reset();
+        changed = true;
+      }
+      if (size > indexedLength) {
+        progress.expect(size - indexedLength);
+        try {
+          scan(channel, size, progress);
+        } catch (IOException | RuntimeException e) {
+          // Сканирование прервано на середине: индекс строится заново при следующем запросе
+          reset();
+          throw e;
+        }
+        if (headLength < HEAD_SIZE) {
+          headLength = (int) Math.min(HEAD_SIZE, indexedLength);
+          headChecksum = checksum(channel, headLength);
+        }
+        changed = true;
+      }
+    }
+    if (changed) {
+      save();
+    }
+  }
+
+  /**
+   * Scans the log from the indexed length, extending the index line by line. Bytes after the
+   * last line feed are left for the next refresh, since that line may still be written.
+   */
+  private void scan(FileChannel channel, long size, ScanProgress progress) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    byte[] bytes = buffer.array();
+    byte[] head = new byte[DATE_LENGTH];
+    // Дата последней строки в байтах: совпадение проверяется без разбора даты
+    byte[] lastHead = last == null ? new byte[DATE_LENGTH]
+            : last.day.format(DATE).getBytes(StandardCharsets.US_ASCII);
+    int headFill = 0;
+    long lineStart = indexedLength;
+    long position = indexedLength;
+
+    while (position < size) {
+      buffer.clear();
+      int read = channel.read(buffer, position);
+      if (read < 0) {
+        break;
+      }
+      int i = 0;
+      while (i < read) {
+        // Начало строки копируется до даты, остаток строки пропускается поиском перевода строки
+        while (headFill < DATE_LENGTH && i < read && bytes[i] != LF) {
+          head[headFill++] = bytes[i++];
+        }
+        int end = indexOf(bytes, LF, i, read);
+        if (end < 0) {
+          break;
+        }
+        long lineEnd = position + end + 1;
+        if (headFill == DATE_LENGTH && last != null && Arrays.equals(head, lastHead)) {
+          last.end = lineEnd;
+          last.lines++;
+        } else {
+          LocalDate day = headFill == DATE_LENGTH ? parseDate(head) : null;
+          addLine(day, lineStart, lineEnd);
+          if (day != null) {
+            System.arraycopy(head, 0, lastHead, 0, DATE_LENGTH);
+          }
+        }
+        lineStart = lineEnd;
+        headFill = 0;
+        i = end + 1;
+      }
+      position += read;
+      progress.scanned(read, 0);
+    }
+    indexedLength = lineStart;
+  }
+
+  private void addLine(LocalDate day, long start, long end) {
+    if (day == null || (last != null && day.equals(last.day))) {
+      // Строка без даты (например, стек вызовов) относится к предыдущему дню
+      if (last != null) {
+        last.end = end;
+        if (day != null) {
+          last.lines++;
+        }
+      }
+      return;
+    }
+    last = new Segment(day, start, end, 1);
+    days.computeIfAbsent(day, d -> new ArrayList<>()).add(last);
+  }
+
+  private static int indexOf(byte[] bytes, byte value, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (bytes[i] == value) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private boolean sameHead(FileChannel channel) throws IOException {
+    return headLength == 0 || checksum(channel, headLength) == headChecksum;
+  }
+
+  private void reset() {
+    days.clear();
+    indexedLength = 0;
+    headLength = 0;
+    headChecksum = 0;
+    last = null;
+  }
+
+  private void load() {
+    List<String> lines;
+    try {
+      lines = Files.readAllLines(sidecar, StandardCharsets.US_ASCII);
+    } catch (NoSuchFileException e) {
+      return;
+    } catch (IOException e) {
+      log.warn("Не удалось прочитать индекс лога {}: {}", sidecar, e.getMessage());
+      return;
+    }
+    try {
+      if (lines.size() < 3 || !HEADER.equals(lines.get(0))) {
+        throw new IllegalArgumentException("unknown format");
+      }
+      long length = Long.parseLong(lines.get(1));
+      String[] headParts = lines.get(2).split(" ");
+      int headSize = Integer.parseInt(headParts[0]);
+      long headSum = Long.parseLong(headParts[1]);
+      for (String line : lines.subList(3, lines.size())) {
+        String[] parts = line.split(" ");
+        LocalDate day = LocalDate.parse(parts[0]);
+        Segment segment = new Segment(day, Long.parseLong(parts[1]), Long.parseLong(parts[2]),
+                Long.parseLong(parts[3]));
+        days.computeIfAbsent(day, d -> new ArrayList<>()).add(segment);
+        if (last == null || segment.end > last.end) {
+          last = segment;
+        }
+      }
+      indexedLength = length;
+      headLength = headSize;
+      headChecksum = headSum;
+    } catch (RuntimeException e) {
+      log.warn("Индекс лога {} повреждён и будет перестроен", sidecar);
+      reset();
+    }
+  }
+
+  /**
+   * Writes the index to a temporary file and moves it over the sidecar, so a crash never
+   * leaves a half-written index. A failure only costs a rescan after restart.
+   */
+  private void save() {
+    Path temp = sidecar.resolveSibling(sidecar.getFileName() + ".tmp");
+    try {
+      try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.US_ASCII)) {
+        writer.write(HEADER);
+        writer.newLine();
+        writer.write(Long.toString(indexedLength));
+        writer.newLine();
+        writer.write(headLength + " " + headChecksum);
+        writer.newLine();
+        List<Segment> segments = new ArrayList<>();
+        days.values().forEach(segments::addAll);
+        segments.sort((a, b) -> Long.compare(a.start, b.start));
+        for (Segment segment : segments) {
+          writer.write(segment.day + " " + segment.start + " " + segment.end + " "
+                  + segment.lines);
+          writer.newLine();
+        }
+      }
+      try {
+        Files.move(temp, sidecar, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, sidecar, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException e) {
+      log.warn("Не удалось сохранить индекс лога {}: {}", sidecar, e.getMessage());
+    }
+  }
+
+  private static List<Segment> snapshot(List<Segment> segments) {
+    List<Segment> copy = new ArrayList<>(segments.size());
+    for (Segment segment : segments) {
+      copy.add(new Segment(segment.day, segment.start, segment.end, segment.lines));
+    }
+    return Collections.unmodifiableList(copy);
+  }
+
+  private static long checksum(FileChannel channel, int length) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, buffer.position()) < 0) {
+        break;
+      }
+    }
+    buffer.flip();
+    CRC32 crc = new CRC32();
+    crc.update(buffer);
+    return crc.getValue();
+  }
+
+  /**
+   * Parses a {@code dd-MM-yyyy} date from raw bytes, or returns {@code null} if the bytes are
+   * not a valid date.
+   */
+  static LocalDate parseDate(byte[] head) {
+    if (head[2] != '-' || head[5] != '-') {
+      return null;
+    }
+    int day = digits(head, 0, 2);
+    int month = digits(head, 3, 5);
+    int year = digits(head, 6, 10);
+    if (day < 0 || month < 0 || year < 0) {
+      return null;
+    }
+    try {
+      return LocalDate.of(year, month, day);
+    } catch (DateTimeException e) {
+      return null;
+    }
+  }
+
+  private static int digits(byte[] bytes, int from, int to) {
+    int value = 0;
+    for (int i = from; i < to; i++) {
+      int digit = bytes[i] - '0';
+      if (digit < 0 || digit > 9) {
+        return -1;
+      }
+      value = value * 10 + digit;
+    }
+    return value;
+  }
+
+  /**
+   * A run of consecutive lines of one day, as the byte range {@code [start, end)} of the log.
+   */
+  public static final class Segment {
+    private final LocalDate day;
+    private final long start;
+    private long end;
+    private long lines;
+
+    Segment(LocalDate day, long start, long end, long lines) {
+      this.day = day;
+      this.start = start;
+      this.end = end;
+      this.lines = lines;
+    }
+
+    /**
+     * Returns the day of the segment's lines.
+     *
+     * @return the day
+     */
+    public LocalDate getDay() {
+      return day;
+    }
+
+    /**
+     * Returns the offset of the segment's first byte.
+     *
+     * @return the inclusive start offset
+     */
+    public long getStart() {
+      return start;
+    }
+
+    /**
+     * Returns the offset just after the segment's last line feed.
+     *
+     * @return the exclusive end offset
+     */
+    public long getEnd() {
+      return end;
+    }
+
+    /**
+     * Returns the number of dated lines in the segment; continuation lines are not counted.
+     *
+     * @return the number of log entries
+     */
+    public long getLines() {
+      return lines;
+    }
+  }
+}
@@ -0,0 +1,226 @@
+package com.example.cinema.logs;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Copies the lines of a log that start with a given prefix, typically the {@code dd-MM-yyyy}
+ * date every line of {@code cinema.log} begins with.
+ * The source is read through a fixed-size buffer and the prefix is compared on raw bytes, so
+ * no {@code String} is created per line and memory use does not depend on the file size.
+ * Matching lines are copied byte for byte, each terminated by a line feed.
+ * When a {@link LogDayIndex} already knows where a day's lines are, {@link #transfer} copies
+ * those byte ranges directly.
+ */
+public final class LogExtractor {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final byte LF = '\n';
+
+  /**
+   * Copies the matching lines of a file into another file, replacing its content.
+   *
+   * @param source the log to read
+   * @param target the file receiving the matching lines
+   * @param prefix the bytes a line must start with
+   * @return the number of matching lines and bytes
+   * @throws IOException if reading or writing fails
+   */
+  public Result extract(Path source, Path target, byte[] prefix) throws IOException {
+    try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+         FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE,
+                 StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      return extract(in, out, prefix);
+    }
+  }
+
+  /**
+   * Copies the lines read from a channel that start with the prefix to another channel.
+   *
+   * @param in     the channel to read until its end
+   * @param out    the channel receiving the matching lines
+   * @param prefix the bytes a line must start with
+   * @return the number of matching lines and bytes
+   * @throws IOException if reading or writing fails
+   */
+  public Result extract(ReadableByteChannel in, WritableByteChannel out, byte[] prefix)
+          throws IOException {
+    ByteBuffer input = ByteBuffer.allocate(BUFFER_SIZE);
+    ByteBuffer output = ByteBuffer.allocate(BUFFER_SIZE);
+    byte[] bytes = input.array();
+    long lines = 0;
+    long written = 0;
+    // Position inside the current line's prefix, or -1 once the line is known not to match.
+    int matched = 0;
+    boolean copying = false;
+
+    while (in.read(input) >= 0) {
+      int limit = input.position();
+      int i = 0;
+      while (i < limit) {
+        if (copying) {
+          int end = indexOf(bytes, LF, i, limit);
+          int stop = end < 0 ? limit : end + 1;
+          written += put(output, out, bytes, i, stop - i);
+          i = stop;
+          if (end >= 0) {
+            copying = false;
+            matched = 0;
+          }
+        } else if (matched < 0) {
+          int end = indexOf(bytes, LF, i, limit);
+          if (end < 0) {
+            i = limit;
+          } else {
+            i = end + 1;
+            matched = 0;
+          }
+        } else if (matched < prefix.length) {
+          if (bytes[i] == prefix[matched]) {
+            matched++;
+            i++;
+          } else {
+            matched = bytes[i] == LF ? 0 : -1;
+            i++;
+          }
+        } else {
+          // The whole prefix matched: emit it, then copy the rest of the line.
+          written += put(output, out, prefix, 0, prefix.length);
+          lines++;
+          copying = true;
+        }
+      }
+      input.clear();
+    }
+
+    if (matched == prefix.length && !copying) {
+      written += put(output, out, prefix, 0, prefix.length);
+      lines++;
+      copying = true;
+    }
+    if (copying) {
+      written += put(output, out, new byte[] {LF}, 0, 1);
+    }
+    output.flip();
+    while (output.hasRemaining()) {
+      out.write(output);
+    }
+    return new Result(lines, written);
+  }
+
+  /**
+   * Copies byte ranges of a file into another file, replacing its content. The ranges are
+   * handed to {@link FileChannel#transferTo}, so the operating system can copy them without
+   * passing the data through the heap.
+   *
+   * @param source   the log to read
+   * @param target   the file receiving the ranges
+   * @param segments the ranges to copy, in the order they are written
+   * @return the number of log entries and bytes copied
+   * @throws IOException if reading or writing fails
+   */
+  public Result transfer(Path source, Path target, List<LogDayIndex.Segment> segments)
+          throws IOException {
+    return transfer(source, target, segments, ScanProgress.NONE);
+  }
+
+  /**
+   * Copies byte ranges of a file into another file, reporting the copied bytes and lines.
+   *
+   * @param source   the log to read
+   * @param target   the file receiving the ranges
+   * @param segments the ranges to copy, in the order they are written
+   * @param progress receives the size of the ranges and the copying progress
+   * @return the number of log entries and bytes copied
+   * @throws IOException if reading or writing fails
+   */
+  public Result transfer(Path source, Path target, List<LogDayIndex.Segment> segments,
+                         ScanProgress progress) throws IOException {
+    long lines = 0;
+    long written = 0;
+    progress.expect(segments.stream().mapToLong(s -> s.getEnd() - s.getStart()).sum());
+    try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+         FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE,
+                 StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      for (LogDayIndex.Segment segment : segments) {
+        long position = segment.getStart();
+        while (position < segment.getEnd()) {
+          long copied = in.transferTo(position, segment.getEnd() - position, out);
+          if (copied <= 0) {
+            throw new IOException("Лог обрезан во время копирования: " + source);
+          }
+          position += copied;
+          progress.scanned(copied, 0);
+        }
+        progress.scanned(0, segment.getLines());
+        lines += segment.getLines();
+        written += segment.getEnd() - segment.getStart();
+      }
+    }
+    return new Result(lines, written);
+  }
+
+  private static int indexOf(byte[] bytes, byte value, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (bytes[i] == value) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static int put(ByteBuffer output, WritableByteChannel out, byte[] bytes,
+                         int offset, int length) throws IOException {
+    int remaining = length;
+    while (remaining > 0) {
+      if (!output.hasRemaining()) {
+        output.flip();
+        while (output.hasRemaining()) {
+          out.write(output);
+        }
+        output.clear();
+      }
+      int chunk = Math.min(remaining, output.remaining());
+      output.put(bytes, offset + length - remaining, chunk);
+      remaining -= chunk;
+    }
+    return length;
+  }
+
+  /**
+   * Outcome of an extraction.
+   */
+  public static final class Result {
+    private final long lines;
+    private final long bytes;
+
+    Result(long lines, long bytes) {
+      this.lines = lines;
+      this.bytes = bytes;
+    }
+
+    /**
+     * Returns the number of lines copied.
+     *
+     * @return the number of matching lines
+     */
+    public long getLines() {
+      return lines;
+    }
+
+    /**
+     * Returns the number of bytes written, line feeds included.
+     *
+     * @return the size of the extract
+     */
+    public long getBytes() {
+      return bytes;
+    }
+  }
+}
@@ -0,0 +1,209 @@
+package com.example.cinema.logs;
+
+import java.io.InterruptedIOException;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Criteria selecting log entries of a day: levels, a time-of-day window and a text to search
+ * for, with a limit on the number of entries returned. The level and time are read from the
+ * first line of an entry ({@code dd-MM-yyyy HH:mm:ss [LEVEL] - message}) by comparing
+ * characters in place; the text, a literal or a regular expression, is searched in all the
+ * lines of the entries that pass those cheaper checks. Instances are immutable.
+ *
+ * <p>A regular expression comes from the request, so it is limited in length and every match
+ * runs against a view of the entry that counts character reads: a pattern that backtracks
+ * beyond a budget proportional to the entry's length aborts the query instead of holding
+ * the thread.
+ */
+public final class LogQuery {
+
+  private static final int TIME_START = "dd-MM-yyyy ".length();
+  private static final int LEVEL_START = "dd-MM-yyyy HH:mm:ss [".length();
+  private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss");
+  static final int MAX_PATTERN_LENGTH = 200;
+  static final long MIN_MATCH_STEPS = 100_000;
+  static final long MATCH_STEPS_PER_CHAR = 1_000;
+
+  private final String[] levels;
+  private final String from;
+  private final String to;
+  private final String literal;
+  private final Pattern pattern;
+  private final int limit;
+
+  /**
+   * Creates a query.
+   *
+   * @param levels the levels to select, such as {@code ERROR}, or empty for all levels
+   * @param from   the inclusive start of the time window, or {@code null}
+   * @param to     the exclusive end of the time window, or {@code null}
+   * @param text   the text an entry must contain, or {@code null}
+   * @param regex  whether the text is a regular expression rather than a literal
+   * @param limit  the maximum number of entries returned
+   * @throws IllegalArgumentException if the window is empty, the limit is not positive or the
+   *                                  regular expression is invalid or longer than
+   *                                  {@value #MAX_PATTERN_LENGTH} characters
+   */
+  public LogQuery(Collection<String> levels, LocalTime from, LocalTime to, String text,
+                  boolean regex, int limit) {
+    if (limit <= 0) {
+      throw new IllegalArgumentException("Limit must be positive: " + limit);
+    }
+    if (from != null && to != null && !from.isBefore(to)) {
+      throw new IllegalArgumentException("Empty time window: " + from + " - " + to);
+    }
+    this.levels = levels.stream()
+            .map(level -> level.trim().toUpperCase(Locale.ROOT))
+            .filter(level -> !level.isEmpty())
+            .distinct()
+            .toArray(String[]::new);
+    this.from = from == null ? null : from.format(TIME);
+    this.to = to == null ? null : to.format(TIME);
+    boolean hasText = text != null && !text.isEmpty();
+    if (hasText && regex && text.length() > MAX_PATTERN_LENGTH) {
+      throw new IllegalArgumentException(
+              "Pattern longer than " + MAX_PATTERN_LENGTH + " characters");
+    }
+    this.pattern = hasText && regex ? Pattern.compile(text) : null;
+    this.literal = hasText && !regex ? text : null;
+    this.limit = limit;
+  }
+
+  /**
+   * Returns the maximum number of entries returned.
+   *
+   * @return the limit
+   */
+  public int getLimit() {
+    return limit;
+  }
+
+  /**
+   * Tells whether an entry starting with the line is at or after the end of the window. Lines
+   * are written in time order, so no later entry of the day can match either.
+   *
+   * @param line the first line of an entry
+   * @return {@code true} if the entry is past the window
+   */
+  boolean isPastWindow(String line) {
+    return to != null && compareTime(line, to) >= 0;
+  }
+
+  /**
+   * Checks the time and level of an entry starting with the line.
+   *
+   * @param line the first line of an entry
+   * @return {@code true} if the entry can match the query
+   */
+  boolean acceptsHead(String line) {
+    if (from != null && compareTime(line, from) < 0) {
+      return false;
+    }
+    if (levels.length == 0) {
+      return true;
+    }
+    for (String level : levels) {
+      int end = LEVEL_START + level.length();
+      if (line.length() > end && line.charAt(end) == ']'
+              && line.startsWith(level, LEVEL_START)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Searches the text in an entry whose head was accepted.
+   *
+   * @param entry the lines of the entry separated by line feeds
+   * @return {@code true} if the entry matches the query
+   * @throws InterruptedIOException if the regular expression exceeded its match budget
+   */
+  boolean acceptsEntry(StringBuilder entry) throws InterruptedIOException {
+    if (literal != null) {
+      return entry.indexOf(literal) >= 0;
+    }
+    if (pattern == null) {
+      return true;
+    }
+    long budget = MIN_MATCH_STEPS + MATCH_STEPS_PER_CHAR * entry.length();
+    try {
+      return pattern.matcher(new BudgetedSequence(entry, budget)).find();
+    } catch (BudgetExceededException e) {
+      throw new InterruptedIOException(
+              "Pattern exceeded " + budget + " steps on one entry: " + pattern);
+    }
+  }
+
+  /**
+   * Compares the {@code HH:mm:ss} part of a line with a time of the same format.
+   */
+  private static int compareTime(String line, String time) {
+    for (int i = 0; i < time.length(); i++) {
+      int position = TIME_START + i;
+      if (position >= line.length()) {
+        return -1;
+      }
+      int diff = line.charAt(position) - time.charAt(i);
+      if (diff != 0) {
+        return diff;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Read-only view of an entry that fails once more characters were read than the budget
+   * allows. The regex engine reads through {@link #charAt(int)}, so this bounds backtracking.
+   */
+  private static final class BudgetedSequence implements CharSequence {
+    private final CharSequence text;
+    private final long[] steps;
+
+    BudgetedSequence(CharSequence text, long budget) {
+      this(text, new long[] {budget});
+    }
+
+    private BudgetedSequence(CharSequence text, long[] steps) {
+      this.text = text;
+      this.steps = steps;
+    }
+
+    @Override
+    public char charAt(int index) {
+      if (--steps[0] < 0) {
+        throw new BudgetExceededException();
+      }
+      return text.charAt(index);
+    }
+
+    @Override
+    public int length() {
+      return text.length();
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+      // Shares the budget, so slicing does not reset it
+      return new BudgetedSequence(text.subSequence(start, end), steps);
+    }
+
+    @Override
+    public String toString() {
+      return text.toString();
+    }
+  }
+
+  /**
+   * Thrown by {@link BudgetedSequence} out of the regex engine; carries no stack trace.
+   */
+  private static final class BudgetExceededException extends RuntimeException {
+    BudgetExceededException() {
+      super(null, null, false, false);
+    }
+  }
+}
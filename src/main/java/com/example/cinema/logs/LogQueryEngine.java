@@ -0,0 +1,235 @@
+package com.example.cinema.logs;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Runs a {@link LogQuery} over the entries of a day and writes the matching ones as they are
+ * found. The day's archives are read first, oldest first, then the byte ranges the
+ * {@link LogDayIndex} holds for the day in the current log, so entries come out in time order
+ * without a merge and without copying the day to a file. Reading stops as soon as the limit is
+ * reached or an entry is past the end of the time window.
+ *
+ * <p>Lines are decoded as UTF-8 so that patterns can contain non-Latin text.
+ */
+public final class LogQueryEngine {
+
+  private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final LogArchiveSearch archives;
+
+  /**
+   * Creates an engine that finds the archives of a day with the given search.
+   *
+   * @param archives the search listing the rotated archives
+   */
+  public LogQueryEngine(LogArchiveSearch archives) {
+    this.archives = archives;
+  }
+
+  /**
+   * Writes the entries of a day matching the query, each line terminated by a line feed.
+   *
+   * @param index the day index of the current log
+   * @param day   the requested day
+   * @param query the criteria and limit
+   * @param out   the writer receiving the entries; it is flushed but not closed
+   * @return the number of entries written and whether the limit stopped the search
+   * @throws IOException if a log or archive cannot be read or the writer fails
+   */
+  public Result run(LogDayIndex index, LocalDate day, LogQuery query, Writer out)
+          throws IOException {
+    Collector collector = new Collector(query, day.format(DATE), out);
+    Path logFile = index.getLogFile();
+    for (Path archive : archives.archivesFor(logFile, day)) {
+      InputStream in = Files.newInputStream(archive);
+      if (archive.toString().endsWith(".gz")) {
+        try {
+          in = new GZIPInputStream(in, BUFFER_SIZE);
+        } catch (IOException e) {
+          in.close();
+          throw e;
+        }
+      }
+      if (!collector.read(in)) {
+        return collector.finish();
+      }
+    }
+    List<LogDayIndex.Segment> segments = index.find(day);
+    if (!segments.isEmpty()) {
+      try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+        collector.read(new SegmentInputStream(channel, segments));
+      }
+    }
+    return collector.finish();
+  }
+
+  /**
+   * Outcome of a query.
+   */
+  public static final class Result {
+    private final long entries;
+    private final boolean limitReached;
+
+    Result(long entries, boolean limitReached) {
+      this.entries = entries;
+      this.limitReached = limitReached;
+    }
+
+    /**
+     * Returns the number of entries written.
+     *
+     * @return the number of entries
+     */
+    public long getEntries() {
+      return entries;
+    }
+
+    /**
+     * Tells whether the search stopped at the limit; more entries may match.
+     *
+     * @return {@code true} if the limit was reached
+     */
+    public boolean isLimitReached() {
+      return limitReached;
+    }
+  }
+
+  /**
+   * Groups lines into entries of the day, filters them and writes the matching ones.
+   */
+  private static final class Collector {
+    private final LogQuery query;
+    private final String prefix;
+    private final Writer out;
+    private final StringBuilder entry = new StringBuilder();
+    private boolean collecting;
+    private boolean done;
+    private long written;
+
+    Collector(LogQuery query, String prefix, Writer out) {
+      this.query = query;
+      this.prefix = prefix;
+      this.out = out;
+    }
+
+    /**
+     * Reads a source to its end or until the search is done, then closes it.
+     *
+     * @return {@code false} once no further source needs to be read
+     */
+    boolean read(InputStream in) throws IOException {
+      try (BufferedReader reader = new BufferedReader(
+              new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+        String line;
+        while (!done && (line = reader.readLine()) != null) {
+          if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Поиск по логам прерван");
+          }
+          if (LogArchiveSearch.startsWithDate(line)) {
+            flush();
+            if (!done) {
+              start(line);
+            }
+          } else if (collecting) {
+            entry.append('\n').append(line);
+          }
+        }
+        flush();
+      }
+      return !done;
+    }
+
+    Result finish() throws IOException {
+      flush();
+      out.flush();
+      return new Result(written, written >= query.getLimit());
+    }
+
+    private void start(String line) {
+      if (!line.startsWith(prefix)) {
+        return;
+      }
+      if (query.isPastWindow(line)) {
+        done = true;
+      } else if (query.acceptsHead(line)) {
+        entry.append(line);
+        collecting = true;
+      }
+    }
+
+    private void flush() throws IOException {
+      if (!collecting) {
+        return;
+      }
+      collecting = false;
+      if (query.acceptsEntry(entry)) {
+        out.append(entry).append('\n');
+        written++;
+        done = written >= query.getLimit();
+      }
+      entry.setLength(0);
+    }
+  }
+
+  /**
+   * Reads byte ranges of a file one after the other as a single stream.
+   */
+  private static final class SegmentInputStream extends InputStream {
+    private final FileChannel channel;
+    private final List<LogDayIndex.Segment> segments;
+    private int current;
+    private long position;
+
+    SegmentInputStream(FileChannel channel, List<LogDayIndex.Segment> segments) {
+      this.channel = channel;
+      this.segments = segments;
+      this.position = segments.get(0).getStart();
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] one = new byte[1];
+      return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      while (current < segments.size() && position >= segments.get(current).getEnd()) {
+        current++;
+        if (current < segments.size()) {
+          position = segments.get(current).getStart();
+        }
+      }
+      if (current >= segments.size()) {
+        return -1;
+      }
+      if (length == 0) {
+        return 0;
+      }
+      long remaining = segments.get(current).getEnd() - position;
+      ByteBuffer target = ByteBuffer.wrap(buffer, offset, (int) Math.min(length, remaining));
+      int read = channel.read(target, position);
+      if (read < 0) {
+        throw new IOException("Лог обрезан во время поиска");
+      }
+      position += read;
+      return read;
+    }
+  }
+}
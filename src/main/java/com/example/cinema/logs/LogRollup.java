@@ -0,0 +1,34 @@
+package com.example.cinema.logs;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+import lombok.Getter;
+
+/**
+ * Counts of the log entries written in a period starting at {@link #getStart()}: by level, by
+ * controller method called, as recorded by the logging aspect, and by type of the exceptions
+ * whose stack traces were logged.
+ */
+@Getter
+public class LogRollup {
+  private final LocalDateTime start;
+  private final Map<String, Long> levels = new TreeMap<>();
+  private final Map<String, Long> endpoints = new TreeMap<>();
+  private final Map<String, Long> exceptions = new TreeMap<>();
+
+  public LogRollup(LocalDateTime start) {
+    this.start = start;
+  }
+
+  /**
+   * Adds the counts of another period to this one.
+   *
+   * @param other the counts to add
+   */
+  void add(LogRollup other) {
+    other.levels.forEach((key, count) -> levels.merge(key, count, Long::sum));
+    other.endpoints.forEach((key, count) -> endpoints.merge(key, count, Long::sum));
+    other.exceptions.forEach((key, count) -> exceptions.merge(key, count, Long::sum));
+  }
+}
@@ -0,0 +1,486 @@
+package com.example.cinema.logs;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Per-minute counts of a log's entries, maintained by tailing the log. Each update reads only
+ * the lines appended since the previous one, up to the last complete line, and counts every
+ * entry by level, every call the logging aspect recorded ({@code Выполнение метода: ...}) by
+ * method signature, and every logged stack trace by exception type, taken from the first
+ * line after a {@code WARN} or {@code ERROR} entry.
+ *
+ * <p>Counts are persisted to one file per day in a directory, as a dictionary of keys followed
+ * by one line per minute with non-zero counts, so past days are answered from these files
+ * without reading the log again. Only the days changed by the last update are kept in memory.
+ * The read position is persisted next to them together with a checksum of the beginning of the
+ * log; if the log was rotated or truncated, tailing restarts from its beginning. Lines written
+ * between the last update and a rotation are not counted, and a crash between writing the day
+ * files and the position can count the lines of one update twice. Instances are thread-safe.
+ */
+@Slf4j
+public final class LogRollups {
+
+  private static final String HEADER = "# log rollups v1";
+  private static final String STATE_HEADER = "# log rollups state v1";
+  private static final String STATE = "state";
+  private static final String SUFFIX = ".rollup";
+  private static final char LEVEL = 'L';
+  private static final char ENDPOINT = 'E';
+  private static final char EXCEPTION = 'X';
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final int HEAD_SIZE = 256;
+  // Для подсчёта достаточно начала строки: уровень, метка вызова и сигнатура метода
+  private static final int MAX_LINE = 512;
+  private static final int MINUTE_LENGTH = "dd-MM-yyyy HH:mm".length();
+  private static final int LEVEL_START = "dd-MM-yyyy HH:mm:ss [".length();
+  private static final byte[] CALL = "Выполнение метода: ".getBytes(StandardCharsets.UTF_8);
+  private static final String[] LEVELS = {"TRACE", "DEBUG", "INFO", "WARN", "ERROR"};
+  private static final byte[][] LEVEL_BYTES = new byte[LEVELS.length][];
+  private static final Pattern EXCEPTION_TYPE =
+          Pattern.compile("[A-Za-z_$][\\w$]*(\\.[A-Za-z_$][\\w$]*)+");
+
+  static {
+    for (int i = 0; i < LEVELS.length; i++) {
+      LEVEL_BYTES[i] = LEVELS[i].getBytes(StandardCharsets.US_ASCII);
+    }
+  }
+
+  private final Path logFile;
+  private final Path directory;
+  private final NavigableMap<LocalDate, NavigableMap<Integer, LogRollup>> days = new TreeMap<>();
+  private final List<LocalDate> dirty = new ArrayList<>();
+  private long position;
+  private int headLength;
+  private long headChecksum;
+  private boolean loaded;
+
+  // Состояние разбора между строками
+  private final byte[] line = new byte[MAX_LINE];
+  private final byte[] lastMinute = new byte[MINUTE_LENGTH];
+  private LogRollup current;
+  private boolean expectException;
+
+  /**
+   * Creates rollups of a log persisted to a directory.
+   *
+   * @param logFile   the log to tail
+   * @param directory the directory holding the day files and the read position
+   */
+  public LogRollups(Path logFile, Path directory) {
+    this.logFile = logFile;
+    this.directory = directory;
+  }
+
+  /**
+   * Counts the lines appended to the log since the last update and persists the changed days.
+   *
+   * @throws IOException if the log cannot be read or the rollups written
+   */
+  public synchronized void update() throws IOException {
+    if (!loaded) {
+      loadState();
+      loaded = true;
+    }
+    if (!Files.exists(logFile)) {
+      return;
+    }
+    try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < position || (headLength > 0 && checksum(channel, headLength) != headChecksum)) {
+        log.debug("Лог изменился, подсчёт продолжается с начала: {}", logFile);
+        position = 0;
+        headLength = 0;
+      }
+      if (size > position) {
+        scan(channel, size);
+        if (headLength < HEAD_SIZE) {
+          headLength = (int) Math.min(HEAD_SIZE, position);
+          headChecksum = checksum(channel, headLength);
+        }
+      }
+    }
+    Files.createDirectories(directory);
+    for (LocalDate day : dirty) {
+      save(day);
+    }
+    saveState();
+    // В памяти остаётся только последний день: в него дописываются новые строки
+    LocalDate latest = days.isEmpty() ? null : days.lastKey();
+    days.keySet().removeIf(day -> !day.equals(latest));
+    dirty.clear();
+    forgetRemovedMinute();
+  }
+
+  /**
+   * Deletes the rollups of the days before the given one.
+   *
+   * @param oldest the first day to keep
+   * @throws IOException if the directory cannot be listed
+   */
+  public synchronized void expire(LocalDate oldest) throws IOException {
+    days.headMap(oldest, false).clear();
+    forgetRemovedMinute();
+    if (!Files.isDirectory(directory)) {
+      return;
+    }
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+      for (Path file : files) {
+        LocalDate day = dayOf(file);
+        if (day != null && day.isBefore(oldest)) {
+          Files.deleteIfExists(file);
+        }
+      }
+    }
+  }
+
+  /**
+   * Sums the counts of the minutes in {@code [from, to)} into periods of the given length,
+   * starting at {@code from}. Periods without entries are omitted.
+   *
+   * @param from       the inclusive start
+   * @param to         the exclusive end
+   * @param resolution the length of a period in minutes
+   * @return the periods in time order
+   */
+  public synchronized List<LogRollup> query(LocalDateTime from, LocalDateTime to,
+                                            int resolution) {
+    Map<LocalDateTime, LogRollup> periods = new LinkedHashMap<>();
+    for (LocalDate day = from.toLocalDate(); !day.isAfter(to.toLocalDate());
+         day = day.plusDays(1)) {
+      NavigableMap<Integer, LogRollup> minutes = days.containsKey(day) ? days.get(day)
+              : load(day);
+      for (LogRollup minute : minutes.values()) {
+        LocalDateTime start = minute.getStart();
+        if (start.isBefore(from) || !start.isBefore(to)) {
+          continue;
+        }
+        long offset = ChronoUnit.MINUTES.between(from, start) / resolution * resolution;
+        periods.computeIfAbsent(from.plusMinutes(offset), LogRollup::new).add(minute);
+      }
+    }
+    return new ArrayList<>(periods.values());
+  }
+
+  /**
+   * Drops the minute of the last line if its day is no longer in memory, so that later lines
+   * load the day again instead of counting into a detached minute.
+   */
+  private void forgetRemovedMinute() {
+    if (current != null && !days.containsKey(current.getStart().toLocalDate())) {
+      current = null;
+      expectException = false;
+    }
+  }
+
+  /**
+   * Reads the log from the current position, handing complete lines to {@link #count}.
+   * Bytes after the last line feed are left for the next update.
+   */
+  private void scan(FileChannel channel, long size) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    byte[] bytes = buffer.array();
+    int length = 0;
+    long lineStart = position;
+    long offset = position;
+    while (offset < size) {
+      buffer.clear();
+      int read = channel.read(buffer, offset);
+      if (read < 0) {
+        break;
+      }
+      int i = 0;
+      while (i < read) {
+        int end = indexOf(bytes, (byte) '\n', i, read);
+        int stop = end < 0 ? read : end;
+        int copy = Math.min(stop - i, MAX_LINE - length);
+        System.arraycopy(bytes, i, line, length, copy);
+        length += copy;
+        if (end < 0) {
+          break;
+        }
+        count(length > 0 && line[length - 1] == '\r' ? length - 1 : length);
+        length = 0;
+        lineStart = offset + end + 1;
+        i = end + 1;
+      }
+      offset += read;
+    }
+    position = lineStart;
+  }
+
+  private void count(int length) {
+    if (length >= MINUTE_LENGTH && startsWithDate()) {
+      expectException = false;
+      LogRollup minute = minute();
+      if (minute == null) {
+        return;
+      }
+      current = minute;
+      String level = level(length);
+      if (level == null) {
+        return;
+      }
+      minute.getLevels().merge(level, 1L, Long::sum);
+      int message = LEVEL_START + level.length() + "] - ".length();
+      if ("INFO".equals(level) && startsWith(line, length, message, CALL)) {
+        int from = message + CALL.length;
+        String signature = new String(line, from, length - from, StandardCharsets.UTF_8).trim();
+        minute.getEndpoints().merge(signature, 1L, Long::sum);
+      }
+      expectException = "ERROR".equals(level) || "WARN".equals(level);
+    } else if (expectException) {
+      // Первая строка после ошибки — тип исключения и сообщение, если выведен стек вызовов
+      expectException = false;
+      String text = new String(line, 0, length, StandardCharsets.UTF_8);
+      int colon = text.indexOf(':');
+      String type = (colon < 0 ? text : text.substring(0, colon)).trim();
+      if (current != null && EXCEPTION_TYPE.matcher(type).matches()) {
+        current.getExceptions().merge(type, 1L, Long::sum);
+      }
+    }
+  }
+
+  /**
+   * Returns the counts of the minute the current line starts with, reusing those of the
+   * previous line when the minute is the same.
+   */
+  private LogRollup minute() {
+    if (current != null && startsWith(line, MINUTE_LENGTH, 0, lastMinute)) {
+      return current;
+    }
+    LocalDate day = LogDayIndex.parseDate(line);
+    int hour = twoDigits(11);
+    int minute = twoDigits(14);
+    if (day == null || line[13] != ':' || hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+      return null;
+    }
+    System.arraycopy(line, 0, lastMinute, 0, MINUTE_LENGTH);
+    NavigableMap<Integer, LogRollup> minutes = days.get(day);
+    if (minutes == null) {
+      minutes = load(day);
+      days.put(day, minutes);
+    }
+    if (!dirty.contains(day)) {
+      dirty.add(day);
+    }
+    return minutes.computeIfAbsent(hour * 60 + minute,
+            m -> new LogRollup(day.atTime(hour, minute)));
+  }
+
+  private String level(int length) {
+    if (length <= LEVEL_START || line[LEVEL_START - 1] != '[') {
+      return null;
+    }
+    for (int i = 0; i < LEVELS.length; i++) {
+      int end = LEVEL_START + LEVEL_BYTES[i].length;
+      if (end < length && line[end] == ']' && startsWith(line, length, LEVEL_START,
+              LEVEL_BYTES[i])) {
+        return LEVELS[i];
+      }
+    }
+    return null;
+  }
+
+  private boolean startsWithDate() {
+    for (int i = 0; i < 10; i++) {
+      boolean separator = i == 2 || i == 5;
+      if (separator ? line[i] != '-' : line[i] < '0' || line[i] > '9') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int twoDigits(int from) {
+    int high = line[from] - '0';
+    int low = line[from + 1] - '0';
+    if (high < 0 || high > 9 || low < 0 || low > 9) {
+      return -1;
+    }
+    return high * 10 + low;
+  }
+
+  private static boolean startsWith(byte[] bytes, int length, int from, byte[] prefix) {
+    if (from + prefix.length > length) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length; i++) {
+      if (bytes[from + i] != prefix[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int indexOf(byte[] bytes, byte value, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (bytes[i] == value) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Reads the rollups of a day from its file, or returns an empty map if there is none.
+   */
+  private NavigableMap<Integer, LogRollup> load(LocalDate day) {
+    NavigableMap<Integer, LogRollup> minutes = new TreeMap<>();
+    Path file = directory.resolve(day + SUFFIX);
+    try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      if (!HEADER.equals(reader.readLine())) {
+        throw new IllegalArgumentException("unknown format");
+      }
+      List<String[]> keys = new ArrayList<>();
+      String text;
+      while ((text = reader.readLine()) != null) {
+        String[] parts = text.split("\t", 3);
+        if (parts[0].equals("K")) {
+          keys.add(parts);
+          continue;
+        }
+        int minute = Integer.parseInt(parts[1]);
+        LogRollup rollup = new LogRollup(day.atTime(minute / 60, minute % 60));
+        for (String count : parts[2].split(" ")) {
+          int colon = count.indexOf(':');
+          String[] key = keys.get(Integer.parseInt(count.substring(0, colon)));
+          counts(rollup, key[1].charAt(0)).put(key[2], Long.parseLong(count.substring(colon + 1)));
+        }
+        minutes.put(minute, rollup);
+      }
+    } catch (NoSuchFileException e) {
+      return minutes;
+    } catch (IOException | RuntimeException e) {
+      log.warn("Не удалось прочитать сводку логов {}: {}", file, e.getMessage());
+      minutes.clear();
+    }
+    return minutes;
+  }
+
+  private void save(LocalDate day) throws IOException {
+    Map<String, Integer> ids = new HashMap<>();
+    List<String> lines = new ArrayList<>();
+    lines.add(HEADER);
+    List<String> counts = new ArrayList<>();
+    for (Map.Entry<Integer, LogRollup> entry : days.get(day).entrySet()) {
+      StringBuilder text = new StringBuilder("M\t").append(entry.getKey()).append('\t');
+      int start = text.length();
+      for (char dimension : new char[] {LEVEL, ENDPOINT, EXCEPTION}) {
+        for (Map.Entry<String, Long> count : counts(entry.getValue(), dimension).entrySet()) {
+          Integer id = ids.computeIfAbsent(dimension + "\t" + count.getKey(), key -> {
+            lines.add("K\t" + key);
+            return ids.size();
+          });
+          text.append(text.length() > start ? " " : "").append(id).append(':')
+                  .append(count.getValue());
+        }
+      }
+      counts.add(text.toString());
+    }
+    lines.addAll(counts);
+    write(directory.resolve(day + SUFFIX), lines);
+  }
+
+  private void loadState() {
+    try {
+      List<String> lines = Files.readAllLines(directory.resolve(STATE), StandardCharsets.UTF_8);
+      if (lines.size() < 3 || !STATE_HEADER.equals(lines.get(0))) {
+        throw new IllegalArgumentException("unknown format");
+      }
+      String[] head = lines.get(2).split(" ");
+      position = Long.parseLong(lines.get(1));
+      headLength = Integer.parseInt(head[0]);
+      headChecksum = Long.parseLong(head[1]);
+    } catch (NoSuchFileException e) {
+      // Подсчёт ещё не выполнялся
+    } catch (IOException | RuntimeException e) {
+      log.warn("Позиция сводки логов повреждена, подсчёт начнётся с начала лога: {}",
+              e.getMessage());
+      position = 0;
+      headLength = 0;
+    }
+  }
+
+  private void saveState() throws IOException {
+    write(directory.resolve(STATE),
+            List.of(STATE_HEADER, Long.toString(position), headLength + " " + headChecksum));
+  }
+
+  /**
+   * Writes a file through a temporary file moved over it, so readers never see half of it.
+   */
+  private static void write(Path file, List<String> lines) throws IOException {
+    Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+    try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+      for (String text : lines) {
+        writer.write(text);
+        writer.newLine();
+      }
+    }
+    try {
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+              StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  private static Map<String, Long> counts(LogRollup rollup, char dimension) {
+    switch (dimension) {
+      case LEVEL:
+        return rollup.getLevels();
+      case ENDPOINT:
+        return rollup.getEndpoints();
+      default:
+        return rollup.getExceptions();
+    }
+  }
+
+  private static LocalDate dayOf(Path file) {
+    String name = file.getFileName().toString();
+    try {
+      return LocalDate.parse(name.substring(0, name.length() - SUFFIX.length()));
+    } catch (DateTimeParseException | StringIndexOutOfBoundsException e) {
+      return null;
+    }
+  }
+
+  private static long checksum(FileChannel channel, int length) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, buffer.position()) < 0) {
+        break;
+      }
+    }
+    buffer.flip();
+    CRC32 crc = new CRC32();
+    crc.update(buffer);
+    return crc.getValue();
+  }
+}
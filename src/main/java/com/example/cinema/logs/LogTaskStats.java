@@ -0,0 +1,32 @@
+package com.example.cinema.logs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Snapshot of the log task registry: live tasks by state, the disk used by their extracts and
+ * the number of tasks removed since start.
+ */
+@Getter
+@AllArgsConstructor
+public class LogTaskStats {
+  private final int liveTasks;
+  private final int inProgress;
+  private final int completed;
+  private final int failed;
+  private final int maxTasks;
+  private final long diskUsageBytes;
+  private final long diskQuotaBytes;
+  /**
+   * Finished tasks removed to make room for new tasks or to stay under the disk quota.
+   */
+  private final long evictionCount;
+  /**
+   * Finished tasks removed after their time to live.
+   */
+  private final long expirationCount;
+  /**
+   * Requests answered with an existing task for the same date, running or completed.
+   */
+  private final long reuseCount;
+}
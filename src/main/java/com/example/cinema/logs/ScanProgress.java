@@ -0,0 +1,37 @@
+package com.example.cinema.logs;
+
+/**
+ * Receives the progress of a log extraction. The amount of work is announced in bytes before
+ * it is done, and may grow as the extraction discovers more to read; implementations must
+ * accept calls from several threads at once.
+ */
+public interface ScanProgress {
+
+  /**
+   * Progress that is not tracked.
+   */
+  ScanProgress NONE = new ScanProgress() {
+    @Override
+    public void expect(long bytes) {
+    }
+
+    @Override
+    public void scanned(long bytes, long lines) {
+    }
+  };
+
+  /**
+   * Adds bytes that will be read or copied to the expected total.
+   *
+   * @param bytes the number of bytes
+   */
+  void expect(long bytes);
+
+  /**
+   * Reports bytes read or copied and log entries of the requested day found in them.
+   *
+   * @param bytes the number of bytes processed
+   * @param lines the number of matching lines among them
+   */
+  void scanned(long bytes, long lines);
+}
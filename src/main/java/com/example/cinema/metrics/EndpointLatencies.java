@@ -0,0 +1,85 @@
+package com.example.cinema.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Latency distributions of the controller endpoints over a rolling window, recorded by the
+ * controller aspect and keyed by method signature.
+ *
+ * <p>Every call is also recorded in a Micrometer {@link Timer} named {@value #TIMER} and
+ * tagged with the endpoint, which publishes the same percentiles and a percentile histogram,
+ * so monitoring systems can scrape the latencies and aggregate them across instances.
+ */
+@Component
+public class EndpointLatencies {
+
+  /**
+   * Name of the Micrometer timer of the endpoint latencies.
+   */
+  public static final String TIMER = "cinema.endpoint.latency";
+
+  private final Map<String, RollingLatency> endpoints = new ConcurrentHashMap<>();
+  private final Duration window;
+  private final int slices;
+  private final MeterRegistry registry;
+
+  /**
+   * Creates the registry.
+   *
+   * @param window   the period the percentiles cover ({@code metrics.latency.window})
+   * @param slices   the number of steps in which old samples leave the window
+   *                 ({@code metrics.latency.slices})
+   * @param registry the registry the endpoint timers are published to
+   */
+  public EndpointLatencies(@Value("${metrics.latency.window:1m}") Duration window,
+                           @Value("${metrics.latency.slices:6}") int slices,
+                           MeterRegistry registry) {
+    this.window = window;
+    this.slices = slices;
+    this.registry = registry;
+  }
+
+  /**
+   * Returns the recorder of an endpoint's call durations, creating its distribution on first
+   * use. Callers keep the recorder so that recording does not look the endpoint up.
+   *
+   * @param endpoint the endpoint's method signature
+   * @return a consumer of durations in nanoseconds
+   */
+  public LongConsumer recorder(String endpoint) {
+    RollingLatency latency = endpoints.computeIfAbsent(endpoint,
+            name -> new RollingLatency(window, slices, System::nanoTime));
+    Timer timer = Timer.builder(TIMER)
+            .description("Latency of the controller endpoints")
+            .tag("endpoint", endpoint)
+            .publishPercentiles(0.5, 0.9, 0.99, 0.999)
+            .publishPercentileHistogram()
+            .distributionStatisticExpiry(window)
+            .distributionStatisticBufferLength(slices)
+            .register(registry);
+    return nanos -> {
+      latency.record(nanos);
+      timer.record(nanos, TimeUnit.NANOSECONDS);
+    };
+  }
+
+  /**
+   * Computes the percentiles of every endpoint called since start.
+   *
+   * @return the snapshots keyed by method signature, in name order
+   */
+  public Map<String, LatencySnapshot> snapshot() {
+    Map<String, LatencySnapshot> snapshots = new TreeMap<>();
+    endpoints.forEach((name, latency) -> snapshots.put(name, latency.snapshot()));
+    return snapshots;
+  }
+}
@@ -0,0 +1,15 @@
+package com.example.cinema.metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * An entity among the most accessed ones, with its estimated recent number of accesses.
+ * The estimate never undercounts and is aged together with the other counts.
+ */
+@Getter
+@AllArgsConstructor
+public class HeavyHitter {
+  private final long id;
+  private final long count;
+}
@@ -0,0 +1,158 @@
+package com.example.cinema.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Tracks the most accessed keys among any number of distinct ones in a fixed amount of memory.
+ * Every access is counted in a Count-Min sketch of four rows of atomic counters, which never
+ * undercounts and needs no lock. A key whose estimate exceeds the smallest one in a bounded set
+ * of candidates enters the set, replacing that smallest candidate as in Space-Saving. The set
+ * is updated under a lock taken with {@code tryLock}, so a busy lock skips the update instead
+ * of blocking; the access is still in the sketch and the key catches up on its next access.
+ *
+ * <p>{@link #decay()} halves every count, so keys that stop being accessed fall behind ones
+ * that are hot now. Halving races with concurrent increments, which may lose a few accesses.
+ */
+final class HeavyHitters {
+
+  private static final long[] SEEDS = {
+    0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+  };
+
+  private final AtomicLongArray sketch;
+  private final int width;
+  private final int capacity;
+  private final ReentrantLock lock = new ReentrantLock();
+  // Кандидаты и их оценки на момент последнего обновления
+  private final Map<Long, Long> candidates = new HashMap<>();
+  private volatile long threshold;
+  private long minKey;
+
+  /**
+   * Creates a tracker.
+   *
+   * @param capacity the number of candidates kept, the largest top list that can be asked for
+   * @param width    the number of counters per sketch row, rounded up to a power of two; wider
+   *                 rows overestimate less
+   */
+  HeavyHitters(int capacity, int width) {
+    this.capacity = Math.max(1, capacity);
+    this.width = width <= 2 ? 2 : Integer.highestOneBit(width - 1) << 1;
+    this.sketch = new AtomicLongArray(SEEDS.length * this.width);
+  }
+
+  /**
+   * Counts an access to a key.
+   *
+   * @param key the key
+   */
+  void record(long key) {
+    long estimate = Long.MAX_VALUE;
+    for (int row = 0; row < SEEDS.length; row++) {
+      estimate = Math.min(estimate, sketch.incrementAndGet(index(key, row)));
+    }
+    if (estimate > threshold && lock.tryLock()) {
+      try {
+        offer(key, estimate);
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Returns the estimated recent number of accesses to a key.
+   *
+   * @param key the key
+   * @return the estimate
+   */
+  long estimate(long key) {
+    long estimate = Long.MAX_VALUE;
+    for (int row = 0; row < SEEDS.length; row++) {
+      estimate = Math.min(estimate, sketch.get(index(key, row)));
+    }
+    return estimate;
+  }
+
+  /**
+   * Returns the most accessed keys, re-estimated from the sketch.
+   *
+   * @param limit the largest number of keys to return
+   * @return the keys in descending order of their estimates
+   */
+  List<HeavyHitter> top(int limit) {
+    List<HeavyHitter> top = new ArrayList<>();
+    lock.lock();
+    try {
+      for (Long key : candidates.keySet()) {
+        long estimate = estimate(key);
+        if (estimate > 0) {
+          top.add(new HeavyHitter(key, estimate));
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+    top.sort(Comparator.comparingLong(HeavyHitter::getCount).reversed()
+            .thenComparingLong(HeavyHitter::getId));
+    return top.subList(0, Math.min(Math.max(0, limit), top.size()));
+  }
+
+  /**
+   * Halves every count and drops the candidates whose estimate reaches zero.
+   */
+  void decay() {
+    lock.lock();
+    try {
+      for (int i = 0; i < sketch.length(); i++) {
+        sketch.set(i, sketch.get(i) >>> 1);
+      }
+      candidates.replaceAll((key, estimate) -> estimate >>> 1);
+      candidates.values().removeIf(estimate -> estimate == 0);
+      updateThreshold();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void offer(long key, long estimate) {
+    if (candidates.containsKey(key) || candidates.size() < capacity) {
+      candidates.put(key, estimate);
+      if (key == minKey || candidates.size() == capacity) {
+        updateThreshold();
+      }
+      return;
+    }
+    // Оценка превысила наименьшую: кандидат с наименьшей оценкой уступает место
+    candidates.remove(minKey);
+    candidates.put(key, estimate);
+    updateThreshold();
+  }
+
+  private void updateThreshold() {
+    if (candidates.size() < capacity) {
+      threshold = 0;
+      return;
+    }
+    long min = Long.MAX_VALUE;
+    for (Map.Entry<Long, Long> candidate : candidates.entrySet()) {
+      if (candidate.getValue() < min) {
+        min = candidate.getValue();
+        minKey = candidate.getKey();
+      }
+    }
+    threshold = min;
+  }
+
+  private int index(long key, int row) {
+    long hash = (key + SEEDS[row]) * SEEDS[row];
+    hash ^= hash >>> 29;
+    return row * width + ((int) (hash >>> 32) & (width - 1));
+  }
+}
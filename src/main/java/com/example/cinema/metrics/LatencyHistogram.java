@@ -0,0 +1,84 @@
+package com.example.cinema.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of durations in nanoseconds with log-linear buckets, in the manner of
+ * HdrHistogram: every power of two is split into 32 equal sub-buckets, so a recorded value is
+ * reported with a relative error below 1/32 (about 3%) whatever its magnitude, in a fixed
+ * array of counters. Values from 0 up to 2^40 ns (about 18 minutes) are tracked; longer ones
+ * are counted as the maximum. Recording is lock-free and may race with {@link #reset}, which
+ * only costs the samples recorded during the reset.
+ */
+final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int MAX_EXPONENT = 40;
+  static final long MAX_VALUE = (1L << MAX_EXPONENT) - 1;
+  private static final int SIZE = index(MAX_VALUE) + 1;
+
+  private final AtomicLongArray counts = new AtomicLongArray(SIZE);
+
+  /**
+   * Counts a duration.
+   *
+   * @param nanos the duration in nanoseconds; negative values count as zero
+   */
+  void record(long nanos) {
+    counts.incrementAndGet(index(Math.max(0, Math.min(nanos, MAX_VALUE))));
+  }
+
+  /**
+   * Adds the counts of this histogram to an array indexed like it.
+   *
+   * @param target the array receiving the counts
+   */
+  void addTo(long[] target) {
+    for (int i = 0; i < SIZE; i++) {
+      target[i] += counts.get(i);
+    }
+  }
+
+  /**
+   * Clears every counter.
+   */
+  void reset() {
+    for (int i = 0; i < SIZE; i++) {
+      counts.set(i, 0);
+    }
+  }
+
+  /**
+   * Returns a new array able to hold the counts of a histogram.
+   *
+   * @return the zeroed array
+   */
+  static long[] newCounts() {
+    return new long[SIZE];
+  }
+
+  static int index(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKETS;
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  /**
+   * Returns the largest value counted in a bucket.
+   *
+   * @param index the bucket
+   * @return the bucket's upper bound in nanoseconds
+   */
+  static long highestValue(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = index / SUB_BUCKETS - 1;
+    long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+    return ((subBucket + 1) << shift) - 1;
+  }
+}
@@ -0,0 +1,27 @@
+package com.example.cinema.metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Latency percentiles of an endpoint over the rolling window, in milliseconds. Percentiles
+ * are upper bounds of histogram buckets, within about 3% of the recorded durations.
+ */
+@Getter
+@AllArgsConstructor
+public class LatencySnapshot {
+  /**
+   * Calls completed in the window.
+   */
+  private final long count;
+  /**
+   * Calls completed since the application started.
+   */
+  private final long totalCount;
+  private final double mean;
+  private final double p50;
+  private final double p90;
+  private final double p99;
+  private final double p999;
+  private final double max;
+}
@@ -0,0 +1,79 @@
+package com.example.cinema.metrics;
+
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * The most viewed showtimes and halls, counted on every lookup by ID in a fixed amount of
+ * memory whatever the number of entities. Counts are halved at a fixed interval, so the lists
+ * follow what is hot now rather than what was hot since start.
+ */
+@Component
+public class PopularEntities {
+
+  private final HeavyHitters showtimes;
+  private final HeavyHitters halls;
+
+  /**
+   * Creates the trackers.
+   *
+   * @param capacity the number of entities of each kind tracked as candidates
+   *                 ({@code metrics.popular.capacity})
+   * @param width    the number of counters per sketch row ({@code metrics.popular.sketch-width})
+   */
+  public PopularEntities(@Value("${metrics.popular.capacity:100}") int capacity,
+                         @Value("${metrics.popular.sketch-width:4096}") int width) {
+    this.showtimes = new HeavyHitters(capacity, width);
+    this.halls = new HeavyHitters(capacity, width);
+  }
+
+  /**
+   * Counts a view of a showtime.
+   *
+   * @param showtimeId the ID of the showtime
+   */
+  public void recordShowtime(long showtimeId) {
+    showtimes.record(showtimeId);
+  }
+
+  /**
+   * Counts a view of a hall.
+   *
+   * @param hallId the ID of the hall
+   */
+  public void recordHall(long hallId) {
+    halls.record(hallId);
+  }
+
+  /**
+   * Returns the most viewed showtimes.
+   *
+   * @param limit the largest number of showtimes to return
+   * @return the showtimes in descending order of views
+   */
+  public List<HeavyHitter> topShowtimes(int limit) {
+    return showtimes.top(limit);
+  }
+
+  /**
+   * Returns the most viewed halls.
+   *
+   * @param limit the largest number of halls to return
+   * @return the halls in descending order of views
+   */
+  public List<HeavyHitter> topHalls(int limit) {
+    return halls.top(limit);
+  }
+
+  /**
+   * Halves the counts of every showtime and hall ({@code metrics.popular.decay-interval}).
+   */
+  @Scheduled(fixedDelayString = "${metrics.popular.decay-interval:PT5M}",
+          initialDelayString = "${metrics.popular.decay-interval:PT5M}")
+  public void decay() {
+    showtimes.decay();
+    halls.decay();
+  }
+}
@@ -0,0 +1,114 @@
+package com.example.cinema.metrics;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Call counters of the controller endpoints keyed by endpoint and response status, each with
+ * the counts of the last minute, five minutes and hour. An endpoint's counters sit in an array
+ * indexed by status, so counting a call neither looks up a map nor boxes the status, and calls
+ * with different statuses or endpoints never touch the same counter.
+ */
+public final class RequestCounters {
+
+  private static final Duration MINUTE = Duration.ofMinutes(1);
+  private static final Duration FIVE_MINUTES = Duration.ofMinutes(5);
+  private static final Duration HOUR = Duration.ofHours(1);
+  private static final int STATUSES = 600;
+
+  private final Map<String, AtomicReferenceArray<WindowedCounter>> endpoints =
+          new ConcurrentHashMap<>();
+  private final Duration bucket;
+  private final int buckets;
+  private final LongSupplier ticker;
+
+  /**
+   * Creates the registry.
+   *
+   * @param bucket the step in which calls leave the windows
+   * @param ticker the source of the current time in nanoseconds
+   */
+  public RequestCounters(Duration bucket, LongSupplier ticker) {
+    this.bucket = bucket;
+    this.buckets = (int) ((HOUR.toNanos() + bucket.toNanos() - 1) / bucket.toNanos());
+    this.ticker = ticker;
+  }
+
+  /**
+   * Returns the counter of an endpoint's calls, creating the endpoint on first use. Callers
+   * keep the counter so that counting does not look the endpoint up.
+   *
+   * @param endpoint the endpoint's method signature
+   * @return a consumer of response statuses; statuses outside 0-599 are counted as 0
+   */
+  public IntConsumer recorder(String endpoint) {
+    AtomicReferenceArray<WindowedCounter> counters = endpoints.computeIfAbsent(endpoint,
+            name -> new AtomicReferenceArray<>(STATUSES));
+    return status -> counter(counters, status >= 0 && status < STATUSES ? status : 0)
+            .increment();
+  }
+
+  /**
+   * Counts the calls of every endpoint called since start.
+   *
+   * @return the counts keyed by method signature and then by status, in order
+   */
+  public Map<String, Map<Integer, VisitCount>> snapshot() {
+    Map<String, Map<Integer, VisitCount>> snapshot = new TreeMap<>();
+    endpoints.forEach((name, counters) -> {
+      Map<Integer, VisitCount> statuses = new TreeMap<>();
+      for (int status = 0; status < STATUSES; status++) {
+        WindowedCounter counter = counters.get(status);
+        if (counter != null) {
+          statuses.put(status, count(counter));
+        }
+      }
+      snapshot.put(name, statuses);
+    });
+    return snapshot;
+  }
+
+  /**
+   * Returns the totals of every endpoint called since start, without the windows.
+   *
+   * @return the totals keyed by method signature and then by status, in order
+   */
+  public Map<String, Map<Integer, Long>> totals() {
+    Map<String, Map<Integer, Long>> totals = new TreeMap<>();
+    endpoints.forEach((name, counters) -> {
+      Map<Integer, Long> statuses = new TreeMap<>();
+      for (int status = 0; status < STATUSES; status++) {
+        WindowedCounter counter = counters.get(status);
+        if (counter != null) {
+          statuses.put(status, counter.total());
+        }
+      }
+      totals.put(name, statuses);
+    });
+    return totals;
+  }
+
+  private WindowedCounter counter(AtomicReferenceArray<WindowedCounter> counters, int status) {
+    WindowedCounter counter = counters.get(status);
+    if (counter == null) {
+      WindowedCounter created = new WindowedCounter(bucket, buckets, ticker);
+      counter = counters.compareAndSet(status, null, created) ? created : counters.get(status);
+    }
+    return counter;
+  }
+
+  private static VisitCount count(WindowedCounter counter) {
+    long lastMinute = counter.count(MINUTE);
+    long lastFiveMinutes = counter.count(FIVE_MINUTES);
+    long lastHour = counter.count(HOUR);
+    return new VisitCount(counter.total(), lastMinute, lastFiveMinutes, lastHour,
+            (double) lastMinute / MINUTE.toSeconds(),
+            (double) lastFiveMinutes / FIVE_MINUTES.toSeconds(),
+            (double) lastHour / HOUR.toSeconds());
+  }
+}
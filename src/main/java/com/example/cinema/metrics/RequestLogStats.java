@@ -0,0 +1,21 @@
+package com.example.cinema.metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Health of the request log written by the controller aspect: entries lost since start
+ * because the buffer was full or because the appender failed.
+ */
+@Getter
+@AllArgsConstructor
+public class RequestLogStats {
+  /**
+   * Call and return entries dropped because the buffer was full; errors are never dropped.
+   */
+  private final long droppedEvents;
+  /**
+   * Entries the appender failed to write.
+   */
+  private final long failedWrites;
+}
@@ -0,0 +1,108 @@
+package com.example.cinema.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Latency distribution over a rolling window, kept as a ring of {@link LatencyHistogram}
+ * slices that each cover an equal part of the window. A slice is cleared when time comes back
+ * round to it, so old samples leave the window one slice at a time and recording never
+ * allocates. A snapshot merges the slices that still belong to the window.
+ */
+final class RollingLatency {
+
+  private static final long EMPTY = Long.MIN_VALUE;
+
+  private final LatencyHistogram[] slices;
+  // Номер интервала, который сейчас хранит срез, или EMPTY для пустого среза
+  private final AtomicLongArray sliceEpochs;
+  private final long sliceNanos;
+  private final LongSupplier ticker;
+  private final LongAdder total = new LongAdder();
+
+  /**
+   * Creates a rolling distribution.
+   *
+   * @param window the length of the window
+   * @param slices the number of parts the window is divided into
+   * @param ticker the source of the current time in nanoseconds
+   */
+  RollingLatency(Duration window, int slices, LongSupplier ticker) {
+    this.slices = new LatencyHistogram[slices];
+    this.sliceEpochs = new AtomicLongArray(slices);
+    for (int i = 0; i < slices; i++) {
+      this.slices[i] = new LatencyHistogram();
+      sliceEpochs.set(i, EMPTY);
+    }
+    this.sliceNanos = window.toNanos() / slices;
+    this.ticker = ticker;
+  }
+
+  /**
+   * Records the duration of a call that has just completed.
+   *
+   * @param nanos the duration in nanoseconds
+   */
+  void record(long nanos) {
+    long epoch = Math.floorDiv(ticker.getAsLong(), sliceNanos);
+    int index = (int) Math.floorMod(epoch, (long) slices.length);
+    long current = sliceEpochs.get(index);
+    if (current != epoch && sliceEpochs.compareAndSet(index, current, epoch)) {
+      // Первый вызов нового интервала очищает срез, оставшийся от прошлого круга
+      slices[index].reset();
+    }
+    slices[index].record(nanos);
+    total.increment();
+  }
+
+  /**
+   * Computes the percentiles of the calls recorded in the window.
+   *
+   * @return the snapshot
+   */
+  LatencySnapshot snapshot() {
+    long epoch = Math.floorDiv(ticker.getAsLong(), sliceNanos);
+    long[] counts = LatencyHistogram.newCounts();
+    for (int i = 0; i < slices.length; i++) {
+      long sliceEpoch = sliceEpochs.get(i);
+      if (sliceEpoch != EMPTY && sliceEpoch <= epoch && epoch - sliceEpoch < slices.length) {
+        slices[i].addTo(counts);
+      }
+    }
+    long count = 0;
+    double weighted = 0;
+    int highest = -1;
+    for (int i = 0; i < counts.length; i++) {
+      if (counts[i] > 0) {
+        count += counts[i];
+        weighted += (double) counts[i] * LatencyHistogram.highestValue(i);
+        highest = i;
+      }
+    }
+    if (count == 0) {
+      return new LatencySnapshot(0, total.sum(), 0, 0, 0, 0, 0, 0);
+    }
+    return new LatencySnapshot(count, total.sum(), millis(weighted / count),
+            percentile(counts, count, 0.50), percentile(counts, count, 0.90),
+            percentile(counts, count, 0.99), percentile(counts, count, 0.999),
+            millis(LatencyHistogram.highestValue(highest)));
+  }
+
+  private static double percentile(long[] counts, long count, double quantile) {
+    long rank = Math.max(1, (long) Math.ceil(quantile * count));
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return millis(LatencyHistogram.highestValue(i));
+      }
+    }
+    return 0;
+  }
+
+  private static double millis(double nanos) {
+    return nanos / 1_000_000.0;
+  }
+}
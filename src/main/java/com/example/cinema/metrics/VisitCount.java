@@ -0,0 +1,24 @@
+package com.example.cinema.metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Calls of an endpoint that ended with one status: the total since start and the counts and
+ * average rates per second of the last minute, five minutes and hour. Windows are rounded to
+ * whole buckets of the counter.
+ */
+@Getter
+@AllArgsConstructor
+public class VisitCount {
+  /**
+   * Calls counted since the application started.
+   */
+  private final long total;
+  private final long lastMinute;
+  private final long lastFiveMinutes;
+  private final long lastHour;
+  private final double minuteRate;
+  private final double fiveMinuteRate;
+  private final double hourRate;
+}
@@ -0,0 +1,87 @@
+package com.example.cinema.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Event counter that also counts the events of recent windows, kept as a ring of buckets that
+ * each cover an equal step of time. Every bucket and the running total are {@link LongAdder}s,
+ * so threads counting the same event do not contend on one cache line. A bucket is cleared
+ * when time comes back round to it; like {@link RollingLatency}, an increment racing with that
+ * reset may be lost, which only affects the windows and never the total.
+ */
+final class WindowedCounter {
+
+  private static final long EMPTY = Long.MIN_VALUE;
+
+  private final LongAdder total = new LongAdder();
+  private final LongAdder[] buckets;
+  // Номер шага, который сейчас хранит корзина, или EMPTY для пустой корзины
+  private final AtomicLongArray bucketEpochs;
+  private final long bucketNanos;
+  private final LongSupplier ticker;
+
+  /**
+   * Creates a counter.
+   *
+   * @param bucket  the step of time covered by one bucket
+   * @param buckets the number of buckets; windows up to {@code bucket * buckets} can be counted
+   * @param ticker  the source of the current time in nanoseconds
+   */
+  WindowedCounter(Duration bucket, int buckets, LongSupplier ticker) {
+    this.buckets = new LongAdder[buckets];
+    this.bucketEpochs = new AtomicLongArray(buckets);
+    for (int i = 0; i < buckets; i++) {
+      this.buckets[i] = new LongAdder();
+      bucketEpochs.set(i, EMPTY);
+    }
+    this.bucketNanos = bucket.toNanos();
+    this.ticker = ticker;
+  }
+
+  /**
+   * Counts an event that has just happened.
+   */
+  void increment() {
+    long epoch = Math.floorDiv(ticker.getAsLong(), bucketNanos);
+    int index = (int) Math.floorMod(epoch, (long) buckets.length);
+    long current = bucketEpochs.get(index);
+    if (current != epoch && bucketEpochs.compareAndSet(index, current, epoch)) {
+      // Первое событие нового шага очищает корзину, оставшуюся от прошлого круга
+      buckets[index].reset();
+    }
+    buckets[index].increment();
+    total.increment();
+  }
+
+  /**
+   * Returns the number of events counted since the counter was created.
+   *
+   * @return the total
+   */
+  long total() {
+    return total.sum();
+  }
+
+  /**
+   * Returns the number of events in a window ending now. The window is rounded to whole
+   * buckets and includes the current, partly elapsed one.
+   *
+   * @param window the length of the window, at most the length of the ring
+   * @return the number of events
+   */
+  long count(Duration window) {
+    long epoch = Math.floorDiv(ticker.getAsLong(), bucketNanos);
+    long steps = Math.min(buckets.length, Math.max(1, window.toNanos() / bucketNanos));
+    long count = 0;
+    for (int i = 0; i < buckets.length; i++) {
+      long bucketEpoch = bucketEpochs.get(i);
+      if (bucketEpoch != EMPTY && bucketEpoch <= epoch && epoch - bucketEpoch < steps) {
+        count += buckets[i].sum();
+      }
+    }
+    return count;
+  }
+}
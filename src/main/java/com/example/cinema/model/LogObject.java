@@ -1,18 +1,106 @@
 package com.example.cinema.model;
 
+import com.example.cinema.logs.ScanProgress;
+import java.time.Instant;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
 @Getter
 @Setter
-public class LogObject {
+public class LogObject implements ScanProgress {
   private Long id;
-  private String status;
+  private String date;
+  private volatile String status;
   private String filePath;
   private String errorMessage;
+  private volatile Instant finishedAt;
+  private long fileSize;
+  private long compressedSize;
+
+  // Прогресс обновляется несколькими потоками поиска, геттеры возвращают текущие суммы
+  private final LongAdder bytesTotal = new LongAdder();
+  private final LongAdder bytesScanned = new LongAdder();
+  private final LongAdder linesMatched = new LongAdder();
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  private volatile long startedNanos;
 
   public LogObject(Long id, String status) {
     this.id = id;
     this.status = status;
   }
-}
\ No newline at end of file
+
+  @Override
+  public void expect(long bytes) {
+    if (startedNanos == 0) {
+      startedNanos = System.nanoTime();
+    }
+    bytesTotal.add(bytes);
+  }
+
+  @Override
+  public void scanned(long bytes, long lines) {
+    bytesScanned.add(bytes);
+    linesMatched.add(lines);
+  }
+
+  /**
+   * Возвращает объём данных, который нужно прочитать, известный на данный момент.
+   *
+   * @return число байтов
+   */
+  public long getBytesTotal() {
+    return bytesTotal.sum();
+  }
+
+  /**
+   * Возвращает объём уже прочитанных данных.
+   *
+   * @return число байтов
+   */
+  public long getBytesScanned() {
+    return bytesScanned.sum();
+  }
+
+  /**
+   * Возвращает число найденных строк лога за запрошенную дату.
+   *
+   * @return число строк
+   */
+  public long getLinesMatched() {
+    return linesMatched.sum();
+  }
+
+  /**
+   * Возвращает процент выполнения: 100 для завершённой задачи.
+   *
+   * @return процент от 0 до 100
+   */
+  public int getPercent() {
+    if ("COMPLETED".equals(status)) {
+      return 100;
+    }
+    long total = getBytesTotal();
+    return total == 0 ? 0 : (int) Math.min(100, getBytesScanned() * 100 / total);
+  }
+
+  /**
+   * Оценивает оставшееся время по средней скорости чтения с начала задачи.
+   *
+   * @return секунды до завершения или {@code null}, если оценить пока нельзя
+   */
+  public Long getEtaSeconds() {
+    long scanned = getBytesScanned();
+    long total = getBytesTotal();
+    if (!"IN_PROGRESS".equals(status) || scanned == 0 || startedNanos == 0) {
+      return null;
+    }
+    if (scanned >= total) {
+      return 0L;
+    }
+    double elapsed = (System.nanoTime() - startedNanos) / 1e9;
+    return Math.round(elapsed * (total - scanned) / scanned);
+  }
+}
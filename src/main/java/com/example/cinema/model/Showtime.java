@@ -2,9 +2,11 @@ package com.example.cinema.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -14,9 +16,11 @@ import java.time.LocalDateTime;
 
 /**
  * Represents a showtime for a film in a cinema hall.
+ * Showtimes are looked up by hall and time range, hence the {@code (hall_id, date_time)} index.
  */
 @Entity
-@Table(name = "showtimes")
+@Table(name = "showtimes", indexes = @Index(
+        name = "idx_showtimes_hall_id_date_time", columnList = "hall_id, dateTime"))
 public class Showtime {
 
   @Id
@@ -29,7 +33,7 @@ public class Showtime {
   @Size(max = 100, message = "Film title must be less than 100 characters")
   private String filmTitle;
 
-  @ManyToOne
+  @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "hall_id", nullable = false)
   @JsonIgnore
   private Hall hall;
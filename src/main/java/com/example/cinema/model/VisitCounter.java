@@ -0,0 +1,164 @@
+package com.example.cinema.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import java.time.LocalDateTime;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Represents the visit total of one endpoint and response status counted by one application
+ * instance. Each instance writes only its own rows, with absolute totals, so rewriting a row
+ * is idempotent and totals across instances are the sum of their rows.
+ *
+ * <p>The ID is assigned rather than generated, so the entity tells Spring Data itself whether
+ * it is new: new rows are inserted with a plain persist instead of a merge that would first
+ * select the row to find out whether it exists.
+ */
+@Entity
+@Table(name = "visit_counters")
+public class VisitCounter implements Persistable<String> {
+
+  @Id
+  @Column(length = 512)
+  private String id;
+
+  @Column(nullable = false)
+  private String instance;
+
+  @Column(nullable = false, length = 255)
+  private String endpoint;
+
+  @Column(nullable = false)
+  private Integer status;
+
+  @Column(name = "visits", nullable = false)
+  private Long visits;
+
+  @Column(name = "updated_at", nullable = false)
+  private LocalDateTime updatedAt;
+
+  @Transient
+  private boolean isNew = true;
+
+  /**
+   * Default constructor.
+   */
+  public VisitCounter() {
+  }
+
+  /**
+   * Constructs a counter row of an instance.
+   *
+   * @param instance the instance that counted the visits
+   * @param endpoint the endpoint's method signature
+   * @param status the response status
+   * @param visits the total number of visits
+   * @param updatedAt the time the total was written
+   */
+  public VisitCounter(String instance, String endpoint, Integer status, Long visits,
+                      LocalDateTime updatedAt) {
+    this.id = id(instance, endpoint, status);
+    this.instance = instance;
+    this.endpoint = endpoint;
+    this.status = status;
+    this.visits = visits;
+    this.updatedAt = updatedAt;
+  }
+
+  /**
+   * Builds the identifier of a counter row.
+   *
+   * @param instance the instance that counted the visits
+   * @param endpoint the endpoint's method signature
+   * @param status the response status
+   * @return the row ID
+   */
+  public static String id(String instance, String endpoint, int status) {
+    return instance + "|" + endpoint + "|" + status;
+  }
+
+  /**
+   * Gets the identifier of the row.
+   *
+   * @return the row ID
+   */
+  @Override
+  public String getId() {
+    return id;
+  }
+
+  /**
+   * Tells whether the row has not been written to the database yet.
+   *
+   * @return {@code true} for a row that must be inserted
+   */
+  @Override
+  public boolean isNew() {
+    return isNew;
+  }
+
+  /**
+   * Sets whether the row has not been written to the database yet.
+   *
+   * @param isNew {@code false} for a row that already exists and must be updated
+   */
+  public void setNew(boolean isNew) {
+    this.isNew = isNew;
+  }
+
+  @PostLoad
+  @PostPersist
+  void markNotNew() {
+    this.isNew = false;
+  }
+
+  /**
+   * Gets the instance that counted the visits.
+   *
+   * @return the instance ID
+   */
+  public String getInstance() {
+    return instance;
+  }
+
+  /**
+   * Gets the endpoint the visits were counted for.
+   *
+   * @return the method signature
+   */
+  public String getEndpoint() {
+    return endpoint;
+  }
+
+  /**
+   * Gets the response status of the counted visits.
+   *
+   * @return the status
+   */
+  public Integer getStatus() {
+    return status;
+  }
+
+  /**
+   * Gets the total number of visits.
+   *
+   * @return the total
+   */
+  public Long getVisits() {
+    return visits;
+  }
+
+  /**
+   * Gets the time the total was written.
+   *
+   * @return the time of the last write
+   */
+  public LocalDateTime getUpdatedAt() {
+    return updatedAt;
+  }
+}
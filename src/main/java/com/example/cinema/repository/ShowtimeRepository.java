@@ -1,10 +1,17 @@
 package com.example.cinema.repository;
 
+import com.example.cinema.dto.ShowtimeDto;
 import com.example.cinema.model.Showtime;
+import jakarta.persistence.QueryHint;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -14,6 +21,75 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface ShowtimeRepository extends JpaRepository<Showtime, Long> {
 
+  /**
+   * Selects showtimes with their hall straight into {@link ShowtimeDto} in a single join,
+   * without loading any entity.
+   */
+  String SELECT_SHOWTIME_DTO = "SELECT new com.example.cinema.dto.ShowtimeDto("
+          + "s.id, s.dateTime, s.filmTitle, h.id, h.name, h.capacity) "
+          + "FROM Showtime s JOIN s.hall h ";
+
+  /**
+   * Rows fetched from the database per round trip while streaming.
+   */
+  String STREAM_FETCH_SIZE = "500";
+
+  /**
+   * Finds all showtimes together with their halls in one query.
+   *
+   * @return all showtimes ordered by ID
+   */
+  @Query(SELECT_SHOWTIME_DTO + "ORDER BY s.id")
+  List<ShowtimeDto> findAllShowtimeDtos();
+
+  /**
+   * Finds the first showtimes ordered by date and ID, showtimes without a date last.
+   *
+   * @param pageable the page size; the page number must be 0
+   * @return the first showtimes
+   */
+  @Query(SELECT_SHOWTIME_DTO + "ORDER BY s.dateTime NULLS LAST, s.id")
+  List<ShowtimeDto> findFirstPage(Pageable pageable);
+
+  /**
+   * Finds the showtimes following the given one in date and ID order (keyset pagination),
+   * so the database seeks to the cursor instead of skipping an offset. Showtimes without a
+   * date follow all dated ones.
+   *
+   * @param dateTime the date and time of the last showtime already returned
+   * @param id the ID of the last showtime already returned
+   * @param pageable the page size; the page number must be 0
+   * @return the next showtimes
+   */
+  @Query(SELECT_SHOWTIME_DTO
+          + "WHERE s.dateTime > :dateTime OR (s.dateTime = :dateTime AND s.id > :id) "
+          + "OR s.dateTime IS NULL "
+          + "ORDER BY s.dateTime NULLS LAST, s.id")
+  List<ShowtimeDto> findPageAfter(@Param("dateTime") LocalDateTime dateTime,
+                                  @Param("id") Long id, Pageable pageable);
+
+  /**
+   * Finds the showtimes without a date following the given one in ID order, the tail of the
+   * keyset pagination once every dated showtime has been returned.
+   *
+   * @param id the ID of the last undated showtime already returned
+   * @param pageable the page size; the page number must be 0
+   * @return the next undated showtimes
+   */
+  @Query(SELECT_SHOWTIME_DTO + "WHERE s.dateTime IS NULL AND s.id > :id ORDER BY s.id")
+  List<ShowtimeDto> findUndatedPageAfter(@Param("id") Long id, Pageable pageable);
+
+  /**
+   * Streams all showtimes ordered by date and ID, fetching rows in batches. Showtimes without
+   * a date come last, so every row is returned.
+   * Must be consumed inside a transaction and closed afterwards.
+   *
+   * @return a stream of all showtimes
+   */
+  @Query(SELECT_SHOWTIME_DTO + "ORDER BY s.dateTime NULLS LAST, s.id")
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+  Stream<ShowtimeDto> streamAll();
+
   /**
    * Finds showtimes in a hall that contain the given film title (case-insensitive).
    *
@@ -33,8 +109,24 @@ public interface ShowtimeRepository extends JpaRepository<Showtime, Long> {
    * @param date the date of the showtime
    * @return a list of showtimes scheduled on the given date
    */
-  @Query(value = "SELECT * FROM showtimes s WHERE s.hall_id = :hallId "
-          + "AND DATE(s.date_time) = :date", nativeQuery = true)
-  List<Showtime> findByHallIdAndDate(
-          @Param("hallId") Long hallId, @Param("date") LocalDate date);
+  default List<Showtime> findByHallIdAndDate(Long hallId, LocalDate date) {
+    return findByHallIdAndDateTimeRange(
+            hallId, date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+  }
+
+  /**
+   * Finds showtimes in a hall starting within a half-open time range.
+   * The column is compared as is, so the search is a range scan of the
+   * {@code (hall_id, date_time)} index.
+   *
+   * @param hallId the ID of the hall
+   * @param from the start of the range, inclusive
+   * @param to the end of the range, exclusive
+   * @return the showtimes ordered by date and time
+   */
+  @Query("SELECT s FROM Showtime s WHERE s.hall.id = :hallId "
+          + "AND s.dateTime >= :from AND s.dateTime < :to ORDER BY s.dateTime, s.id")
+  List<Showtime> findByHallIdAndDateTimeRange(@Param("hallId") Long hallId,
+                                              @Param("from") LocalDateTime from,
+                                              @Param("to") LocalDateTime to);
 }
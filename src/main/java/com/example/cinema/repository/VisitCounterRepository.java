@@ -0,0 +1,27 @@
+package com.example.cinema.repository;
+
+import com.example.cinema.model.VisitCounter;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+/**
+ * Repository interface for managing {@link VisitCounter} entities.
+ */
+public interface VisitCounterRepository extends JpaRepository<VisitCounter, String> {
+
+  /**
+   * Finds the counter rows written by an instance.
+   *
+   * @param instance the instance ID
+   * @return the rows of the instance
+   */
+  List<VisitCounter> findByInstance(String instance);
+
+  /**
+   * Finds the counter rows written by every other instance.
+   *
+   * @param instance the instance ID to leave out
+   * @return the rows of the other instances
+   */
+  List<VisitCounter> findByInstanceNot(String instance);
+}
@@ -0,0 +1,340 @@
+package com.example.cinema.search;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory trigram index of film titles for case-insensitive substring and prefix search.
+ * Every distinct title is split into overlapping sequences of one to three characters; a search
+ * looks up the posting sets of the query's trigrams, intersects them starting with the smallest
+ * and verifies the few remaining candidates, so its cost depends on the number of matching
+ * titles rather than on the number of showtimes. Queries of one or two characters take the
+ * posting set of the query itself, so typeahead on the first keystrokes does not scan titles.
+ *
+ * <p>The index tracks which showtimes use each title and when they start, so results can be
+ * ranked by the number of upcoming sessions. It is updated incrementally per showtime and
+ * guarded by a read-write lock: searches run in parallel, updates are exclusive. A full
+ * {@link #rebuild rebuild} loads a fresh index off to the side and swaps it in, replaying the
+ * updates that arrived meanwhile, so searches keep seeing the old index until then.
+ */
+@Component
+public class FilmTitleIndex {
+
+  private static final int GRAM = 3;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Object rebuildLock = new Object();
+  private Map<String, Title> titles = new HashMap<>();
+  private Map<String, Set<String>> postings = new HashMap<>();
+  private Map<Long, Session> sessions = new HashMap<>();
+  // Updates made while a rebuild loads the fresh index, or null when no rebuild runs
+  private List<Consumer<FilmTitleIndex>> journal;
+
+  /**
+   * Adds a showtime to the index, replacing its previous title and time if it was indexed.
+   *
+   * @param showtimeId the ID of the showtime
+   * @param filmTitle  the film title, ignored if {@code null}
+   * @param dateTime   the start of the session, {@code null} if unknown
+   */
+  public void put(Long showtimeId, String filmTitle, LocalDateTime dateTime) {
+    if (showtimeId == null) {
+      return;
+    }
+    lock.writeLock().lock();
+    try {
+      if (journal != null) {
+        journal.add(index -> index.put(showtimeId, filmTitle, dateTime));
+      }
+      removeSession(showtimeId);
+      if (filmTitle != null) {
+        String key = normalize(filmTitle);
+        Title title = titles.computeIfAbsent(key, k -> addTitle(k, filmTitle));
+        title.add(dateTime);
+        sessions.put(showtimeId, new Session(key, dateTime));
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Removes a showtime from the index; titles without showtimes are dropped.
+   *
+   * @param showtimeId the ID of the showtime
+   */
+  public void remove(Long showtimeId) {
+    lock.writeLock().lock();
+    try {
+      if (journal != null) {
+        journal.add(index -> index.remove(showtimeId));
+      }
+      removeSession(showtimeId);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Replaces the contents of the index with the showtimes the loader puts into a fresh index.
+   * Searches use the current contents until the load finishes; updates made during the load
+   * apply to the current contents and are then replayed onto the fresh index before it is
+   * swapped in, so none of them is lost. If the loader fails, the current contents are kept.
+   *
+   * @param loader puts every showtime into the index it is given
+   */
+  public void rebuild(Consumer<FilmTitleIndex> loader) {
+    synchronized (rebuildLock) {
+      FilmTitleIndex fresh = new FilmTitleIndex();
+      lock.writeLock().lock();
+      try {
+        journal = new ArrayList<>();
+      } finally {
+        lock.writeLock().unlock();
+      }
+      boolean loaded = false;
+      try {
+        loader.accept(fresh);
+        loaded = true;
+      } finally {
+        lock.writeLock().lock();
+        try {
+          if (loaded) {
+            journal.forEach(update -> update.accept(fresh));
+            titles = fresh.titles;
+            postings = fresh.postings;
+            sessions = fresh.sessions;
+          }
+          journal = null;
+        } finally {
+          lock.writeLock().unlock();
+        }
+      }
+    }
+  }
+
+  /**
+   * Finds distinct titles containing the query, in any case.
+   *
+   * @param query the text to search for
+   * @param limit the maximum number of titles to return
+   * @param now   the time after which sessions count as upcoming
+   * @return the titles, most upcoming sessions first, then alphabetically
+   */
+  public List<String> search(String query, int limit, LocalDateTime now) {
+    String key = normalize(query);
+    return find(key, title -> title.key.contains(key), limit, now);
+  }
+
+  /**
+   * Finds distinct titles in which the title itself or one of its words starts with the
+   * prefix, in any case.
+   *
+   * @param prefix the beginning of the title or of one of its words
+   * @param limit  the maximum number of titles to return
+   * @param now    the time after which sessions count as upcoming
+   * @return the titles, most upcoming sessions first, then alphabetically
+   */
+  public List<String> suggest(String prefix, int limit, LocalDateTime now) {
+    String key = normalize(prefix);
+    return find(key, title -> title.key.startsWith(key) || title.key.contains(" " + key),
+            limit, now);
+  }
+
+  /**
+   * Returns the number of distinct titles in the index.
+   *
+   * @return the number of titles
+   */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return titles.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private List<String> find(String key, Predicate<Title> matches, int limit,
+                            LocalDateTime now) {
+    List<Ranked> ranked = new ArrayList<>();
+    lock.readLock().lock();
+    try {
+      for (Title title : candidates(key)) {
+        if (matches.test(title)) {
+          ranked.add(new Ranked(title.display, title.upcoming(now)));
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    return ranked.stream()
+            .sorted(Comparator.comparingInt((Ranked r) -> r.upcoming).reversed()
+                    .thenComparing(r -> r.title))
+            .limit(limit)
+            .map(r -> r.title)
+            .collect(Collectors.toList());
+  }
+
+  /**
+   * Returns the titles that contain every trigram of the key, or the key itself if it is
+   * shorter than a trigram. Must hold the read lock.
+   */
+  private Collection<Title> candidates(String key) {
+    if (key.isEmpty()) {
+      return titles.values();
+    }
+    if (key.length() <= GRAM) {
+      Set<String> posting = postings.getOrDefault(key, Set.of());
+      List<Title> result = new ArrayList<>(posting.size());
+      for (String candidate : posting) {
+        result.add(titles.get(candidate));
+      }
+      return result;
+    }
+    List<Set<String>> sets = new ArrayList<>();
+    for (String gram : grams(key, GRAM)) {
+      Set<String> posting = postings.get(gram);
+      if (posting == null) {
+        return List.of();
+      }
+      sets.add(posting);
+    }
+    sets.sort(Comparator.comparingInt(Set::size));
+    List<Title> result = new ArrayList<>();
+    for (String candidate : sets.get(0)) {
+      if (sets.stream().skip(1).allMatch(set -> set.contains(candidate))) {
+        result.add(titles.get(candidate));
+      }
+    }
+    return result;
+  }
+
+  private Title addTitle(String key, String display) {
+    for (String gram : grams(key)) {
+      postings.computeIfAbsent(gram, g -> new HashSet<>()).add(key);
+    }
+    return new Title(key, display);
+  }
+
+  private void removeSession(Long showtimeId) {
+    Session session = sessions.remove(showtimeId);
+    if (session == null) {
+      return;
+    }
+    Title title = titles.get(session.titleKey);
+    title.remove(session.dateTime);
+    if (title.count == 0) {
+      titles.remove(session.titleKey);
+      for (String gram : grams(session.titleKey)) {
+        Set<String> posting = postings.get(gram);
+        posting.remove(session.titleKey);
+        if (posting.isEmpty()) {
+          postings.remove(gram);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns every sequence of one to three characters of the key.
+   */
+  private static Set<String> grams(String key) {
+    Set<String> grams = new HashSet<>();
+    for (int length = 1; length <= GRAM; length++) {
+      grams.addAll(grams(key, length));
+    }
+    return grams;
+  }
+
+  private static Set<String> grams(String key, int length) {
+    Set<String> grams = new HashSet<>();
+    for (int i = 0; i + length <= key.length(); i++) {
+      grams.add(key.substring(i, i + length));
+    }
+    return grams;
+  }
+
+  private static String normalize(String text) {
+    return text.toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * A distinct title with the start times of its sessions.
+   */
+  private static final class Title {
+    private final String key;
+    private final String display;
+    private final NavigableMap<LocalDateTime, Integer> starts = new TreeMap<>();
+    private int count;
+
+    Title(String key, String display) {
+      this.key = key;
+      this.display = display;
+    }
+
+    void add(LocalDateTime dateTime) {
+      count++;
+      if (dateTime != null) {
+        starts.merge(dateTime, 1, Integer::sum);
+      }
+    }
+
+    void remove(LocalDateTime dateTime) {
+      count--;
+      if (dateTime != null) {
+        starts.computeIfPresent(dateTime, (time, n) -> n == 1 ? null : n - 1);
+      }
+    }
+
+    int upcoming(LocalDateTime now) {
+      int upcoming = 0;
+      for (int n : starts.tailMap(now, false).values()) {
+        upcoming += n;
+      }
+      return upcoming;
+    }
+  }
+
+  /**
+   * Title and start time under which a showtime is indexed.
+   */
+  private static final class Session {
+    private final String titleKey;
+    private final LocalDateTime dateTime;
+
+    Session(String titleKey, LocalDateTime dateTime) {
+      this.titleKey = titleKey;
+      this.dateTime = dateTime;
+    }
+  }
+
+  /**
+   * Search result with its number of upcoming sessions.
+   */
+  private static final class Ranked {
+    private final String title;
+    private final int upcoming;
+
+    Ranked(String title, int upcoming) {
+      this.title = title;
+      this.upcoming = upcoming;
+    }
+  }
+}
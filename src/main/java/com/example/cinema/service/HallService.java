@@ -1,6 +1,7 @@
 package com.example.cinema.service;
 
 import com.example.cinema.exception.ResourceNotFoundException;
+import com.example.cinema.metrics.PopularEntities;
 import com.example.cinema.model.Hall;
 import com.example.cinema.repository.HallRepository;
 import java.util.List;
@@ -16,16 +17,21 @@ public class HallService {
 
   private final HallRepository hallRepository;
   private final VisitCounterService visitCounterService;
+  private final PopularEntities popularEntities;
 
   /**
    * Constructs a HallService with the specified HallRepository.
    *
    * @param hallRepository the repository for hall data access
+   * @param visitCounterService the counter of hall list visits
+   * @param popularEntities the counter of hall views
    */
   public HallService(HallRepository hallRepository,
-                     VisitCounterService visitCounterService) {
+                     VisitCounterService visitCounterService,
+                     PopularEntities popularEntities) {
     this.hallRepository = hallRepository;
     this.visitCounterService = visitCounterService;
+    this.popularEntities = popularEntities;
   }
 
   /**
@@ -49,13 +55,17 @@ public class HallService {
   }
 
   /**
-   * Retrieves a hall by its ID.
+   * Retrieves a hall by its ID and counts the view if the hall exists.
    *
    * @param hallId the ID of the hall to retrieve
    * @return Optional containing the hall if found
    */
   public Optional<Hall> getHallById(Long hallId) {
-    return hallRepository.findById(hallId);
+    Optional<Hall> hall = hallRepository.findById(hallId);
+    if (hall.isPresent()) {
+      popularEntities.recordHall(hallId);
+    }
+    return hall;
   }
 
   /**
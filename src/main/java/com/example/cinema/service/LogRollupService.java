@@ -0,0 +1,92 @@
+package com.example.cinema.service;
+
+import com.example.cinema.exception.ValidationException;
+import com.example.cinema.logs.LogRollup;
+import com.example.cinema.logs.LogRollups;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Поддерживает поминутную сводку лога: по уровням, вызванным методам контроллеров и типам
+ * исключений. Сводка дописывается по новым строкам лога через заданный интервал и хранится
+ * на диске за последние дни, поэтому частота ошибок и нагрузка на методы за прошедшие дни
+ * считаются без скачивания и повторного чтения логов.
+ */
+@Slf4j
+@Service
+public class LogRollupService {
+
+  private static final Duration MAX_RANGE = Duration.ofDays(31);
+
+  private final LogRollups rollups;
+  private final Duration retention;
+  private Clock clock = Clock.systemDefaultZone();
+
+  public LogRollupService(@Value("${logging.file.name:cinema.log}") String logFile,
+                          @Value("${logs.rollups.directory:./log-rollups}") String directory,
+                          @Value("${logs.rollups.retention:30d}") Duration retention) {
+    this.rollups = new LogRollups(Paths.get(logFile), Paths.get(directory));
+    this.retention = retention;
+  }
+
+  void setClock(Clock clock) {
+    this.clock = clock;
+  }
+
+  /**
+   * Дописывает в сводку новые строки лога и удаляет сводки старше срока хранения.
+   */
+  @Scheduled(fixedDelayString = "${logs.rollups.interval:PT15S}")
+  public void update() {
+    try {
+      rollups.update();
+      rollups.expire(LocalDate.now(clock).minusDays(retention.toDays()));
+    } catch (IOException e) {
+      log.warn("Не удалось обновить сводку логов: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Возвращает сводку за интервал, сгруппированную по периодам заданной длины.
+   *
+   * @param from       начало интервала в формате yyyy-MM-ddTHH:mm включительно
+   * @param to         конец интервала не включительно
+   * @param resolution длина периода в минутах
+   * @return периоды с записями в порядке времени
+   */
+  public List<LogRollup> getRollups(String from, String to, int resolution) {
+    LocalDateTime start = parse(from);
+    LocalDateTime end = parse(to);
+    if (!start.isBefore(end)) {
+      throw new ValidationException("Начало интервала должно быть раньше конца");
+    }
+    if (Duration.between(start, end).compareTo(MAX_RANGE) > 0) {
+      throw new ValidationException("Интервал не может превышать " + MAX_RANGE.toDays()
+              + " дней");
+    }
+    if (resolution <= 0) {
+      throw new ValidationException("Длина периода должна быть положительной");
+    }
+    return rollups.query(start.truncatedTo(ChronoUnit.MINUTES),
+            end.truncatedTo(ChronoUnit.MINUTES), resolution);
+  }
+
+  private static LocalDateTime parse(String value) {
+    try {
+      return LocalDateTime.parse(value);
+    } catch (DateTimeParseException e) {
+      throw new ValidationException("Неверный формат времени: " + value);
+    }
+  }
+}
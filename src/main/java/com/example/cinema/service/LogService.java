@@ -1,35 +1,98 @@
 package com.example.cinema.service;
 
 import com.example.cinema.exception.ResourceNotFoundException;
+import com.example.cinema.exception.ValidationException;
+import com.example.cinema.logs.LogArchiveSearch;
+import com.example.cinema.logs.LogDayIndex;
+import com.example.cinema.logs.LogExtractor;
+import com.example.cinema.logs.LogQuery;
+import com.example.cinema.logs.LogQueryEngine;
+import com.example.cinema.logs.LogTaskStats;
+import com.example.cinema.logs.ScanProgress;
 import com.example.cinema.model.LogObject;
+import jakarta.annotation.PreDestroy;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+/**
+ * Создаёт выгрузки логов за дату в фоновых задачах. Реестр задач ограничен: завершённые
+ * задачи удаляются вместе с файлами выгрузки по истечении времени жизни, при переполнении
+ * реестра и при превышении квоты на диск, начиная с самых старых.
+ *
+ * <p>На одну дату приходится не больше одной задачи: повторный запрос получает ID уже
+ * выполняющейся задачи, а для прошедших дат — и готовой выгрузки, пока она в реестре.
+ * Логи текущего дня ещё дописываются, поэтому его готовые выгрузки повторно не выдаются.
+ */
+@Slf4j
 @Service
 public class LogService {
 
+  private static final String GZIP_SUFFIX = ".gz";
+  // Меньшие выгрузки отдаются без сжатия: выигрыш меньше накладных расходов
+  private static final long MIN_GZIP_SIZE = 2048;
+  private static final int MAX_QUERY_LIMIT = 10_000;
+  private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+
   public AtomicLong idCounter = new AtomicLong(1);
   public Map<Long, LogObject> tasks = new ConcurrentHashMap<>();
   public LogService self;
   private String logFilePath = "./cinema.log";
+  private final Map<Path, LogDayIndex> dayIndexes = new ConcurrentHashMap<>();
+  private final LogArchiveSearch archiveSearch = new LogArchiveSearch();
+  private final LogQueryEngine queryEngine = new LogQueryEngine(archiveSearch);
+  private final Object registryLock = new Object();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder expirations = new LongAdder();
+  private final LongAdder reuses = new LongAdder();
+  private final Map<String, Long> tasksByDate = new ConcurrentHashMap<>();
+  @Value("${logs.tasks.max-size:1000}")
+  private int maxTasks = 1000;
+  @Value("${logs.tasks.time-to-live:1h}")
+  private Duration taskTimeToLive = Duration.ofHours(1);
+  @Value("${logs.extracts.disk-quota:1GB}")
+  private DataSize diskQuota = DataSize.ofGigabytes(1);
+  private Clock clock = Clock.systemDefaultZone();
 
   public LogService(@Lazy LogService self) {
     this.self = self;
@@ -39,59 +102,330 @@ public class LogService {
     this.logFilePath = path;
   }
 
+  void setRegistryLimits(int maxTasks, Duration taskTimeToLive, DataSize diskQuota) {
+    this.maxTasks = maxTasks;
+    this.taskTimeToLive = taskTimeToLive;
+    this.diskQuota = diskQuota;
+  }
+
+  void setClock(Clock clock) {
+    this.clock = clock;
+  }
+
+  @PreDestroy
+  void shutdown() {
+    archiveSearch.close();
+  }
+
   @Async("executor")
   public void createLogs(Long taskId, String date) {
     try {
-      Thread.sleep(10000);
-
+      if (Thread.currentThread().isInterrupted()) {
+        throw new InterruptedIOException();
+      }
       DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
       LocalDate logDate = LocalDate.parse(date, formatter);
 
       Path path = Paths.get(this.logFilePath);
-      List<String> logLines = Files.readAllLines(path);
       String formattedDate = logDate.format(formatter);
-      List<String> currentLogs = logLines.stream()
-              .filter(line -> line.startsWith(formattedDate))
-              .toList();
-
-      if (currentLogs.isEmpty()) {
-        LogObject logObject = tasks.get(taskId);
-        if (logObject != null) {
-          logObject.setStatus("FAILED");
-          logObject.setErrorMessage("Нет логов за дату: " + date);
-        }
+      Path logFile = Files.createTempFile("logs-" + formattedDate, ".log");
+      logFile.toFile().deleteOnExit();
+      // Индекс по датам указывает диапазоны байтов дня в текущем логе,
+      // архивы после ротации просматриваются, только если могут содержать эту дату.
+      // Прогресс чтения записывается в задачу, если она ещё зарегистрирована
+      LogObject progress = tasks.get(taskId);
+      LogExtractor.Result result;
+      try {
+        LogDayIndex index = dayIndex(path);
+        result = archiveSearch.extract(index, logDate, logFile,
+                progress != null ? progress : ScanProgress.NONE);
+      } catch (IOException e) {
+        Files.deleteIfExists(logFile);
+        throw e;
+      }
+
+      if (result.getLines() == 0) {
+        Files.deleteIfExists(logFile);
+        fail(taskId, "Нет логов за дату: " + date);
         throw new ResponseStatusException(
                 HttpStatus.NOT_FOUND, "Нет логов за дату: " + date);
       }
 
-      Path logFile;
-      logFile = Files.createTempFile("logs-" + formattedDate, ".log");
+      complete(taskId, logFile);
+    } catch (InterruptedIOException | ClosedByInterruptException e) {
+      Thread.currentThread().interrupt();
+      fail(taskId, "Создание логов прервано");
+    } catch (IOException e) {
+      fail(taskId, e.getMessage());
+    } catch (ResponseStatusException e) {
+      // Задача уже помечена как неудачная
+      throw e;
+    } catch (RuntimeException e) {
+      // Иначе задача навсегда осталась бы выполняющейся и занимала место в реестре
+      log.error("Не удалось создать логи за {}: {}", date, e.getMessage(), e);
+      fail(taskId, "Не удалось создать логи: " + e.getMessage());
+    }
+  }
 
-      Files.write(logFile, currentLogs);
-      logFile.toFile().deleteOnExit();
+  /**
+   * Находит записи лога за дату, подходящие под уровень, интервал времени и текст, и отдаёт
+   * их потоком по мере нахождения, не создавая выгрузку дня. Чтение прекращается, как
+   * только найдено {@code limit} записей или записи вышли за конец интервала.
+   *
+   * @param date   дата логов в формате dd-MM-yyyy
+   * @param levels уровни записей, например ERROR; пустой список — все уровни
+   * @param from   начало интервала HH:mm[:ss] включительно или {@code null}
+   * @param to     конец интервала HH:mm[:ss] не включительно или {@code null}
+   * @param text   искомый текст или {@code null}
+   * @param regex  является ли текст регулярным выражением; его длина и перебор при проверке
+   *               ограничены, см. {@link LogQuery}
+   * @param limit  наибольшее число записей в ответе
+   * @return ответ, тело которого пишется при отправке
+   */
+  public ResponseEntity<StreamingResponseBody> queryLogs(String date, List<String> levels,
+                                                         String from, String to, String text,
+                                                         boolean regex, int limit) {
+    // Ошибка должна случиться до ответа 200, а не при записи тела
+    LocalDate day = parseDate(date);
+    if (limit > MAX_QUERY_LIMIT) {
+      throw new ValidationException("Лимит не может превышать " + MAX_QUERY_LIMIT);
+    }
+    LogQuery query;
+    try {
+      query = new LogQuery(levels, parse(from, "Неверный формат времени: ", LocalTime::parse),
+              parse(to, "Неверный формат времени: ", LocalTime::parse), text, regex, limit);
+    } catch (IllegalArgumentException e) {
+      throw new ValidationException("Неверный запрос к логам: " + e.getMessage());
+    }
+    Path path = Paths.get(this.logFilePath);
+    if (!Files.exists(path)) {
+      throw new ResourceNotFoundException("Не найден log файл");
+    }
+    LogDayIndex index = dayIndex(path);
+    StreamingResponseBody body = out -> {
+      Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+      LogQueryEngine.Result result = queryEngine.run(index, day, query, writer);
+      log.debug("Поиск по логам за {}: найдено {}, достигнут лимит: {}",
+              date, result.getEntries(), result.isLimitReached());
+    };
+    return ResponseEntity.ok()
+            .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+            .body(body);
+  }
 
-      LogObject task = tasks.get(taskId);
-      if (task != null) {
-        task.setStatus("COMPLETED");
-        task.setFilePath(logFile.toString());
+  private static LocalDate parseDate(String date) {
+    if (date == null || date.isBlank()) {
+      throw new ValidationException("Не указана дата логов");
+    }
+    return parse(date, "Неверный формат даты: ", d -> LocalDate.parse(d, DATE_FORMAT));
+  }
+
+  private static <T> T parse(String value, String message,
+                             Function<String, T> parser) {
+    if (value == null || value.isBlank()) {
+      return null;
+    }
+    try {
+      return parser.apply(value.trim());
+    } catch (DateTimeParseException e) {
+      throw new ValidationException(message + value);
+    }
+  }
+
+  private LogDayIndex dayIndex(Path path) {
+    return dayIndexes.computeIfAbsent(path.toAbsolutePath().normalize(), LogDayIndex::new);
+  }
+
+  /**
+   * Регистрирует задачу и запускает создание выгрузки, если для даты нет выполняющейся
+   * задачи или готовой выгрузки прошедшего дня. Если реестр заполнен, из него удаляются
+   * самые старые завершённые задачи; если все задачи ещё выполняются, запрос отклоняется.
+   * Дата проверяется до регистрации задачи, а задача, которую не удалось запустить,
+   * удаляется из реестра.
+   *
+   * @param date дата логов в формате dd-MM-yyyy
+   * @return ID новой или уже существующей задачи за эту дату
+   */
+  public Long createLogAsync(String date) {
+    parseDate(date);
+    LogObject logObject;
+    synchronized (registryLock) {
+      expireTasks();
+      LogObject existing = reusableTask(date);
+      if (existing != null) {
+        reuses.increment();
+        return existing.getId();
       }
-    } catch (IOException e) {
+      while (tasks.size() >= maxTasks && evictOldest(null)) {
+        evictions.increment();
+      }
+      if (tasks.size() >= maxTasks) {
+        throw new ResponseStatusException(
+                HttpStatus.TOO_MANY_REQUESTS, "Слишком много задач создания логов");
+      }
+      logObject = new LogObject(idCounter.getAndIncrement(), "IN_PROGRESS");
+      logObject.setDate(date);
+      tasks.put(logObject.getId(), logObject);
+      tasksByDate.put(date, logObject.getId());
+    }
+    try {
+      self.createLogs(logObject.getId(), date);
+    } catch (RuntimeException e) {
+      synchronized (registryLock) {
+        remove(logObject);
+      }
+      if (e instanceof TaskRejectedException) {
+        throw new ResponseStatusException(
+                HttpStatus.SERVICE_UNAVAILABLE, "Очередь создания логов заполнена");
+      }
+      throw e;
+    }
+    return logObject.getId();
+  }
+
+  /**
+   * Удаляет завершённые задачи, время жизни которых истекло, вместе с их файлами.
+   */
+  @Scheduled(fixedDelayString = "${logs.tasks.sweep-interval:PT1M}")
+  public void sweepTasks() {
+    synchronized (registryLock) {
+      expireTasks();
+    }
+  }
+
+  /**
+   * Возвращает состояние реестра задач и занятое выгрузками место на диске.
+   *
+   * @return снимок счётчиков реестра
+   */
+  public LogTaskStats getTaskStats() {
+    int inProgress = 0;
+    int completed = 0;
+    int failed = 0;
+    for (LogObject task : tasks.values()) {
+      if ("COMPLETED".equals(task.getStatus())) {
+        completed++;
+      } else if ("FAILED".equals(task.getStatus())) {
+        failed++;
+      } else {
+        inProgress++;
+      }
+    }
+    return new LogTaskStats(tasks.size(), inProgress, completed, failed, maxTasks,
+            diskUsage(), diskQuota.toBytes(), evictions.sum(), expirations.sum(), reuses.sum());
+  }
+
+  private void complete(Long taskId, Path logFile) throws IOException {
+    long size = Files.size(logFile);
+    synchronized (registryLock) {
       LogObject task = tasks.get(taskId);
-      if (task != null) {
-        task.setStatus("FAILED");
-        task.setErrorMessage(e.getMessage());
+      if (task == null) {
+        // Задача удалена из реестра, пока выгрузка создавалась
+        Files.deleteIfExists(logFile);
+        return;
+      }
+      task.setFilePath(logFile.toString());
+      task.setFileSize(size);
+      task.setFinishedAt(clock.instant());
+      task.setStatus("COMPLETED");
+      while (diskUsage() > diskQuota.toBytes() && evictOldest(task)) {
+        evictions.increment();
       }
-    } catch (InterruptedException e) {
-      Thread.currentThread().interrupt();
     }
   }
 
-  public Long createLogAsync(String date) {
-    Long id = idCounter.getAndIncrement();
-    LogObject logObject = new LogObject(id, "IN_PROGRESS");
-    tasks.put(id, logObject);
-    self.createLogs(id, date);
-    return id;
+  private void fail(Long taskId, String message) {
+    LogObject task = tasks.get(taskId);
+    if (task != null) {
+      task.setFinishedAt(clock.instant());
+      task.setStatus("FAILED");
+      task.setErrorMessage(message);
+    }
+  }
+
+  /**
+   * Возвращает задачу за дату, результат которой можно отдать повторно: выполняющуюся или
+   * завершённую за прошедший день. Должен вызываться под registryLock.
+   */
+  private LogObject reusableTask(String date) {
+    Long id = tasksByDate.get(date);
+    LogObject task = id == null ? null : tasks.get(id);
+    if (task == null) {
+      return null;
+    }
+    if ("IN_PROGRESS".equals(task.getStatus())) {
+      return task;
+    }
+    if ("COMPLETED".equals(task.getStatus()) && isPastDay(date)) {
+      return task;
+    }
+    return null;
+  }
+
+  private boolean isPastDay(String date) {
+    try {
+      return LocalDate.parse(date, DateTimeFormatter.ofPattern("dd-MM-yyyy"))
+              .isBefore(LocalDate.now(clock));
+    } catch (DateTimeParseException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Удаляет задачи, завершённые раньше времени жизни. Должен вызываться под registryLock.
+   */
+  private void expireTasks() {
+    Instant now = clock.instant();
+    for (LogObject task : tasks.values()) {
+      if ("IN_PROGRESS".equals(task.getStatus())) {
+        continue;
+      }
+      if (task.getFinishedAt() == null) {
+        task.setFinishedAt(now);
+      } else if (!task.getFinishedAt().plus(taskTimeToLive).isAfter(now)) {
+        remove(task);
+        expirations.increment();
+      }
+    }
+  }
+
+  /**
+   * Удаляет самую старую завершённую задачу, кроме указанной. Должен вызываться под
+   * registryLock.
+   *
+   * @return {@code false}, если удалять нечего
+   */
+  private boolean evictOldest(LogObject keep) {
+    Optional<LogObject> oldest = tasks.values().stream()
+            .filter(task -> task != keep && !"IN_PROGRESS".equals(task.getStatus()))
+            .min(Comparator.comparing(LogObject::getFinishedAt,
+                    Comparator.nullsFirst(Comparator.naturalOrder())));
+    oldest.ifPresent(this::remove);
+    return oldest.isPresent();
+  }
+
+  private void remove(LogObject task) {
+    if (!tasks.remove(task.getId(), task)) {
+      return;
+    }
+    if (task.getDate() != null) {
+      tasksByDate.remove(task.getDate(), task.getId());
+    }
+    if (task.getFilePath() != null) {
+      try {
+        Files.deleteIfExists(Paths.get(task.getFilePath()));
+        Files.deleteIfExists(Paths.get(task.getFilePath() + GZIP_SUFFIX));
+      } catch (IOException e) {
+        log.warn("Не удалось удалить файл логов {}: {}", task.getFilePath(), e.getMessage());
+      }
+    }
+  }
+
+  private long diskUsage() {
+    return tasks.values().stream()
+            .filter(task -> "COMPLETED".equals(task.getStatus()))
+            .mapToLong(task -> task.getFileSize() + task.getCompressedSize())
+            .sum();
   }
 
   public LogObject getStatus(Long taskId) {
@@ -99,6 +433,22 @@ public class LogService {
   }
 
   public ResponseEntity<Resource> downloadCreatedLogs(Long taskId) throws IOException {
+    return downloadCreatedLogs(taskId, false);
+  }
+
+  /**
+   * Отдаёт готовую выгрузку. Ответ содержит ETag и Last-Modified, поэтому повторный запрос
+   * с If-None-Match или If-Modified-Since получает 304, а запрос с Range — 206 с частью
+   * файла. Если клиент принимает gzip, отдаётся сжатая копия выгрузки, которая создаётся
+   * при первом таком запросе.
+   *
+   * @param taskId     ID задачи
+   * @param acceptGzip принимает ли клиент Content-Encoding: gzip
+   * @return файл выгрузки или 409, если она ещё не готова
+   * @throws IOException если файл не удалось прочитать или сжать
+   */
+  public ResponseEntity<Resource> downloadCreatedLogs(Long taskId, boolean acceptGzip)
+          throws IOException {
     LogObject logObject = getStatus(taskId);
     if (logObject == null) {
       throw new ResourceNotFoundException("Не найден log файл");
@@ -111,12 +461,70 @@ public class LogService {
     }
 
     Path path = Paths.get(logObject.getFilePath());
-    Resource resource = new UrlResource(path.toUri());
+    if (!Files.exists(path)) {
+      // Файл удалён извне: задача убирается, следующий запрос создаст выгрузку заново
+      synchronized (registryLock) {
+        remove(logObject);
+      }
+      throw new ResourceNotFoundException("Не найден log файл");
+    }
+    long size = Files.size(path);
+    long lastModified = Files.getLastModifiedTime(path).toMillis();
+    boolean gzip = acceptGzip && size >= MIN_GZIP_SIZE;
+    // Выгрузка не меняется после создания, поэтому ETag строится из её ID, размера и времени
+    String etag = "\"" + logObject.getId() + "-" + size + "-" + lastModified
+            + (gzip ? "-gzip" : "") + "\"";
+    Resource resource = new FileSystemResource(gzip ? compressed(logObject, path) : path);
 
-    return ResponseEntity.ok()
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
             .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .eTag(etag)
+            .lastModified(lastModified)
+            .varyBy(HttpHeaders.ACCEPT_ENCODING)
             .header(HttpHeaders.CONTENT_DISPOSITION,
-                    "attachment; filename=\"" + resource.getFilename() + "\"")
-            .body(resource);
+                    "attachment; filename=\"" + path.getFileName() + "\"");
+    if (gzip) {
+      response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+    }
+    return response.body(resource);
+  }
+
+  /**
+   * Возвращает сжатую копию выгрузки, создавая её при первом обращении. Копия сжимается
+   * вне registryLock, а публикуется под ним: если задачу успели удалить из реестра, копия
+   * удаляется, а иначе её размер учитывается в квоте так же, как при создании выгрузки.
+   */
+  private Path compressed(LogObject task, Path path) throws IOException {
+    Path gzip = path.resolveSibling(path.getFileName() + GZIP_SUFFIX);
+    synchronized (task) {
+      if (!Files.exists(gzip)) {
+        Path temp = path.resolveSibling(path.getFileName() + GZIP_SUFFIX + ".tmp");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp), 64 * 1024)) {
+          Files.copy(path, out);
+        } catch (IOException e) {
+          Files.deleteIfExists(temp);
+          throw e;
+        }
+        publish(task, temp, gzip);
+      }
+    }
+    return gzip;
+  }
+
+  private void publish(LogObject task, Path temp, Path gzip) throws IOException {
+    long size = Files.size(temp);
+    synchronized (registryLock) {
+      if (tasks.get(task.getId()) != task) {
+        // Задача удалена из реестра, пока копия сжималась
+        Files.deleteIfExists(temp);
+        throw new ResourceNotFoundException("Не найден log файл");
+      }
+      Files.move(temp, gzip, StandardCopyOption.REPLACE_EXISTING);
+      gzip.toFile().deleteOnExit();
+      task.setCompressedSize(size);
+      while (diskUsage() > diskQuota.toBytes() && evictOldest(task)) {
+        evictions.increment();
+      }
+    }
   }
 }
@@ -1,47 +1,102 @@
 package com.example.cinema.service;
 
 import com.example.cinema.cache.ShowtimeCache;
-import com.example.cinema.dto.HallDto;
+import com.example.cinema.cache.ShowtimeQueryCache;
 import com.example.cinema.dto.ShowtimeDto;
+import com.example.cinema.dto.ShowtimePageDto;
+import com.example.cinema.exception.ValidationException;
+import com.example.cinema.metrics.HeavyHitter;
+import com.example.cinema.metrics.PopularEntities;
 import com.example.cinema.model.Hall;
 import com.example.cinema.model.Showtime;
 import com.example.cinema.repository.HallRepository;
 import com.example.cinema.repository.ShowtimeRepository;
+import com.example.cinema.search.FilmTitleIndex;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
  * Service class for managing showtimes.
  * Provides methods to create, retrieve, and update showtime records.
+ * Writes reach the cache only once the transaction has committed: a saved showtime is cached
+ * under its generated ID after commit, and a rolled back write leaves no entry behind.
+ * Filter results are cached per hall in {@link ShowtimeQueryCache}, and every write
+ * invalidates the results it affects both immediately and after the transaction completes.
+ * Film titles are searched in the in-memory {@link FilmTitleIndex}, which is built at startup
+ * and updated after every committed write.
+ * Every showtime found by ID is counted in {@link PopularEntities}, and the most viewed
+ * showtimes can be loaded into the cache ahead of requests.
  */
 @Service
 public class ShowtimeService {
 
   private static final String SHOWTIME_NOT_FOUND = "Showtime not found";
   private static final String HALL_NOT_FOUND = "Hall not found";
+  private static final String INVALID_CURSOR = "Invalid cursor";
+  private static final String CURSOR_SEPARATOR = "|";
+  private static final int MAX_RANGE_DAYS = 31;
 
   private final ShowtimeRepository showtimeRepository;
   private final HallRepository hallRepository;
   private final ShowtimeCache showtimeCache;
+  private final ShowtimeQueryCache showtimeQueryCache;
+  private final FilmTitleIndex filmTitleIndex;
+  private final PopularEntities popularEntities;
 
 
   /**
-   * Constructs a ShowtimeService with the specified repositories and cache.
+   * Constructs a ShowtimeService with the specified repositories and caches.
    *
    * @param showtimeRepository the repository for managing showtimes
    * @param hallRepository the repository for managing halls
    * @param showtimeCache the cache for storing showtimes
+   * @param showtimeQueryCache the cache for storing filter results
+   * @param filmTitleIndex the index for searching film titles
+   * @param popularEntities the counter of showtime views
    */
   public ShowtimeService(ShowtimeRepository showtimeRepository,
                          HallRepository hallRepository,
-                         ShowtimeCache showtimeCache) {
+                         ShowtimeCache showtimeCache,
+                         ShowtimeQueryCache showtimeQueryCache,
+                         FilmTitleIndex filmTitleIndex,
+                         PopularEntities popularEntities) {
     this.showtimeRepository = showtimeRepository;
     this.hallRepository = hallRepository;
     this.showtimeCache = showtimeCache;
+    this.showtimeQueryCache = showtimeQueryCache;
+    this.filmTitleIndex = filmTitleIndex;
+    this.popularEntities = popularEntities;
+  }
+
+  /**
+   * Fills the film title index from the database once the application has started. The
+   * index is loaded off to the side and swapped in, so showtimes saved while it loads are
+   * not lost.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  @Transactional(readOnly = true)
+  public void buildFilmTitleIndex() {
+    filmTitleIndex.rebuild(index -> streamShowtimes(showtime -> index.put(
+            showtime.getId(), showtime.getFilmTitle(), showtime.getDateTime())));
   }
 
   /**
@@ -52,17 +107,22 @@ public class ShowtimeService {
    * @param dateTime the date and time of the showtime
    * @return the created Showtime object
    */
+  @Transactional
   public Showtime createShowtime(Long hallId, String filmTitle, LocalDateTime dateTime) {
     Hall hall = hallRepository.findById(hallId)
             .orElseThrow(() -> new RuntimeException(HALL_NOT_FOUND));
 
-    Showtime showtime = new Showtime(dateTime, filmTitle, hall);
-    showtimeCache.put(showtime.getId(), showtime);
-    return showtimeRepository.save(showtime);
+    Showtime savedShowtime = showtimeRepository.save(new Showtime(dateTime, filmTitle, hall));
+    invalidateQueriesAfterCommit(hallId, dateTime, filmTitle);
+    cacheAfterCommit(savedShowtime.getId(), savedShowtime);
+    indexAfterCommit(savedShowtime.getId(), filmTitle, dateTime);
+    return savedShowtime;
   }
 
   /**
-   * Retrieves a showtime by its ID, first checking the cache.
+   * Retrieves a showtime by its ID, first checking the cache, and counts the view.
+   * On a miss the loaded showtime is cached only if no update or delete of it reached the
+   * cache while it was being read, so a stale read never replaces a newer value.
    *
    * @param showtimeId the ID of the showtime to retrieve
    * @return the Showtime object
@@ -70,45 +130,135 @@ public class ShowtimeService {
   public Showtime getShowtimeById(Long showtimeId) {
     Showtime cachedShowtime = showtimeCache.get(showtimeId);
     if (cachedShowtime != null) {
+      popularEntities.recordShowtime(showtimeId);
       return cachedShowtime;
     }
 
+    long version = showtimeCache.version(showtimeId);
     Showtime showtime = showtimeRepository.findById(showtimeId)
             .orElseThrow(() -> new RuntimeException(SHOWTIME_NOT_FOUND));
 
-    showtimeCache.put(showtimeId, showtime);
+    showtimeCache.putIfUnchanged(showtimeId, showtime, version);
+    popularEntities.recordShowtime(showtimeId);
     return showtime;
   }
 
   /**
-   * Retrieves a list of all showtimes, first checking the cache.
+   * Loads the most viewed showtimes that are not cached yet into the cache, in one query.
+   * Like {@link #getShowtimeById(Long)}, a showtime updated meanwhile is not overwritten.
+   *
+   * @param limit the number of most viewed showtimes to consider
+   * @return the number of showtimes loaded
+   */
+  public int warmUpCache(int limit) {
+    List<Long> missing = new ArrayList<>();
+    Map<Long, Long> versions = new HashMap<>();
+    for (HeavyHitter hitter : popularEntities.topShowtimes(limit)) {
+      if (!showtimeCache.containsKey(hitter.getId())) {
+        missing.add(hitter.getId());
+        versions.put(hitter.getId(), showtimeCache.version(hitter.getId()));
+      }
+    }
+    if (missing.isEmpty()) {
+      return 0;
+    }
+    List<Showtime> showtimes = showtimeRepository.findAllById(missing);
+    for (Showtime showtime : showtimes) {
+      showtimeCache.putIfUnchanged(showtime.getId(), showtime, versions.get(showtime.getId()));
+    }
+    return showtimes.size();
+  }
+
+  /**
+   * Retrieves a list of all showtimes with their halls.
+   * Showtime and hall columns are read in a single join straight into DTOs,
+   * so no entities are loaded and no query is issued per hall.
    *
    * @return a list of all showtime records
    */
   public List<ShowtimeDto> getAllShowtimes() {
-    return showtimeRepository.findAll().stream()
-            .map(this::convertToDto)
-            .collect(Collectors.toList());
+    return showtimeRepository.findAllShowtimeDtos();
   }
 
-  private ShowtimeDto convertToDto(Showtime showtime) {
-    Hall hall = showtime.getHall();
-    HallDto hallDto = convertHallToDto(hall);
+  /**
+   * Retrieves one page of showtimes ordered by date and ID, showtimes without a date last.
+   * The cursor is the {@code nextCursor} of the previous page; each page is found by seeking
+   * past the cursor's date and ID, so deep pages cost as little as the first one. The cursor
+   * of an undated showtime carries an empty date.
+   *
+   * @param cursor the cursor returned with the previous page, or {@code null} for the first
+   * @param size the maximum number of showtimes on the page
+   * @return the page with the cursor of the next one, {@code null} on the last page
+   */
+  public ShowtimePageDto getShowtimePage(String cursor, int size) {
+    PageRequest limit = PageRequest.ofSize(size + 1);
+    List<ShowtimeDto> showtimes;
+    if (cursor == null || cursor.isEmpty()) {
+      showtimes = showtimeRepository.findFirstPage(limit);
+    } else {
+      String[] position = decodeCursor(cursor);
+      Long id = parseCursorId(position[1]);
+      showtimes = position[0].isEmpty()
+              ? showtimeRepository.findUndatedPageAfter(id, limit)
+              : showtimeRepository.findPageAfter(parseCursorDateTime(position[0]), id, limit);
+    }
 
-    return new ShowtimeDto(
-            showtime.getId(),
-            showtime.getDateTime(),
-            showtime.getFilmTitle(),
-            hallDto
-    );
+    if (showtimes.size() <= size) {
+      return new ShowtimePageDto(showtimes, null);
+    }
+    List<ShowtimeDto> content = showtimes.subList(0, size);
+    return new ShowtimePageDto(content, encodeCursor(content.get(size - 1)));
   }
 
-  private HallDto convertHallToDto(Hall hall) {
-    return new HallDto(
-            hall.getId(),
-            hall.getName(),
-            hall.getCapacity()
-    );
+  /**
+   * Passes every showtime, ordered by date and ID with undated ones last, to the consumer as
+   * rows arrive from the database, so memory use does not depend on the number of showtimes.
+   *
+   * @param consumer receives the showtimes one by one
+   */
+  @Transactional(readOnly = true)
+  public void streamShowtimes(Consumer<ShowtimeDto> consumer) {
+    try (Stream<ShowtimeDto> showtimes = showtimeRepository.streamAll()) {
+      showtimes.forEach(consumer);
+    }
+  }
+
+  private static String encodeCursor(ShowtimeDto showtime) {
+    LocalDateTime dateTime = showtime.getDateTime();
+    String position = (dateTime == null ? "" : dateTime.toString())
+            + CURSOR_SEPARATOR + showtime.getId();
+    return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(position.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String[] decodeCursor(String cursor) {
+    String position;
+    try {
+      position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    } catch (IllegalArgumentException e) {
+      throw new ValidationException(INVALID_CURSOR);
+    }
+    int separator = position.indexOf(CURSOR_SEPARATOR);
+    if (separator < 0) {
+      throw new ValidationException(INVALID_CURSOR);
+    }
+    return new String[] {position.substring(0, separator), position.substring(separator + 1)};
+  }
+
+  private static LocalDateTime parseCursorDateTime(String value) {
+    try {
+      return LocalDateTime.parse(value);
+    } catch (DateTimeParseException e) {
+      throw new ValidationException(INVALID_CURSOR);
+    }
+  }
+
+  private static Long parseCursorId(String value) {
+    try {
+      return Long.valueOf(value);
+    } catch (NumberFormatException e) {
+      throw new ValidationException(INVALID_CURSOR);
+    }
   }
 
   /**
@@ -118,6 +268,7 @@ public class ShowtimeService {
    * @param updatedShowtime the new showtime details
    * @return the updated Showtime object
    */
+  @Transactional
   public Showtime updateShowtime(Long showtimeId, Showtime updatedShowtime) {
     Showtime existingShowtime = showtimeRepository.findById(showtimeId)
             .orElseThrow(() -> new RuntimeException(SHOWTIME_NOT_FOUND));
@@ -125,12 +276,18 @@ public class ShowtimeService {
     Hall hall = hallRepository.findById(updatedShowtime.getHall().getId())
             .orElseThrow(() -> new RuntimeException(HALL_NOT_FOUND));
 
+    invalidateQueriesAfterCommit(existingShowtime.getHall().getId(),
+            existingShowtime.getDateTime(), existingShowtime.getFilmTitle());
+    invalidateQueriesAfterCommit(hall.getId(),
+            updatedShowtime.getDateTime(), updatedShowtime.getFilmTitle());
     existingShowtime.setFilmTitle(updatedShowtime.getFilmTitle());
     existingShowtime.setDateTime(updatedShowtime.getDateTime());
     existingShowtime.setHall(hall);
 
-    showtimeCache.put(existingShowtime.getId(), existingShowtime);
-    return showtimeRepository.save(existingShowtime);
+    Showtime savedShowtime = showtimeRepository.save(existingShowtime);
+    cacheAfterCommit(showtimeId, savedShowtime);
+    indexAfterCommit(showtimeId, updatedShowtime.getFilmTitle(), updatedShowtime.getDateTime());
+    return savedShowtime;
   }
 
   /**
@@ -138,33 +295,193 @@ public class ShowtimeService {
    *
    * @param showtimeId the ID of the showtime to delete
    */
+  @Transactional
   public void deleteShowtime(Long showtimeId) {
     Showtime showtime = showtimeRepository.findById(showtimeId)
             .orElseThrow(() -> new RuntimeException(SHOWTIME_NOT_FOUND));
 
     showtimeRepository.delete(showtime);
+    invalidateQueriesAfterCommit(showtime.getHall().getId(),
+            showtime.getDateTime(), showtime.getFilmTitle());
+    evictAfterCommit(showtimeId);
+    runAfterCommit(() -> filmTitleIndex.remove(showtimeId));
+  }
+
+  /**
+   * Caches a saved showtime once the surrounding transaction commits.
+   * Until then the old entry is evicted so that nobody reads it while the write is pending;
+   * on rollback the entry is evicted again, dropping anything cached in the meantime.
+   * Without an active transaction the showtime is cached immediately.
+   *
+   * @param showtimeId the ID of the showtime
+   * @param showtime   the persisted showtime
+   */
+  private void cacheAfterCommit(Long showtimeId, Showtime showtime) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      showtimeCache.put(showtimeId, showtime);
+      return;
+    }
+    showtimeCache.remove(showtimeId);
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCompletion(int status) {
+        if (status == STATUS_COMMITTED) {
+          showtimeCache.put(showtimeId, showtime);
+        } else {
+          showtimeCache.remove(showtimeId);
+        }
+      }
+    });
+  }
+
+  /**
+   * Evicts a showtime now and, if a transaction is active, once more after it completes,
+   * so a value read by a concurrent request before the commit does not survive it.
+   *
+   * @param showtimeId the ID of the showtime to evict
+   */
+  private void evictAfterCommit(Long showtimeId) {
     showtimeCache.remove(showtimeId);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          showtimeCache.remove(showtimeId);
+        }
+      });
+    }
+  }
+
+  /**
+   * Updates the film title index once the transaction commits.
+   *
+   * @param showtimeId the ID of the showtime
+   * @param filmTitle the committed film title
+   * @param dateTime the committed date and time
+   */
+  private void indexAfterCommit(Long showtimeId, String filmTitle, LocalDateTime dateTime) {
+    runAfterCommit(() -> filmTitleIndex.put(showtimeId, filmTitle, dateTime));
+  }
+
+  /**
+   * Runs the action after the current transaction commits, or at once without a transaction.
+   * Nothing runs if the transaction rolls back.
+   *
+   * @param action the action to run
+   */
+  private void runAfterCommit(Runnable action) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      action.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        action.run();
+      }
+    });
   }
 
   /**
-   * Filters showtimes by film title in a specific hall.
+   * Invalidates the cached filter results a showtime affects, now and, if a transaction is
+   * active, once more after it completes, so results read before the commit are dropped too.
+   *
+   * @param hallId the ID of the showtime's hall
+   * @param dateTime the date and time of the showtime
+   * @param filmTitle the film title of the showtime
+   */
+  private void invalidateQueriesAfterCommit(Long hallId, LocalDateTime dateTime,
+                                            String filmTitle) {
+    showtimeQueryCache.invalidate(hallId, dateTime, filmTitle);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          showtimeQueryCache.invalidate(hallId, dateTime, filmTitle);
+        }
+      });
+    }
+  }
+
+  /**
+   * Filters showtimes by film title in a specific hall, first checking the query cache.
    *
    * @param hallId the ID of the hall
    * @param filmTitle the title of the film
    * @return a list of showtimes matching the given criteria
    */
   public List<Showtime> filterByTitle(Long hallId, String filmTitle) {
-    return showtimeRepository.findByHallIdAndFilmTitleContainingIgnoreCase(hallId, filmTitle);
+    Optional<List<Showtime>> cachedShowtimes = showtimeQueryCache.getByTitle(hallId, filmTitle);
+    if (cachedShowtimes.isPresent()) {
+      return cachedShowtimes.get();
+    }
+
+    long version = showtimeQueryCache.version(hallId);
+    List<Showtime> showtimes =
+            showtimeRepository.findByHallIdAndFilmTitleContainingIgnoreCase(hallId, filmTitle);
+    showtimeQueryCache.putByTitle(hallId, filmTitle, version, showtimes);
+    return showtimes;
   }
 
   /**
-   * Filters showtimes by a specific date in a specific hall.
+   * Filters showtimes by a specific date in a specific hall, first checking the query cache.
    *
    * @param hallId the ID of the hall
    * @param date the date to filter by
    * @return a list of showtimes for the given date
    */
   public List<Showtime> filterByDate(Long hallId, LocalDate date) {
-    return showtimeRepository.findByHallIdAndDate(hallId, date);
+    Optional<List<Showtime>> cachedShowtimes = showtimeQueryCache.getByDate(hallId, date);
+    if (cachedShowtimes.isPresent()) {
+      return cachedShowtimes.get();
+    }
+
+    long version = showtimeQueryCache.version(hallId);
+    List<Showtime> showtimes = showtimeRepository.findByHallIdAndDate(hallId, date);
+    showtimeQueryCache.putByDate(hallId, date, version, showtimes);
+    return showtimes;
+  }
+
+  /**
+   * Filters showtimes in a specific hall over several days. The range spans at most
+   * {@value #MAX_RANGE_DAYS} days; longer periods are read page by page.
+   *
+   * @param hallId the ID of the hall
+   * @param from the first day, inclusive
+   * @param to the last day, inclusive
+   * @return the showtimes of the given days ordered by date and time
+   */
+  public List<Showtime> filterByDateRange(Long hallId, LocalDate from, LocalDate to) {
+    if (to.isBefore(from)) {
+      throw new ValidationException("The end of the range must not precede its start");
+    }
+    if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+      throw new ValidationException("The range must not exceed " + MAX_RANGE_DAYS
+              + " days; use /api/showtimes/page for longer periods");
+    }
+    return showtimeRepository.findByHallIdAndDateTimeRange(
+            hallId, from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+  }
+
+  /**
+   * Searches film titles containing the text, across all halls.
+   *
+   * @param query the text to search for, in any case
+   * @param limit the maximum number of titles
+   * @return distinct titles, those with the most upcoming sessions first
+   */
+  public List<String> searchFilmTitles(String query, int limit) {
+    return filmTitleIndex.search(query, limit, LocalDateTime.now());
+  }
+
+  /**
+   * Suggests film titles whose title or one of its words starts with the prefix.
+   *
+   * @param prefix the typed beginning of the title, in any case
+   * @param limit the maximum number of titles
+   * @return distinct titles, those with the most upcoming sessions first
+   */
+  public List<String> suggestFilmTitles(String prefix, int limit) {
+    return filmTitleIndex.suggest(prefix, limit, LocalDateTime.now());
   }
-}
\ No newline at end of file
+}
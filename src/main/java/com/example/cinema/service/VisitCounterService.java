@@ -1,19 +1,141 @@
 package com.example.cinema.service;
 
-import java.util.concurrent.atomic.AtomicLong;
+import com.example.cinema.metrics.RequestCounters;
+import com.example.cinema.metrics.VisitCount;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+import java.util.function.LongSupplier;
 import org.springframework.stereotype.Service;
 
+/**
+ * Считает посещения: просмотры списка залов и вызовы методов контроллеров по методу и
+ * статусу ответа, с числом вызовов за последнюю минуту, пять минут и час. Счётчики
+ * распределены по ячейкам ({@link LongAdder}), поэтому потоки запросов не соревнуются
+ * за одну переменную.
+ *
+ * <p>Счётчики в памяти считают вызовы с запуска. Итоги, накопленные этим экземпляром до
+ * перезапуска, и итоги других экземпляров загружает {@link VisitCounterStore} и прибавляет
+ * к ним при чтении; окна за минуту, пять минут и час относятся только к этому экземпляру.
+ */
 @Service
 public class VisitCounterService {
 
-  private final AtomicLong counter = new AtomicLong(0);
+  /**
+   * Метод, под которым хранится счётчик просмотров списка залов.
+   */
+  static final String HALL_VISITS = "HallService.getAllHalls";
+  /**
+   * Статус счётчика просмотров списка залов, не совпадающий со статусом ответа.
+   */
+  static final int HALL_VISITS_STATUS = 0;
+
+  private static final Duration BUCKET = Duration.ofSeconds(10);
+
+  private final LongAdder counter = new LongAdder();
+  private final RequestCounters requests;
+  private volatile Map<String, Map<Integer, Long>> restored = Map.of();
+  private volatile Map<String, Map<Integer, Long>> remote = Map.of();
+
+  public VisitCounterService() {
+    this(System::nanoTime);
+  }
+
+  VisitCounterService(LongSupplier ticker) {
+    this.requests = new RequestCounters(BUCKET, ticker);
+  }
 
   public void increment() {
-    counter.incrementAndGet();
+    counter.increment();
   }
 
   public Long getCounter() {
 
-    return counter.get();
+    return counter.sum() + total(restored, HALL_VISITS, HALL_VISITS_STATUS)
+            + total(remote, HALL_VISITS, HALL_VISITS_STATUS);
+  }
+
+  /**
+   * Возвращает счётчик вызовов метода контроллера, принимающий статус ответа.
+   *
+   * @param endpoint сигнатура метода
+   * @return счётчик вызовов
+   */
+  public IntConsumer recorder(String endpoint) {
+    return requests.recorder(endpoint);
+  }
+
+  /**
+   * Возвращает число вызовов методов контроллеров. Итоги включают вызовы до перезапуска и
+   * вызовы других экземпляров на момент последней синхронизации.
+   *
+   * @param endpoint сигнатура метода или {@code null} для всех методов
+   * @return число вызовов по методам и статусам ответа
+   */
+  public Map<String, Map<Integer, VisitCount>> getEndpointCounts(String endpoint) {
+    Map<String, Map<Integer, VisitCount>> counts = requests.snapshot();
+    addTotals(counts, restored);
+    addTotals(counts, remote);
+    if (endpoint != null) {
+      counts.keySet().retainAll(Set.of(endpoint));
+    }
+    return counts;
+  }
+
+  /**
+   * Возвращает итоги этого экземпляра, включая загруженные после перезапуска.
+   *
+   * @return итоги по методам и статусам ответа
+   */
+  Map<String, Map<Integer, Long>> getLocalTotals() {
+    Map<String, Map<Integer, Long>> totals = requests.totals();
+    totals.computeIfAbsent(HALL_VISITS, name -> new TreeMap<>())
+            .merge(HALL_VISITS_STATUS, counter.sum(), Long::sum);
+    restored.forEach((name, statuses) -> statuses.forEach((status, total) ->
+            totals.computeIfAbsent(name, key -> new TreeMap<>()).merge(status, total, Long::sum)));
+    return totals;
+  }
+
+  /**
+   * Задаёт итоги, накопленные этим экземпляром до перезапуска.
+   *
+   * @param totals итоги по методам и статусам ответа
+   */
+  void restore(Map<String, Map<Integer, Long>> totals) {
+    this.restored = totals;
+  }
+
+  /**
+   * Задаёт итоги других экземпляров.
+   *
+   * @param totals итоги по методам и статусам ответа
+   */
+  void setRemoteTotals(Map<String, Map<Integer, Long>> totals) {
+    this.remote = totals;
+  }
+
+  private static void addTotals(Map<String, Map<Integer, VisitCount>> counts,
+                                Map<String, Map<Integer, Long>> totals) {
+    totals.forEach((name, statuses) -> {
+      if (HALL_VISITS.equals(name)) {
+        return;
+      }
+      Map<Integer, VisitCount> endpoint = counts.computeIfAbsent(name, key -> new TreeMap<>());
+      statuses.forEach((status, total) -> {
+        VisitCount count = endpoint.get(status);
+        endpoint.put(status, count == null ? new VisitCount(total, 0, 0, 0, 0, 0, 0)
+                : new VisitCount(count.getTotal() + total, count.getLastMinute(),
+                count.getLastFiveMinutes(), count.getLastHour(), count.getMinuteRate(),
+                count.getFiveMinuteRate(), count.getHourRate()));
+      });
+    });
+  }
+
+  private static long total(Map<String, Map<Integer, Long>> totals, String endpoint,
+                            int status) {
+    return totals.getOrDefault(endpoint, Map.of()).getOrDefault(status, 0L);
   }
 }
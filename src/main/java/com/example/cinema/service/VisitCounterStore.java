@@ -0,0 +1,128 @@
+package com.example.cinema.service;
+
+import com.example.cinema.model.VisitCounter;
+import com.example.cinema.repository.VisitCounterRepository;
+import jakarta.annotation.PreDestroy;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Сохраняет счётчики посещений в базе данных, чтобы они переживали перезапуск. Запросы
+ * только увеличивают счётчики в памяти ({@link VisitCounterService}), а итоги записываются
+ * фоновой задачей через заданный интервал, одной транзакцией и только изменившиеся.
+ *
+ * <p>Каждый экземпляр приложения пишет свои строки с полными итогами, а не приращениями:
+ * повторная запись безопасна, а сбой посреди записи откатывает транзакцию и оставляет
+ * предыдущую контрольную точку, поэтому теряются не более чем вызовы за один интервал.
+ * При запуске экземпляр загружает свои итоги и продолжает счёт с них, а итоги других
+ * экземпляров читает при каждой записи и прибавляет к своим при чтении счётчиков.
+ * Идентификатор экземпляра должен быть уникальным среди работающих экземпляров и
+ * сохраняться между перезапусками.
+ */
+@Slf4j
+@Service
+public class VisitCounterStore {
+
+  private final VisitCounterRepository repository;
+  private final VisitCounterService visits;
+  private final String instance;
+  // Итоги, записанные в базу, по идентификатору строки
+  private final Map<String, Long> written = new HashMap<>();
+  private Clock clock = Clock.systemDefaultZone();
+  private boolean restored;
+
+  public VisitCounterStore(VisitCounterRepository repository, VisitCounterService visits,
+                           @Value("${visits.instance-id:}") String instance,
+                           @Value("${server.port:8080}") int port) {
+    this.repository = repository;
+    this.visits = visits;
+    this.instance = instance.isBlank() ? hostName() + ":" + port : instance;
+  }
+
+  void setClock(Clock clock) {
+    this.clock = clock;
+  }
+
+  /**
+   * Загружает итоги после запуска, если они ещё не загружены, записывает изменившиеся итоги
+   * этого экземпляра и читает итоги остальных. Пока итоги не загружены, ничего не
+   * записывается, чтобы не затереть сохранённые значения меньшими.
+   */
+  @Scheduled(fixedDelayString = "${visits.flush-interval:PT30S}")
+  public synchronized void flush() {
+    try {
+      if (!restored) {
+        restore();
+      }
+      save();
+      visits.setRemoteTotals(totals(repository.findByInstanceNot(instance)));
+    } catch (DataAccessException e) {
+      log.warn("Не удалось сохранить счётчики посещений: {}", e.getMessage());
+    }
+  }
+
+  @PreDestroy
+  void close() {
+    flush();
+  }
+
+  private void restore() {
+    List<VisitCounter> rows = repository.findByInstance(instance);
+    for (VisitCounter row : rows) {
+      written.put(row.getId(), row.getVisits());
+    }
+    visits.restore(totals(rows));
+    restored = true;
+    log.info("Загружены счётчики посещений экземпляра {}: {} строк", instance, rows.size());
+  }
+
+  private void save() {
+    LocalDateTime now = LocalDateTime.now(clock);
+    List<VisitCounter> changed = new ArrayList<>();
+    visits.getLocalTotals().forEach((endpoint, statuses) -> statuses.forEach((status, total) -> {
+      Long previous = written.get(VisitCounter.id(instance, endpoint, status));
+      if (!total.equals(previous)) {
+        VisitCounter row = new VisitCounter(instance, endpoint, status, total, now);
+        // Строки, которых ещё нет в базе, вставляются без предварительного чтения
+        row.setNew(previous == null);
+        changed.add(row);
+      }
+    }));
+    if (changed.isEmpty()) {
+      return;
+    }
+    repository.saveAll(changed);
+    for (VisitCounter row : changed) {
+      written.put(row.getId(), row.getVisits());
+    }
+  }
+
+  private static Map<String, Map<Integer, Long>> totals(List<VisitCounter> rows) {
+    Map<String, Map<Integer, Long>> totals = new TreeMap<>();
+    for (VisitCounter row : rows) {
+      totals.computeIfAbsent(row.getEndpoint(), name -> new TreeMap<>())
+              .merge(row.getStatus(), row.getVisits(), Long::sum);
+    }
+    return totals;
+  }
+
+  private static String hostName() {
+    try {
+      return InetAddress.getLocalHost().getHostName();
+    } catch (UnknownHostException e) {
+      return "localhost";
+    }
+  }
+}
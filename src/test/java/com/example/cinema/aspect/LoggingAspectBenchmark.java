@@ -0,0 +1,206 @@
+package com.example.cinema.aspect;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.FileAppender;
+import com.example.cinema.controller.ShowtimeController;
+import com.example.cinema.dto.HallDto;
+import com.example.cinema.dto.ShowtimeDto;
+import com.example.cinema.metrics.EndpointLatencies;
+import com.example.cinema.service.ShowtimeService;
+import com.example.cinema.service.VisitCounterService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.AfterThrowing;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Before;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Measures the latency distribution of {@code GET /api/showtimes} at the controller, without
+ * the aspect, with the previous aspect that logged {@code result.toString()} synchronously and
+ * with the current asynchronous aspect. The log is written to a file with the application's
+ * pattern. Sample mode reports the p99 of each variant.
+ *
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.example.cinema.aspect.LoggingAspectBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class LoggingAspectBenchmark {
+
+  @Param({"OFF", "SYNC_TO_STRING", "ASYNC_SUMMARY"})
+  private String aspect;
+
+  @Param({"200"})
+  private int showtimes;
+
+  private ShowtimeController controller;
+  private LoggingAspect loggingAspect;
+  private FileAppender<ILoggingEvent> appender;
+  private Path logFile;
+
+  /**
+   * Writes the aspect's logger to a temporary file and builds the controller proxy.
+   */
+  @Setup
+  public void setUp() throws IOException {
+    logFile = Files.createTempFile("aspect-benchmark", ".log");
+    LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+    PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+    encoder.setContext(context);
+    encoder.setPattern("%d{dd-MM-yyyy HH:mm:ss} [%level] - %msg%n");
+    encoder.start();
+    appender = new FileAppender<>();
+    appender.setContext(context);
+    appender.setFile(logFile.toString());
+    appender.setEncoder(encoder);
+    appender.start();
+    Logger logger = (Logger) LoggerFactory.getLogger(LoggingAspect.class);
+    logger.detachAndStopAllAppenders();
+    logger.addAppender(appender);
+    logger.setAdditive(false);
+    logger.setLevel(Level.INFO);
+
+    ShowtimeController target = new ShowtimeController(new FixedShowtimeService(showtimes),
+            new ObjectMapper());
+    switch (aspect) {
+      case "SYNC_TO_STRING":
+        controller = proxy(target, new ToStringLoggingAspect());
+        break;
+      case "ASYNC_SUMMARY":
+        loggingAspect = new LoggingAspect(8192, 200, 1.0, "",
+                new EndpointLatencies(Duration.ofMinutes(1), 6, new SimpleMeterRegistry()),
+                new VisitCounterService());
+        controller = proxy(target, loggingAspect);
+        break;
+      default:
+        controller = target;
+        break;
+    }
+  }
+
+  /**
+   * Stops the aspect's writer and deletes the log.
+   */
+  @TearDown
+  public void tearDown() throws IOException {
+    if (loggingAspect != null) {
+      System.out.println("Dropped events: " + loggingAspect.getDroppedEvents());
+      loggingAspect.shutdown();
+    }
+    appender.stop();
+    Files.deleteIfExists(logFile);
+  }
+
+  @Benchmark
+  public ResponseEntity<List<ShowtimeDto>> getAllShowtimes() {
+    return controller.getAllShowtimes();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+            .include(LoggingAspectBenchmark.class.getSimpleName())
+            .build()).run();
+  }
+
+  private static ShowtimeController proxy(ShowtimeController target, Object aspect) {
+    AspectJProxyFactory factory = new AspectJProxyFactory(target);
+    factory.setProxyTargetClass(true);
+    factory.addAspect(aspect);
+    return factory.getProxy();
+  }
+
+  /**
+   * Returns the same list of showtimes without a database.
+   */
+  private static final class FixedShowtimeService extends ShowtimeService {
+    private final List<ShowtimeDto> showtimes = new ArrayList<>();
+
+    FixedShowtimeService(int count) {
+      super(null, null, null, null, null, null);
+      LocalDateTime start = LocalDateTime.of(2025, 5, 20, 10, 0);
+      for (long id = 0; id < count; id++) {
+        showtimes.add(new ShowtimeDto(id, start.plusMinutes(id * 15), "Film " + id,
+                new HallDto(id % 10, "Hall " + id % 10, 120)));
+      }
+    }
+
+    @Override
+    public List<ShowtimeDto> getAllShowtimes() {
+      return showtimes;
+    }
+  }
+
+  /**
+   * The previous {@link LoggingAspect}, kept here as the comparison baseline.
+   */
+  @Aspect
+  public static class ToStringLoggingAspect {
+    private static final org.slf4j.Logger logger = LoggerFactory.getLogger(LoggingAspect.class);
+
+    @Before("execution(* com.example.cinema.controller.*.*(..))")
+    public void logBefore(JoinPoint joinPoint) {
+      if (logger.isInfoEnabled()) {
+        logger.info("Выполнение метода: {}", joinPoint.getSignature().toShortString());
+      }
+    }
+
+    @AfterReturning(
+            pointcut = "execution(* com.example.cinema.controller.*.*(..))",
+            returning = "result")
+    public void logAfterReturning(JoinPoint joinPoint, Object result) {
+      if (logger.isInfoEnabled()) {
+        logger.info("Метод {} успешно выполнен. Результат: {}",
+                joinPoint.getSignature().toShortString(),
+                result != null ? result.toString() : "null");
+      }
+    }
+
+    @AfterThrowing(
+            pointcut = "execution(* com.example.cinema.controller.*.*(..))",
+            throwing = "error")
+    public void logAfterThrowing(JoinPoint joinPoint, Throwable error) {
+      if (logger.isErrorEnabled()) {
+        logger.error("Ошибка в методе: {}. Сообщение: {}",
+                joinPoint.getSignature().toShortString(), error.getMessage());
+      }
+    }
+  }
+}
@@ -0,0 +1,160 @@
+package com.example.cinema.aspect;
+
+import com.example.cinema.controller.HallController;
+import com.example.cinema.exception.ResourceNotFoundException;
+import com.example.cinema.exception.ValidationException;
+import com.example.cinema.metrics.EndpointLatencies;
+import com.example.cinema.metrics.LatencySnapshot;
+import com.example.cinema.metrics.VisitCount;
+import com.example.cinema.service.HallService;
+import com.example.cinema.service.VisitCounterService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.slf4j.Logger;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class LoggingAspectTest {
+
+  @Test
+  void summarize_describesResultsWithoutToString() {
+    List<String> list = new ArrayList<>(List.of("a", "b", "c"));
+
+    assertEquals("null", PayloadSummary.summarize(null, 10));
+    assertEquals("ArrayList(size=3)", PayloadSummary.summarize(list, 10));
+    assertEquals("ResponseEntity<200, ArrayList(size=3)>",
+            PayloadSummary.summarize(ResponseEntity.ok(list), 10));
+    assertEquals("ResponseEntity<404, null>",
+            PayloadSummary.summarize(ResponseEntity.notFound().build(), 10));
+    assertEquals("int[2]", PayloadSummary.summarize(new int[2], 10));
+    assertEquals("2025-05-20", PayloadSummary.summarize(LocalDate.of(2025, 5, 20), 10));
+    assertEquals("abcde...(12 chars)", PayloadSummary.summarize("abcdefghijkl", 5));
+    assertEquals("Object", PayloadSummary.summarize(new Object(), 10));
+  }
+
+  @Test
+  void parseSampleRates_readsEndpointRates() {
+    assertEquals(Map.of("ShowtimeController.getAllShowtimes", 0.1, "HallController.getAll", 0.0),
+            LoggingAspect.parseSampleRates(
+                    "ShowtimeController.getAllShowtimes=0.1, HallController.getAll=0"));
+    assertTrue(LoggingAspect.parseSampleRates("").isEmpty());
+  }
+
+  @Test
+  void asyncRequestLog_writesEventsInOrderAndDrainsOnClose() {
+    Logger logger = mock(Logger.class);
+    AsyncRequestLog requestLog = new AsyncRequestLog(logger, 128);
+
+    for (int i = 0; i < 100; i++) {
+      requestLog.offer(AsyncRequestLog.Kind.CALLED, "A.m" + i + "()", null);
+    }
+    requestLog.offer(AsyncRequestLog.Kind.RETURNED, "A.last()", "ArrayList(size=1)");
+    requestLog.offer(AsyncRequestLog.Kind.FAILED, "A.fail()", "boom");
+    requestLog.close();
+
+    assertEquals(0, requestLog.getDropped());
+    InOrder order = inOrder(logger);
+    order.verify(logger).info("Выполнение метода: {}", "A.m0()");
+    order.verify(logger).info("Выполнение метода: {}", "A.m99()");
+    order.verify(logger).info("Метод {} успешно выполнен. Результат: {}", "A.last()",
+            "ArrayList(size=1)");
+    order.verify(logger).error("Ошибка в методе: {}. Сообщение: {}", "A.fail()", "boom");
+    verify(logger, times(100)).info(eq("Выполнение метода: {}"), anyString());
+  }
+
+  @Test
+  void asyncRequestLog_fullRing_dropsInsteadOfWaiting() throws InterruptedException {
+    Logger logger = mock(Logger.class);
+    CountDownLatch writing = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      writing.countDown();
+      release.await();
+      return null;
+    }).when(logger).info(eq("Выполнение метода: {}"), eq("A.first()"));
+    AsyncRequestLog requestLog = new AsyncRequestLog(logger, 4);
+
+    requestLog.offer(AsyncRequestLog.Kind.CALLED, "A.first()", null);
+    assertTrue(writing.await(5, TimeUnit.SECONDS));
+    for (int i = 0; i < 4; i++) {
+      assertTrue(requestLog.offer(AsyncRequestLog.Kind.CALLED, "A.queued()", null));
+    }
+    boolean accepted = requestLog.offer(AsyncRequestLog.Kind.CALLED, "A.dropped()", null);
+    boolean failureQueued = requestLog.offer(AsyncRequestLog.Kind.FAILED, "A.fail()", "boom");
+    // Ошибка записана потоком вызывающего, пока фоновый поток ещё занят
+    verify(logger).error("Ошибка в методе: {}. Сообщение: {}", "A.fail()", "boom");
+    release.countDown();
+    requestLog.close();
+
+    assertFalse(accepted);
+    assertFalse(failureQueued);
+    assertEquals(1, requestLog.getDropped());
+    verify(logger, times(4)).info("Выполнение метода: {}", "A.queued()");
+    verify(logger, never()).info("Выполнение метода: {}", "A.dropped()");
+  }
+
+  @Test
+  void asyncRequestLog_appenderFailure_isCountedAndNextEventsWritten() {
+    Logger logger = mock(Logger.class);
+    doThrow(new IllegalStateException("disk full"))
+            .when(logger).info("Выполнение метода: {}", "A.broken()");
+    AsyncRequestLog requestLog = new AsyncRequestLog(logger, 8);
+
+    requestLog.offer(AsyncRequestLog.Kind.CALLED, "A.broken()", null);
+    requestLog.offer(AsyncRequestLog.Kind.CALLED, "A.next()", null);
+    requestLog.close();
+
+    assertEquals(1, requestLog.getFailedWrites());
+    verify(logger).info("Выполнение метода: {}", "A.next()");
+  }
+
+  @Test
+  void logAround_recordsLatencyAndStatusOfSuccessfulAndFailedCalls() {
+    HallService hallService = mock(HallService.class);
+    when(hallService.getAllHalls()).thenReturn(List.of());
+    when(hallService.getHallById(1L)).thenReturn(Optional.empty());
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    EndpointLatencies latencies = new EndpointLatencies(Duration.ofMinutes(1), 6, registry);
+    VisitCounterService visits = new VisitCounterService();
+    LoggingAspect aspect = new LoggingAspect(64, 200, 1.0, "", latencies, visits);
+    AspectJProxyFactory factory = new AspectJProxyFactory(new HallController(hallService));
+    factory.setProxyTargetClass(true);
+    factory.addAspect(aspect);
+    HallController controller = factory.getProxy();
+
+    controller.getAllHalls();
+    controller.getAllHalls();
+    assertThrows(ResourceNotFoundException.class, () -> controller.getHallById(1L));
+    aspect.shutdown();
+
+    Map<String, LatencySnapshot> snapshot = latencies.snapshot();
+    assertEquals(2, snapshot.get("HallController.getAllHalls()").getCount());
+    assertEquals(1, snapshot.get("HallController.getHallById(..)").getCount());
+    assertEquals(2, registry.get(EndpointLatencies.TIMER)
+            .tag("endpoint", "HallController.getAllHalls()").timer().count());
+    Map<String, Map<Integer, VisitCount>> counts = visits.getEndpointCounts(null);
+    assertEquals(2, counts.get("HallController.getAllHalls()").get(200).getLastMinute());
+    assertEquals(1, counts.get("HallController.getHallById(..)").get(404).getTotal());
+  }
+
+  @Test
+  void status_followsExceptionStatus() {
+    assertEquals(404, LoggingAspect.status(new ResourceNotFoundException("нет")));
+    assertEquals(400, LoggingAspect.status(new ValidationException("неверно")));
+    assertEquals(500, LoggingAspect.status(new IllegalStateException()));
+  }
+}
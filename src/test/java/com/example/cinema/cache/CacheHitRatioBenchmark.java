@@ -0,0 +1,119 @@
+package com.example.cinema.cache;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Replays an access trace through {@link ConcurrentLfuCache} in every {@link EvictionMode}
+ * and prints the hit ratio per capacity.
+ *
+ * <p>The trace is either a file given as the first argument (one showtime ID per line, or a
+ * {@code cinema.log} whose cache lines contain {@code ID: <n>}) or, by default, a synthetic
+ * schedule: every day a fresh set of showtimes is requested with Zipf-distributed popularity
+ * and the previous day's showtimes are never requested again.
+ *
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.example.cinema.cache.CacheHitRatioBenchmark [-Dexec.args=trace.log]}.
+ */
+public final class CacheHitRatioBenchmark {
+
+  private static final Pattern ID_PATTERN = Pattern.compile("ID: (\\d+)");
+  private static final int[] CAPACITIES = {100, 500, 1_000, 5_000};
+
+  private CacheHitRatioBenchmark() {
+  }
+
+  private static final class TraceCache extends ConcurrentLfuCache<Long> {
+    TraceCache(int capacity, EvictionMode mode) {
+      super(capacity, mode);
+    }
+  }
+
+  public static void main(String[] args) throws IOException {
+    ((Logger) LoggerFactory.getLogger(ConcurrentLfuCache.class)).setLevel(Level.OFF);
+    long[] trace = args.length > 0 ? readTrace(Path.of(args[0])) : syntheticTrace();
+    System.out.printf("Trace length: %d%n", trace.length);
+    System.out.printf("%-10s %-16s %s%n", "capacity", "mode", "hit ratio");
+    for (int capacity : CAPACITIES) {
+      for (EvictionMode mode : EvictionMode.values()) {
+        System.out.printf("%-10d %-16s %.2f%%%n",
+                capacity, mode, 100.0 * hitRatio(trace, new TraceCache(capacity, mode)));
+      }
+    }
+  }
+
+  static double hitRatio(long[] trace, ConcurrentLfuCache<Long> cache) {
+    long hits = 0;
+    for (long id : trace) {
+      if (cache.get(id) != null) {
+        hits++;
+      } else {
+        cache.put(id, id);
+      }
+    }
+    return trace.length == 0 ? 0 : (double) hits / trace.length;
+  }
+
+  private static long[] readTrace(Path path) throws IOException {
+    List<Long> ids = new ArrayList<>();
+    try (Stream<String> lines = Files.lines(path)) {
+      lines.forEach(line -> {
+        String trimmed = line.trim();
+        if (!trimmed.isEmpty() && trimmed.chars().allMatch(Character::isDigit)) {
+          ids.add(Long.parseLong(trimmed));
+          return;
+        }
+        Matcher matcher = ID_PATTERN.matcher(line);
+        if (matcher.find()) {
+          ids.add(Long.parseLong(matcher.group(1)));
+        }
+      });
+    }
+    return ids.stream().mapToLong(Long::longValue).toArray();
+  }
+
+  /**
+   * Thirty days of 50 000 requests over 5 000 showtimes each, popularity Zipf(1.0).
+   */
+  private static long[] syntheticTrace() {
+    int days = 30;
+    int requestsPerDay = 50_000;
+    int showtimesPerDay = 5_000;
+    double[] cumulative = zipfCumulative(showtimesPerDay, 1.0);
+    Random random = new Random(42);
+    long[] trace = new long[days * requestsPerDay];
+    int position = 0;
+    for (int day = 0; day < days; day++) {
+      long firstId = (long) day * showtimesPerDay;
+      for (int i = 0; i < requestsPerDay; i++) {
+        int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+        trace[position++] = firstId + (rank >= 0 ? rank : -rank - 1);
+      }
+    }
+    return trace;
+  }
+
+  private static double[] zipfCumulative(int size, double exponent) {
+    double[] cumulative = new double[size];
+    double sum = 0;
+    for (int rank = 0; rank < size; rank++) {
+      sum += 1.0 / Math.pow(rank + 1, exponent);
+      cumulative[rank] = sum;
+    }
+    for (int rank = 0; rank < size; rank++) {
+      cumulative[rank] /= sum;
+    }
+    return cumulative;
+  }
+}
@@ -0,0 +1,387 @@
+package com.example.cinema.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentLfuCacheTest {
+
+  private static final int THREADS = 8;
+  private static final long NOT_CACHEABLE = Long.MIN_VALUE;
+
+  private static class TestCache extends ConcurrentLfuCache<Long> {
+    TestCache(int capacity) {
+      super(capacity);
+    }
+
+    TestCache(int capacity, EvictionMode mode) {
+      super(capacity, mode);
+    }
+
+    TestCache(Duration timeToLive, Duration timeToIdle, AtomicLong ticker) {
+      super(100, EvictionMode.LFU, timeToLive, timeToIdle, ticker::get);
+    }
+
+    /**
+     * Negative values carry their own lifetime in nanoseconds.
+     */
+    @Override
+    protected Duration timeToLive(Long value) {
+      if (value == NOT_CACHEABLE) {
+        return Duration.ZERO;
+      }
+      return value < 0 ? Duration.ofNanos(-value) : null;
+    }
+  }
+
+  @Test
+  void put_full_evictsLeastFrequentlyUsed() {
+    TestCache cache = new TestCache(3);
+    cache.put(1L, 1L);
+    cache.put(2L, 2L);
+    cache.put(3L, 3L);
+    cache.get(1L);
+    cache.get(3L);
+
+    cache.put(4L, 4L);
+
+    assertNull(cache.get(2L));
+    assertEquals(3, cache.size());
+  }
+
+  @Test
+  void windowTinyLfu_scanOfOneOffKeys_keepsHotEntries() {
+    TestCache cache = new TestCache(100, EvictionMode.WINDOW_TINY_LFU);
+    for (long key = 0; key < 50; key++) {
+      cache.put(key, key);
+      for (int i = 0; i < 5; i++) {
+        cache.put(key, key);
+      }
+    }
+
+    for (long key = 1_000; key < 11_000; key++) {
+      cache.put(key, key);
+      cache.get(key % 50);
+    }
+
+    int hotSurvivors = 0;
+    for (long key = 0; key < 50; key++) {
+      if (cache.get(key) != null) {
+        hotSurvivors++;
+      }
+    }
+    assertEquals(50, hotSurvivors);
+    assertTrue(cache.size() <= 100);
+  }
+
+  @Test
+  void windowTinyLfu_formerlyPopularEntries_ageOut() {
+    TestCache cache = new TestCache(100, EvictionMode.WINDOW_TINY_LFU);
+    for (long key = 0; key < 100; key++) {
+      cache.put(key, key);
+      for (int i = 0; i < 10; i++) {
+        cache.put(key, key);
+      }
+    }
+
+    for (int round = 0; round < 20; round++) {
+      for (long key = 1_000; key < 1_100; key++) {
+        cache.put(key, key);
+      }
+    }
+
+    int newSurvivors = 0;
+    for (long key = 1_000; key < 1_100; key++) {
+      if (cache.get(key) != null) {
+        newSurvivors++;
+      }
+    }
+    assertTrue(newSurvivors > 90, "Only " + newSurvivors + " new entries admitted");
+  }
+
+  @Test
+  void timeToLive_expiresEntryAfterWrite() {
+    AtomicLong ticker = new AtomicLong();
+    TestCache cache = new TestCache(Duration.ofMinutes(10), Duration.ZERO, ticker);
+    cache.put(1L, 1L);
+
+    ticker.addAndGet(Duration.ofMinutes(9).toNanos());
+    assertEquals(1L, cache.get(1L));
+
+    ticker.addAndGet(Duration.ofMinutes(2).toNanos());
+    assertNull(cache.get(1L));
+    cache.cleanUp();
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  void containsKey_ignoresExpiredEntriesAndCountsNoRead() {
+    AtomicLong ticker = new AtomicLong();
+    TestCache cache = new TestCache(Duration.ofMinutes(10), Duration.ZERO, ticker);
+    cache.put(1L, 1L);
+
+    assertTrue(cache.containsKey(1L));
+    assertFalse(cache.containsKey(2L));
+    assertFalse(cache.containsKey(null));
+    ticker.addAndGet(Duration.ofMinutes(11).toNanos());
+    assertFalse(cache.containsKey(1L));
+    assertEquals(0, cache.stats().getHitCount());
+    assertEquals(0, cache.stats().getMissCount());
+  }
+
+  @Test
+  void timeToLive_tickerCrossingZero_stillExpiresEntries() {
+    AtomicLong ticker = new AtomicLong(-Duration.ofSeconds(30).toNanos());
+    TestCache cache = new TestCache(Duration.ofMinutes(1), Duration.ZERO, ticker);
+    cache.put(1L, 1L);
+
+    ticker.addAndGet(Duration.ofMinutes(2).toNanos());
+    cache.cleanUp();
+
+    assertEquals(0, cache.size());
+    assertEquals(1, cache.stats().getExpirationCount());
+  }
+
+  @Test
+  void noExpiry_negativeTicker_keepsEntries() {
+    AtomicLong ticker = new AtomicLong(-Duration.ofHours(1).toNanos());
+    TestCache cache = new TestCache(Duration.ZERO, Duration.ZERO, ticker);
+
+    cache.put(1L, 10L);
+
+    assertEquals(10L, cache.get(1L));
+    assertTrue(cache.containsKey(1L));
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  void putIfUnchanged_noWriteSinceVersion_storesValue() {
+    TestCache cache = new TestCache(10);
+    long version = cache.version(1L);
+
+    assertTrue(cache.putIfUnchanged(1L, 10L, version));
+    assertEquals(10L, cache.get(1L));
+    assertEquals(version, cache.version(1L));
+  }
+
+  @Test
+  void putIfUnchanged_afterConcurrentPutOrRemove_keepsNewerState() {
+    TestCache cache = new TestCache(10);
+    long version = cache.version(1L);
+    cache.put(1L, 20L);
+
+    assertFalse(cache.putIfUnchanged(1L, 10L, version));
+    assertEquals(20L, cache.get(1L));
+
+    version = cache.version(2L);
+    cache.remove(2L);
+    assertFalse(cache.putIfUnchanged(2L, 10L, version));
+    assertNull(cache.get(2L));
+
+    version = cache.version(3L);
+    cache.clear();
+    assertFalse(cache.putIfUnchanged(3L, 10L, version));
+    assertNull(cache.get(3L));
+  }
+
+  @Test
+  void timeToIdle_readsPostponeExpiry() {
+    AtomicLong ticker = new AtomicLong();
+    TestCache cache = new TestCache(Duration.ZERO, Duration.ofMinutes(5), ticker);
+    cache.put(1L, 1L);
+    cache.put(2L, 2L);
+
+    for (int i = 0; i < 6; i++) {
+      ticker.addAndGet(Duration.ofMinutes(3).toNanos());
+      assertEquals(1L, cache.get(1L));
+    }
+    cache.cleanUp();
+
+    assertNull(cache.get(2L));
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  void valueTimeToLive_expiresAtValueDeadline() {
+    AtomicLong ticker = new AtomicLong();
+    TestCache cache = new TestCache(Duration.ofDays(30), Duration.ZERO, ticker);
+    long threeHours = Duration.ofHours(3).toNanos();
+    cache.put(1L, -threeHours);
+    cache.put(2L, 2L);
+    cache.put(3L, NOT_CACHEABLE);
+    assertNull(cache.get(3L), "A value without lifetime left must not be cached");
+
+    ticker.addAndGet(threeHours - 1);
+    cache.cleanUp();
+    assertEquals(-threeHours, cache.get(1L));
+
+    ticker.addAndGet(Duration.ofSeconds(2).toNanos());
+    cache.cleanUp();
+    assertNull(cache.get(1L));
+    assertEquals(2L, cache.get(2L));
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  void timerWheel_expiresEntriesAcrossAllLevels() {
+    AtomicLong ticker = new AtomicLong();
+    TestCache cache = new TestCache(Duration.ZERO, Duration.ZERO, ticker);
+    long[] lifetimes = {
+      Duration.ofMillis(500).toNanos(), Duration.ofSeconds(30).toNanos(),
+      Duration.ofMinutes(45).toNanos(), Duration.ofHours(20).toNanos(),
+      Duration.ofDays(4).toNanos(), Duration.ofDays(12).toNanos()
+    };
+    for (int i = 0; i < lifetimes.length; i++) {
+      cache.put((long) i, -lifetimes[i]);
+    }
+
+    for (int i = 0; i < lifetimes.length; i++) {
+      ticker.set(lifetimes[i] - 1);
+      cache.cleanUp();
+      assertEquals(lifetimes.length - i, cache.size(), "Expired too early at level " + i);
+      ticker.set(lifetimes[i] + Duration.ofSeconds(2).toNanos());
+      cache.cleanUp();
+      assertEquals(lifetimes.length - i - 1, cache.size(), "Not expired at level " + i);
+    }
+  }
+
+  @Test
+  void stats_countHitsMissesPutsEvictionsAndExpirations() {
+    AtomicLong ticker = new AtomicLong();
+    TestCache cache = new TestCache(Duration.ofMinutes(10), Duration.ZERO, ticker);
+    for (long key = 0; key < 100; key++) {
+      cache.put(key, key);
+    }
+    for (int i = 0; i < 5; i++) {
+      cache.get(0L);
+    }
+    cache.get(1L);
+    cache.get(1_000L);
+
+    cache.put(100L, 100L);
+    cache.put(101L, 101L);
+    ticker.addAndGet(Duration.ofMinutes(11).toNanos());
+    cache.cleanUp();
+
+    CacheStats stats = cache.stats();
+    assertEquals(6, stats.getHitCount());
+    assertEquals(1, stats.getMissCount());
+    assertEquals(102, stats.getPutCount());
+    assertEquals(2, stats.getEvictionCount());
+    assertEquals(100, stats.getExpirationCount());
+    assertEquals(0, stats.getRejectedPutCount());
+    assertEquals(2L, stats.getEvictionFrequencyHistogram().get("1"));
+    assertEquals(0, stats.getSize());
+    assertEquals(100, stats.getCapacity());
+    assertEquals(6.0 / 7, stats.getHitRate(), 1e-9);
+  }
+
+  @Test
+  void nullKey_isIgnored() {
+    TestCache cache = new TestCache(3);
+
+    cache.put(null, 1L);
+
+    assertNull(cache.get(null));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  void concurrentPuts_withinCapacity_loseNoEntries() throws Exception {
+    int perThread = 2_000;
+    TestCache cache = new TestCache(THREADS * perThread);
+
+    runConcurrently(thread -> {
+      for (long i = 0; i < perThread; i++) {
+        long key = thread * perThread + i;
+        cache.put(key, key);
+        assertEquals(key, cache.get(key));
+      }
+    });
+
+    assertEquals(THREADS * perThread, cache.size());
+    for (long key = 0; key < THREADS * perThread; key++) {
+      assertEquals(key, cache.get(key), "Lost entry " + key);
+    }
+  }
+
+  @Test
+  void concurrentMixedLoad_neverExceedsCapacity() throws Exception {
+    int capacity = 1_000;
+    TestCache cache = new TestCache(capacity);
+    AtomicBoolean running = new AtomicBoolean(true);
+    AtomicInteger maxObservedSize = new AtomicInteger();
+    Thread monitor = new Thread(() -> {
+      while (running.get()) {
+        maxObservedSize.accumulateAndGet(cache.size(), Math::max);
+      }
+    });
+    monitor.start();
+
+    runConcurrently(thread -> {
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      for (int i = 0; i < 50_000; i++) {
+        long key = random.nextLong(capacity * 4L);
+        int op = random.nextInt(10);
+        if (op < 6) {
+          Long value = cache.get(key);
+          if (value != null) {
+            assertEquals(key, value);
+          }
+        } else if (op < 9) {
+          cache.put(key, key);
+        } else {
+          cache.remove(key);
+        }
+      }
+    });
+    running.set(false);
+    monitor.join();
+
+    assertTrue(maxObservedSize.get() <= capacity,
+            "Observed size " + maxObservedSize.get() + " exceeds capacity");
+    assertTrue(cache.size() <= capacity);
+    int present = 0;
+    for (long key = 0; key < capacity * 4L; key++) {
+      if (cache.get(key) != null) {
+        present++;
+      }
+    }
+    assertEquals(cache.size(), present);
+  }
+
+  private interface Worker {
+    void run(int thread) throws Exception;
+  }
+
+  private static void runConcurrently(Worker worker) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      final int thread = t;
+      futures.add(executor.submit(() -> {
+        start.await();
+        worker.run(thread);
+        return null;
+      }));
+    }
+    start.countDown();
+    for (Future<?> future : futures) {
+      future.get(60, TimeUnit.SECONDS);
+    }
+    executor.shutdown();
+  }
+}
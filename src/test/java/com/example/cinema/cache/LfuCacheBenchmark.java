@@ -0,0 +1,152 @@
+package com.example.cinema.cache;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compares the bucketed {@link LfuCache} with the previous linear-scan implementation.
+ * Every measured operation is a miss on a full cache, i.e. an insert that forces an eviction.
+ *
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.example.cinema.cache.LfuCacheBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LfuCacheBenchmark {
+
+  @Param({"1000", "100000", "1000000"})
+  private int capacity;
+
+  private BenchmarkCache bucketed;
+  private LinearScanLfuCache<Long> linearScan;
+  private long nextKey;
+
+  /**
+   * Fills both caches to capacity with a skewed frequency distribution.
+   */
+  @Setup(org.openjdk.jmh.annotations.Level.Trial)
+  public void setUp() {
+    ((Logger) LoggerFactory.getLogger(LfuCache.class)).setLevel(Level.OFF);
+    bucketed = new BenchmarkCache(capacity);
+    linearScan = new LinearScanLfuCache<>(capacity);
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    for (long key = 0; key < capacity; key++) {
+      bucketed.put(key, key);
+      linearScan.put(key, key);
+      int hits = random.nextInt(8);
+      for (int i = 0; i < hits; i++) {
+        bucketed.get(key);
+        linearScan.get(key);
+      }
+    }
+    nextKey = capacity;
+  }
+
+  @Benchmark
+  public void bucketedPutEvict() {
+    long key = nextKey++;
+    bucketed.put(key, key);
+  }
+
+  @Benchmark
+  public void linearScanPutEvict() {
+    long key = nextKey++;
+    linearScan.put(key, key);
+  }
+
+  @Benchmark
+  public Long bucketedGet() {
+    return bucketed.get(ThreadLocalRandom.current().nextLong(nextKey));
+  }
+
+  @Benchmark
+  public Long linearScanGet() {
+    return linearScan.get(ThreadLocalRandom.current().nextLong(nextKey));
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+            .include(LfuCacheBenchmark.class.getSimpleName())
+            .build()).run();
+  }
+
+  private static final class BenchmarkCache extends LfuCache<Long> {
+    BenchmarkCache(int capacity) {
+      super(capacity);
+    }
+  }
+
+  /**
+   * The pre-bucket implementation of {@link LfuCache}, kept here as the comparison baseline.
+   */
+  private static final class LinearScanLfuCache<T> {
+    private final int capacity;
+    private final Map<Long, Entry<T>> cache = new HashMap<>();
+
+    private static final class Entry<T> {
+      T value;
+      int frequency = 1;
+
+      Entry(T value) {
+        this.value = value;
+      }
+    }
+
+    LinearScanLfuCache(int capacity) {
+      this.capacity = capacity;
+    }
+
+    T get(Long id) {
+      Entry<T> entry = cache.get(id);
+      if (entry == null) {
+        return null;
+      }
+      entry.frequency++;
+      return entry.value;
+    }
+
+    void put(Long id, T value) {
+      Entry<T> entry = cache.get(id);
+      if (entry != null) {
+        entry.value = value;
+        entry.frequency++;
+        return;
+      }
+      if (cache.size() >= capacity) {
+        Long lfuKey = null;
+        int minFrequency = Integer.MAX_VALUE;
+        for (Map.Entry<Long, Entry<T>> candidate : cache.entrySet()) {
+          if (candidate.getValue().frequency < minFrequency) {
+            minFrequency = candidate.getValue().frequency;
+            lfuKey = candidate.getKey();
+          }
+        }
+        cache.remove(lfuKey);
+      }
+      cache.put(id, new Entry<>(value));
+    }
+  }
+}
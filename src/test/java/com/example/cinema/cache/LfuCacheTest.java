@@ -0,0 +1,99 @@
+package com.example.cinema.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LfuCacheTest {
+
+  private TestCache cache;
+
+  private static class TestCache extends LfuCache<String> {
+    TestCache(int capacity) {
+      super(capacity);
+    }
+  }
+
+  @BeforeEach
+  void setUp() {
+    cache = new TestCache(3);
+  }
+
+  @Test
+  void put_full_evictsLeastFrequentlyUsed() {
+    cache.put(1L, "one");
+    cache.put(2L, "two");
+    cache.put(3L, "three");
+    cache.get(1L);
+    cache.get(1L);
+    cache.get(3L);
+
+    cache.put(4L, "four");
+
+    assertNull(cache.get(2L));
+    assertEquals("one", cache.get(1L));
+    assertEquals("three", cache.get(3L));
+    assertEquals("four", cache.get(4L));
+    assertEquals(3, cache.size());
+  }
+
+  @Test
+  void put_equalFrequency_evictsLeastRecentlyUsed() {
+    cache.put(1L, "one");
+    cache.put(2L, "two");
+    cache.put(3L, "three");
+    cache.get(2L);
+    cache.get(1L);
+    cache.get(3L);
+
+    cache.put(4L, "four");
+
+    assertNull(cache.get(2L));
+    assertEquals(3, cache.size());
+  }
+
+  @Test
+  void put_existingKey_updatesValueWithoutEviction() {
+    cache.put(1L, "one");
+    cache.put(2L, "two");
+    cache.put(3L, "three");
+
+    cache.put(1L, "uno");
+
+    assertEquals("uno", cache.get(1L));
+    assertEquals("two", cache.get(2L));
+    assertEquals("three", cache.get(3L));
+  }
+
+  @Test
+  void remove_thenPut_keepsStructureConsistent() {
+    cache.put(1L, "one");
+    cache.put(2L, "two");
+    cache.get(2L);
+    cache.remove(1L);
+    cache.remove(2L);
+    assertEquals(0, cache.size());
+
+    cache.put(3L, "three");
+    cache.put(4L, "four");
+    cache.put(5L, "five");
+    cache.put(6L, "six");
+
+    assertNull(cache.get(3L));
+    assertEquals(3, cache.size());
+  }
+
+  @Test
+  void clear_removesEverything() {
+    cache.put(1L, "one");
+    cache.put(2L, "two");
+
+    cache.clear();
+
+    assertEquals(0, cache.size());
+    assertNull(cache.get(1L));
+    cache.put(3L, "three");
+    assertEquals("three", cache.get(3L));
+  }
+}
@@ -0,0 +1,115 @@
+package com.example.cinema.cache;
+
+import com.example.cinema.model.Showtime;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShowtimeQueryCacheTest {
+
+  private static final LocalDateTime EVENING = LocalDateTime.of(2025, 6, 1, 19, 0);
+  private static final LocalDate DAY = EVENING.toLocalDate();
+
+  private final ShowtimeQueryCache cache = new ShowtimeQueryCache(100, 0);
+  private final List<Showtime> result = List.of(new Showtime(EVENING, "Inception", null));
+
+  @Test
+  void putAndGet_returnImmutableCopy() {
+    List<Showtime> mutable = new ArrayList<>(result);
+    cache.putByDate(1L, DAY, cache.version(1L), mutable);
+    mutable.clear();
+
+    List<Showtime> cached = cache.getByDate(1L, DAY).orElseThrow();
+    assertEquals(result, cached);
+    assertThrows(UnsupportedOperationException.class, cached::clear);
+  }
+
+  @Test
+  void getByTitle_ignoresCase() {
+    cache.putByTitle(1L, "INCEP", cache.version(1L), result);
+
+    assertEquals(result, cache.getByTitle(1L, "incep").orElseThrow());
+    assertTrue(cache.getByTitle(2L, "incep").isEmpty());
+  }
+
+  @Test
+  void invalidate_evictsOnlyAffectedResults() {
+    long version = cache.version(1L);
+    cache.putByDate(1L, DAY, version, result);
+    cache.putByDate(1L, DAY.plusDays(1), version, result);
+    cache.putByTitle(1L, "incep", version, result);
+    cache.putByTitle(1L, "matrix", version, result);
+    cache.putByDate(2L, DAY, cache.version(2L), result);
+
+    cache.invalidate(1L, EVENING, "Inception");
+
+    assertTrue(cache.getByDate(1L, DAY).isEmpty());
+    assertTrue(cache.getByTitle(1L, "incep").isEmpty());
+    assertTrue(cache.getByDate(1L, DAY.plusDays(1)).isPresent());
+    assertTrue(cache.getByTitle(1L, "matrix").isPresent());
+    assertTrue(cache.getByDate(2L, DAY).isPresent());
+  }
+
+  @Test
+  void put_afterInvalidation_discardsStaleResult() {
+    long version = cache.version(1L);
+    cache.invalidate(1L, EVENING, "Inception");
+
+    cache.putByDate(1L, DAY, version, result);
+
+    assertTrue(cache.getByDate(1L, DAY).isEmpty());
+  }
+
+  @Test
+  void put_full_evictsResultNotReadSinceLastPass() {
+    ShowtimeQueryCache small = new ShowtimeQueryCache(2, 0);
+    small.putByDate(1L, DAY, 0, result);
+    small.putByTitle(2L, "once", 0, result);
+    small.getByDate(1L, DAY);
+
+    small.putByDate(1L, DAY.plusDays(1), 0, result);
+
+    assertTrue(small.getByDate(1L, DAY).isPresent());
+    assertTrue(small.getByDate(1L, DAY.plusDays(1)).isPresent());
+    assertTrue(small.getByTitle(2L, "once").isEmpty());
+    assertEquals(2, small.stats().getSize());
+    assertEquals(1, small.stats().getEvictionCount());
+  }
+
+  @Test
+  void put_burstOfUniqueSearches_keepsCachingNewResults() {
+    ShowtimeQueryCache small = new ShowtimeQueryCache(10, 0);
+    for (int i = 0; i < 1_000; i++) {
+      small.putByTitle(2L, "query " + i, 0, result);
+    }
+    for (int i = 0; i < 100; i++) {
+      small.invalidate(2L, EVENING, null);
+    }
+
+    small.putByDate(1L, DAY, 0, result);
+
+    assertTrue(small.getByDate(1L, DAY).isPresent());
+    assertTrue(small.stats().getSize() <= 10);
+    assertEquals(0, small.stats().getRejectedPutCount());
+  }
+
+  @Test
+  void stats_countHitsMissesAndInvalidations() {
+    cache.putByDate(1L, DAY, cache.version(1L), result);
+    cache.getByDate(1L, DAY);
+    cache.getByDate(1L, DAY.plusDays(1));
+    cache.invalidate(1L, EVENING, null);
+
+    CacheStats stats = cache.stats();
+    assertEquals(1, stats.getHitCount());
+    assertEquals(1, stats.getMissCount());
+    assertEquals(1, stats.getPutCount());
+    assertEquals(1, stats.getEvictionCount());
+    assertEquals(1L, stats.getEvictionFrequencyHistogram().get("2-3"));
+    assertEquals(0, stats.getSize());
+  }
+}
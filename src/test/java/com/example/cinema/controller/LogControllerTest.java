@@ -0,0 +1,125 @@
+package com.example.cinema.controller;
+
+import com.example.cinema.exception.GlobalExceptionHandler;
+import com.example.cinema.model.LogObject;
+import com.example.cinema.service.LogRollupService;
+import com.example.cinema.service.LogService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class LogControllerTest {
+
+  @Mock
+  private LogService logService;
+
+  @Mock
+  private LogRollupService logRollupService;
+
+  @TempDir
+  Path tempDir;
+
+  private MockMvc mockMvc;
+
+  @BeforeEach
+  void setUp() {
+    mockMvc = MockMvcBuilders.standaloneSetup(new LogController(logService, logRollupService))
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .build();
+  }
+
+  @Test
+  void createLogFile_registryFull_returnsTooManyRequests() throws Exception {
+    when(logService.createLogAsync("15-05-2025")).thenThrow(new ResponseStatusException(
+            HttpStatus.TOO_MANY_REQUESTS, "Слишком много задач создания логов"));
+
+    mockMvc.perform(post("/api/logs/create").param("date", "15-05-2025"))
+            .andExpect(status().isTooManyRequests());
+  }
+
+  @Test
+  void getStatus_unknownTask_returnsNotFound() throws Exception {
+    when(logService.getStatus(42L)).thenReturn(null);
+
+    mockMvc.perform(get("/api/logs/status/42"))
+            .andExpect(status().isNotFound());
+  }
+
+  @Test
+  void getLogFileById_range_returnsPartialContent() throws Exception {
+    Path extract = completedExtract();
+
+    mockMvc = downloadMockMvc(extract);
+
+    mockMvc.perform(get("/api/logs/download/1").header(HttpHeaders.RANGE, "bytes=0-9"))
+            .andExpect(status().isPartialContent())
+            .andExpect(header().string(HttpHeaders.CONTENT_RANGE,
+                    "bytes 0-9/" + Files.size(extract)))
+            .andExpect(content().bytes("15-05-2025".getBytes()));
+  }
+
+  @Test
+  void getLogFileById_matchingEtag_returnsNotModified() throws Exception {
+    mockMvc = downloadMockMvc(completedExtract());
+    String etag = mockMvc.perform(get("/api/logs/download/1"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+    mockMvc.perform(get("/api/logs/download/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified());
+  }
+
+  @Test
+  void getLogFileById_gzipRefused_returnsUncompressedBody() throws Exception {
+    Path extract = completedExtract();
+    mockMvc = downloadMockMvc(extract);
+
+    byte[] body = mockMvc.perform(get("/api/logs/download/1")
+                    .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+            .andReturn().getResponse().getContentAsByteArray();
+    assertArrayEquals(Files.readAllBytes(extract), body);
+
+    mockMvc.perform(get("/api/logs/download/1").header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+  }
+
+  private Path completedExtract() throws Exception {
+    Path extract = tempDir.resolve("logs-15-05-2025.log");
+    Files.writeString(extract, "15-05-2025 10:00:00 [INFO] - Request handled\n".repeat(200));
+    return extract;
+  }
+
+  private MockMvc downloadMockMvc(Path extract) throws Exception {
+    LogService service = new LogService(null);
+    LogObject task = new LogObject(1L, "COMPLETED");
+    task.setFilePath(extract.toString());
+    task.setFileSize(Files.size(extract));
+    service.tasks.put(1L, task);
+    return MockMvcBuilders.standaloneSetup(new LogController(service, logRollupService))
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .build();
+  }
+}
@@ -0,0 +1,137 @@
+package com.example.cinema.logs;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogArchiveSearchTest {
+
+  private static final LocalDate DAY = LocalDate.of(2025, 5, 20);
+
+  private final LogArchiveSearch search = new LogArchiveSearch(2);
+
+  @TempDir
+  Path tempDir;
+
+  @AfterEach
+  void tearDown() {
+    search.close();
+  }
+
+  @Test
+  void archivesFor_selectsArchivesWhoseNameRangeContainsTheDay() throws IOException {
+    Path log = tempDir.resolve("cinema.log");
+    Files.createFile(log);
+    for (String name : List.of("cinema.log.2025-05-18.0.gz", "cinema.log.2025-05-20.0.gz",
+            "cinema.log.2025-05-20.1.gz", "cinema.log.2025-05-23.0.gz",
+            "cinema.log.2025-05-20.0886558276312700.tmp", "other.log.2025-05-20.0.gz")) {
+      Files.createFile(tempDir.resolve(name));
+    }
+
+    assertEquals(List.of(tempDir.resolve("cinema.log.2025-05-20.0.gz"),
+                    tempDir.resolve("cinema.log.2025-05-20.1.gz")),
+            search.archivesFor(log, DAY));
+    assertEquals(List.of(tempDir.resolve("cinema.log.2025-05-23.0.gz")),
+            search.archivesFor(log, LocalDate.of(2025, 5, 21)));
+    assertEquals(List.of(tempDir.resolve("cinema.log.2025-05-18.0.gz")),
+            search.archivesFor(log, LocalDate.of(2025, 5, 1)));
+    assertTrue(search.archivesFor(log, LocalDate.of(2025, 5, 24)).isEmpty());
+  }
+
+  @Test
+  void extract_mergesArchivesAndCurrentLogInTimestampOrder() throws IOException {
+    gzip("cinema.log.2025-05-20.0.gz",
+            "19-05-2025 23:59:00 [INFO] - вчера",
+            "20-05-2025 08:00:00 [INFO] - Сеанс создан",
+            "20-05-2025 10:00:00 [ERROR] - Ошибка",
+            "java.lang.IllegalStateException",
+            "\tat Foo.bar(Foo.java:1)");
+    gzip("cinema.log.2025-05-20.1.gz",
+            "20-05-2025 09:00:00 [INFO] - second archive",
+            "20-05-2025 11:00:00 [INFO] - second archive later");
+    // Архив за следующий день не должен открываться: он повреждён
+    Files.writeString(tempDir.resolve("cinema.log.2025-05-22.0.gz"), "not gzip");
+    Path log = tempDir.resolve("cinema.log");
+    Files.write(log, List.of(
+            "20-05-2025 12:00:00 [INFO] - current",
+            "21-05-2025 00:00:01 [INFO] - tomorrow"));
+    Path target = tempDir.resolve("extract.log");
+    RecordingProgress progress = new RecordingProgress();
+
+    LogExtractor.Result result = search.extract(new LogDayIndex(log), DAY, target, progress);
+
+    assertEquals(List.of(
+            "20-05-2025 08:00:00 [INFO] - Сеанс создан",
+            "20-05-2025 09:00:00 [INFO] - second archive",
+            "20-05-2025 10:00:00 [ERROR] - Ошибка",
+            "java.lang.IllegalStateException",
+            "\tat Foo.bar(Foo.java:1)",
+            "20-05-2025 11:00:00 [INFO] - second archive later",
+            "20-05-2025 12:00:00 [INFO] - current"), Files.readAllLines(target));
+    assertEquals(5, result.getLines());
+    assertEquals(Files.size(target), result.getBytes());
+    assertEquals(5, progress.lines.get());
+    assertTrue(progress.expected.get() > 0);
+    assertEquals(progress.expected.get(), progress.scanned.get());
+  }
+
+  @Test
+  void extract_withoutArchives_copiesCurrentLogSegments() throws IOException {
+    Path log = tempDir.resolve("cinema.log");
+    Files.write(log, List.of("19-05-2025 a", "20-05-2025 b"));
+    Path target = tempDir.resolve("extract.log");
+
+    LogExtractor.Result result = search.extract(new LogDayIndex(log), DAY, target,
+            ScanProgress.NONE);
+
+    assertEquals(List.of("20-05-2025 b"), Files.readAllLines(target));
+    assertEquals(1, result.getLines());
+  }
+
+  @Test
+  void extract_corruptArchive_throwsIOException() throws IOException {
+    Files.writeString(tempDir.resolve("cinema.log.2025-05-20.0.gz"), "not gzip");
+    Path log = tempDir.resolve("cinema.log");
+    Files.write(log, List.of("20-05-2025 b"));
+
+    assertThrows(IOException.class, () -> search.extract(new LogDayIndex(log), DAY,
+            tempDir.resolve("extract.log"), ScanProgress.NONE));
+  }
+
+  /**
+   * Sums the reported progress.
+   */
+  private static final class RecordingProgress implements ScanProgress {
+    private final AtomicLong expected = new AtomicLong();
+    private final AtomicLong scanned = new AtomicLong();
+    private final AtomicLong lines = new AtomicLong();
+
+    @Override
+    public void expect(long bytes) {
+      expected.addAndGet(bytes);
+    }
+
+    @Override
+    public void scanned(long bytes, long lines) {
+      scanned.addAndGet(bytes);
+      this.lines.addAndGet(lines);
+    }
+  }
+
+  private void gzip(String name, String... lines) throws IOException {
+    try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tempDir.resolve(name)))) {
+      out.write((String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+  }
+}
@@ -0,0 +1,110 @@
+package com.example.cinema.logs;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogDayIndexTest {
+
+  private static final LocalDate DAY = LocalDate.of(2025, 5, 15);
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  void find_returnsDayRange_withContinuationLines() throws IOException {
+    Path log = tempDir.resolve("cinema.log");
+    write(log, "14-05-2025 10:00:00 [INFO] - before\n"
+            + "15-05-2025 10:00:00 [ERROR] - Ошибка\n"
+            + "java.lang.IllegalStateException\n"
+            + "\tat Foo.bar(Foo.java:1)\n"
+            + "15-05-2025 11:00:00 [INFO] - next\n"
+            + "16-05-2025 00:00:00 [INFO] - after\n");
+
+    List<LogDayIndex.Segment> segments = new LogDayIndex(log).find(DAY);
+
+    assertEquals(1, segments.size());
+    assertEquals("15-05-2025 10:00:00 [ERROR] - Ошибка\n"
+            + "java.lang.IllegalStateException\n"
+            + "\tat Foo.bar(Foo.java:1)\n"
+            + "15-05-2025 11:00:00 [INFO] - next\n", read(log, segments.get(0)));
+    assertEquals(2, segments.get(0).getLines());
+    assertTrue(new LogDayIndex(log).find(LocalDate.of(2025, 5, 17)).isEmpty());
+  }
+
+  @Test
+  void refresh_indexesAppendedLines_andSkipsUnfinishedLine() throws IOException {
+    Path log = tempDir.resolve("cinema.log");
+    write(log, "15-05-2025 a\n15-05-2025 b");
+    LogDayIndex index = new LogDayIndex(log);
+
+    assertEquals(1, index.find(DAY).get(0).getLines());
+
+    append(log, "\n15-05-2025 c\n16-05-2025 d\n15-05-2025 e\n");
+
+    List<LogDayIndex.Segment> segments = index.find(DAY);
+    assertEquals(2, segments.size(), "A day seen again after another day is a new segment");
+    assertEquals("15-05-2025 a\n15-05-2025 b\n15-05-2025 c\n", read(log, segments.get(0)));
+    assertEquals("15-05-2025 e\n", read(log, segments.get(1)));
+    assertEquals(List.of(DAY, DAY.plusDays(1)), List.copyOf(index.days().keySet()));
+  }
+
+  @Test
+  void sidecar_isReloaded_andRebuiltWhenLogIsRotated() throws IOException {
+    Path log = tempDir.resolve("cinema.log");
+    write(log, "14-05-2025 a\n15-05-2025 b\n");
+    new LogDayIndex(log).refresh();
+    Path sidecar = tempDir.resolve("cinema.log.idx");
+    assertTrue(Files.exists(sidecar));
+
+    LogDayIndex reloaded = new LogDayIndex(log);
+    append(log, "15-05-2025 c\n");
+    List<LogDayIndex.Segment> segments = reloaded.find(DAY);
+    assertEquals("15-05-2025 b\n15-05-2025 c\n", read(log, segments.get(0)));
+
+    // Ротация: новый файл длиннее старого, но начинается с других байтов
+    write(log, "15-05-2025 rotated first line\n15-05-2025 rotated second line\n");
+    segments = new LogDayIndex(log).find(DAY);
+    assertEquals(1, segments.size());
+    assertEquals(0, segments.get(0).getStart());
+    assertEquals(Files.size(log), segments.get(0).getEnd());
+    assertEquals(2, segments.get(0).getLines());
+  }
+
+  @Test
+  void transfer_copiesSegmentsOfTheDay() throws IOException {
+    Path log = tempDir.resolve("cinema.log");
+    write(log, "15-05-2025 a\n16-05-2025 b\n15-05-2025 c\n  trace\n");
+    Path target = tempDir.resolve("extract.log");
+
+    LogExtractor.Result result = new LogExtractor()
+            .transfer(log, target, new LogDayIndex(log).find(DAY));
+
+    assertEquals("15-05-2025 a\n15-05-2025 c\n  trace\n",
+            Files.readString(target, StandardCharsets.UTF_8));
+    assertEquals(2, result.getLines());
+    assertEquals(Files.size(target), result.getBytes());
+  }
+
+  private static void write(Path log, String content) throws IOException {
+    Files.writeString(log, content, StandardCharsets.UTF_8);
+  }
+
+  private static void append(Path log, String content) throws IOException {
+    Files.writeString(log, content, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+  }
+
+  private static String read(Path log, LogDayIndex.Segment segment) throws IOException {
+    byte[] bytes = Files.readAllBytes(log);
+    return new String(bytes, (int) segment.getStart(),
+            (int) (segment.getEnd() - segment.getStart()), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,102 @@
+package com.example.cinema.logs;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Measures {@link LogExtractor} on a synthetic {@code cinema.log} against the former
+ * {@code Files.readAllLines} approach, and the copy of a day's range found by
+ * {@link LogDayIndex}: first with the initial full-file build of the index, then with an index
+ * that is already up to date.
+ *
+ * <p>The log covers 30 days with lines in the application's file pattern; the extract is
+ * the middle day. Arguments: the log size in megabytes (default 2048) and, optionally,
+ * {@code --baseline} to also run {@code readAllLines}, which needs a heap several times the
+ * log size. Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.example.cinema.logs.LogExtractorBenchmark -Dexec.args="2048"}.
+ */
+public final class LogExtractorBenchmark {
+
+  private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+  private static final int DAYS = 30;
+
+  private LogExtractorBenchmark() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    long megabytes = args.length > 0 ? Long.parseLong(args[0]) : 2048;
+    boolean baseline = args.length > 1 && "--baseline".equals(args[1]);
+    Path log = Files.createTempFile("cinema-benchmark", ".log");
+    Path extract = Files.createTempFile("cinema-benchmark", ".extract");
+    Path sidecar = log.resolveSibling(log.getFileName() + ".idx");
+    try {
+      LocalDate first = LocalDate.of(2025, 5, 1);
+      generate(log, first, megabytes << 20);
+      String day = first.plusDays(DAYS / 2).format(DAY);
+      System.out.printf("Log size: %d MB, extracting %s%n", Files.size(log) >> 20, day);
+
+      for (int run = 0; run < 3; run++) {
+        long start = System.nanoTime();
+        LogExtractor.Result result = new LogExtractor()
+                .extract(log, extract, day.getBytes(StandardCharsets.US_ASCII));
+        report("streaming", start, log, result.getLines());
+      }
+      LogDayIndex index = new LogDayIndex(log);
+      LocalDate indexedDay = first.plusDays(DAYS / 2);
+      for (int run = 0; run < 3; run++) {
+        long start = System.nanoTime();
+        LogExtractor.Result result = new LogExtractor()
+                .transfer(log, extract, index.find(indexedDay));
+        report(run == 0 ? "index build" : "indexed", start, log, result.getLines());
+      }
+      if (baseline) {
+        long start = System.nanoTime();
+        try {
+          List<String> lines = Files.readAllLines(log).stream()
+                  .filter(line -> line.startsWith(day))
+                  .toList();
+          Files.write(extract, lines);
+          report("readAllLines", start, log, lines.size());
+        } catch (OutOfMemoryError e) {
+          System.out.printf("%-14s OutOfMemoryError with -Xmx%d MB%n",
+                  "readAllLines", Runtime.getRuntime().maxMemory() >> 20);
+        }
+      }
+    } finally {
+      Files.deleteIfExists(log);
+      Files.deleteIfExists(extract);
+      Files.deleteIfExists(sidecar);
+    }
+  }
+
+  private static void report(String name, long start, Path log, long lines) throws IOException {
+    double seconds = (System.nanoTime() - start) / 1e9;
+    Runtime runtime = Runtime.getRuntime();
+    System.out.printf("%-14s %6.2f s  %7.1f MB/s  %d lines  heap used %d MB%n", name, seconds,
+            (Files.size(log) >> 20) / seconds, lines,
+            (runtime.totalMemory() - runtime.freeMemory()) >> 20);
+  }
+
+  private static void generate(Path log, LocalDate first, long size) throws IOException {
+    long perDay = size / DAYS;
+    try (BufferedWriter writer = Files.newBufferedWriter(log, StandardCharsets.UTF_8)) {
+      for (int d = 0; d < DAYS; d++) {
+        String day = first.plusDays(d).format(DAY);
+        long written = 0;
+        for (int i = 0; written < perDay; i++) {
+          String line = String.format("%s %02d:%02d:%02d [%s] - Метод ShowtimeController"
+                          + ".getShowtimeById(..) успешно выполнен. ID: %d%n", day,
+                  i / 3600 % 24, i / 60 % 60, i % 60, i % 50 == 0 ? "ERROR" : "INFO", i);
+          writer.write(line);
+          written += line.getBytes(StandardCharsets.UTF_8).length;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,118 @@
+package com.example.cinema.logs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogExtractorTest {
+
+  private static final byte[] DAY = "15-05-2025".getBytes(StandardCharsets.US_ASCII);
+
+  private final LogExtractor extractor = new LogExtractor();
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  void extract_copiesOnlyLinesStartingWithPrefix() throws IOException {
+    Path source = tempDir.resolve("cinema.log");
+    Files.write(source, List.of(
+            "14-05-2025 10:00:00 [INFO] - before",
+            "15-05-2025 10:00:00 [INFO] - Запрос обработан",
+            "  at 15-05-2025 stack frame",
+            "",
+            "15-05-20",
+            "15-05-2025 23:59:59 [ERROR] - last",
+            "16-05-2025 00:00:00 [INFO] - after"));
+    Path target = tempDir.resolve("extract.log");
+
+    LogExtractor.Result result = extractor.extract(source, target, DAY);
+
+    assertEquals(List.of(
+            "15-05-2025 10:00:00 [INFO] - Запрос обработан",
+            "15-05-2025 23:59:59 [ERROR] - last"), Files.readAllLines(target));
+    assertEquals(2, result.getLines());
+    assertEquals(Files.size(target), result.getBytes());
+  }
+
+  @Test
+  void extract_lastLineWithoutLineFeed_isTerminated() throws IOException {
+    String log = "15-05-2025 a\r\n16-05-2025 b\n15-05-2025 c";
+
+    assertEquals("15-05-2025 a\r\n15-05-2025 c\n", extract(log, 1 << 16));
+  }
+
+  @Test
+  void extract_prefixOnlyLineAtEnd_isCopied() throws IOException {
+    assertEquals("15-05-2025\n", extract("16-05-2025 x\n15-05-2025", 1 << 16));
+  }
+
+  @Test
+  void extract_linesSplitAcrossReads_matchAsWhole() throws IOException {
+    StringBuilder log = new StringBuilder();
+    StringBuilder expected = new StringBuilder();
+    for (int i = 0; i < 500; i++) {
+      String line = (i % 3 == 0 ? "15-05-2025" : "15-06-2025") + " line " + i + "\n";
+      log.append(line);
+      if (i % 3 == 0) {
+        expected.append(line);
+      }
+    }
+
+    for (int chunk : new int[] {1, 3, 7, 11, 64}) {
+      assertEquals(expected.toString(), extract(log.toString(), chunk), "chunk " + chunk);
+    }
+  }
+
+  private String extract(String log, int chunk) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    extractor.extract(new ChunkedChannel(log.getBytes(StandardCharsets.UTF_8), chunk),
+            Channels.newChannel(out), DAY);
+    return out.toString(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Delivers at most {@code chunk} bytes per read, to split lines across buffer refills.
+   */
+  private static final class ChunkedChannel implements ReadableByteChannel {
+    private final ByteBuffer data;
+    private final int chunk;
+
+    ChunkedChannel(byte[] data, int chunk) {
+      this.data = ByteBuffer.wrap(data);
+      this.chunk = chunk;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) {
+      if (!data.hasRemaining()) {
+        return -1;
+      }
+      int n = Math.min(chunk, Math.min(dst.remaining(), data.remaining()));
+      ByteBuffer slice = data.slice();
+      slice.limit(n);
+      dst.put(slice);
+      data.position(data.position() + n);
+      return n;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return true;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
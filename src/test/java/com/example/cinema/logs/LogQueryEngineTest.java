@@ -0,0 +1,140 @@
+package com.example.cinema.logs;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogQueryEngineTest {
+
+  private static final LocalDate DAY = LocalDate.of(2025, 5, 20);
+
+  private final LogArchiveSearch search = new LogArchiveSearch(1);
+  private final LogQueryEngine engine = new LogQueryEngine(search);
+
+  @TempDir
+  Path tempDir;
+
+  private Path log;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    log = tempDir.resolve("cinema.log");
+    try (OutputStream out = new GZIPOutputStream(
+            Files.newOutputStream(tempDir.resolve("cinema.log.2025-05-20.0.gz")))) {
+      out.write(String.join("\n",
+              "19-05-2025 23:59:00 [ERROR] - вчера",
+              "20-05-2025 08:00:00 [INFO] - Сеанс создан",
+              "20-05-2025 09:30:00 [ERROR] - Ошибка сохранения сеанса",
+              "java.lang.IllegalStateException: зал занят",
+              "\tat Foo.bar(Foo.java:1)",
+              "").getBytes(StandardCharsets.UTF_8));
+    }
+    Files.write(log, List.of(
+            "20-05-2025 10:00:00 [DEBUG] - Кэш прогрет",
+            "20-05-2025 11:00:00 [ERROR] - Зал 7 не найден",
+            "20-05-2025 12:00:00 [WARN] - Медленный запрос",
+            "21-05-2025 00:00:01 [ERROR] - завтра"), StandardCharsets.UTF_8);
+  }
+
+  @AfterEach
+  void tearDown() {
+    search.close();
+  }
+
+  @Test
+  void run_filtersByLevelAcrossArchivesAndCurrentLog() throws IOException {
+    StringWriter out = new StringWriter();
+
+    LogQueryEngine.Result result = engine.run(new LogDayIndex(log), DAY,
+            new LogQuery(List.of("error"), null, null, null, false, 10), out);
+
+    assertEquals(String.join("\n",
+            "20-05-2025 09:30:00 [ERROR] - Ошибка сохранения сеанса",
+            "java.lang.IllegalStateException: зал занят",
+            "\tat Foo.bar(Foo.java:1)",
+            "20-05-2025 11:00:00 [ERROR] - Зал 7 не найден",
+            ""), out.toString());
+    assertEquals(2, result.getEntries());
+    assertFalse(result.isLimitReached());
+  }
+
+  @Test
+  void run_matchesTextInContinuationLinesAndRegex() throws IOException {
+    StringWriter literal = new StringWriter();
+    StringWriter regex = new StringWriter();
+
+    engine.run(new LogDayIndex(log), DAY,
+            new LogQuery(List.of(), null, null, "IllegalStateException", false, 10), literal);
+    engine.run(new LogDayIndex(log), DAY,
+            new LogQuery(List.of(), null, null, "Зал \\d+", true, 10), regex);
+
+    assertTrue(literal.toString().startsWith("20-05-2025 09:30:00 [ERROR]"));
+    assertEquals(3, literal.toString().lines().count());
+    assertEquals("20-05-2025 11:00:00 [ERROR] - Зал 7 не найден\n", regex.toString());
+  }
+
+  @Test
+  void run_timeWindowIncludesStartAndExcludesEnd() throws IOException {
+    StringWriter out = new StringWriter();
+
+    engine.run(new LogDayIndex(log), DAY, new LogQuery(List.of(), LocalTime.of(9, 30),
+            LocalTime.of(11, 0), null, false, 10), out);
+
+    assertEquals(List.of("20-05-2025 09:30:00 [ERROR] - Ошибка сохранения сеанса",
+            "20-05-2025 10:00:00 [DEBUG] - Кэш прогрет"),
+            out.toString().lines().filter(LogArchiveSearch::startsWithDate).toList());
+  }
+
+  @Test
+  void run_stopsAtLimitWithoutReadingTheCurrentLog() throws IOException {
+    StringWriter out = new StringWriter();
+    // Обрыв текущего лога не мешает: до него чтение не доходит
+    Files.delete(log);
+
+    LogQueryEngine.Result result = engine.run(new LogDayIndex(log), DAY,
+            new LogQuery(List.of(), null, null, null, false, 1), out);
+
+    assertEquals("20-05-2025 08:00:00 [INFO] - Сеанс создан\n", out.toString());
+    assertEquals(1, result.getEntries());
+    assertTrue(result.isLimitReached());
+  }
+
+  @Test
+  void newQuery_rejectsInvalidArguments() {
+    assertThrows(IllegalArgumentException.class,
+            () -> new LogQuery(List.of(), null, null, null, false, 0));
+    assertThrows(IllegalArgumentException.class, () -> new LogQuery(List.of(),
+            LocalTime.of(12, 0), LocalTime.of(11, 0), null, false, 10));
+    assertThrows(IllegalArgumentException.class,
+            () -> new LogQuery(List.of(), null, null, "(", true, 10));
+    assertThrows(IllegalArgumentException.class, () -> new LogQuery(List.of(), null, null,
+            "a".repeat(LogQuery.MAX_PATTERN_LENGTH + 1), true, 10));
+  }
+
+  @Test
+  void run_catastrophicRegex_abortsOnceBudgetIsSpent() throws IOException {
+    Files.write(log, List.of("20-05-2025 13:00:00 [INFO] - " + "a".repeat(40) + "!"),
+            StandardCharsets.UTF_8);
+    // Без бюджета перебор разбиений строки на 20 частей занял бы часы
+    LogQuery query = new LogQuery(List.of(), LocalTime.of(13, 0), null, "(.*a){20}b", true, 10);
+
+    assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertThrows(
+            InterruptedIOException.class,
+            () -> engine.run(new LogDayIndex(log), DAY, query, new StringWriter())));
+  }
+}
@@ -0,0 +1,134 @@
+package com.example.cinema.logs;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogRollupsTest {
+
+  private static final LocalDateTime FROM = LocalDateTime.of(2025, 5, 20, 0, 0);
+  private static final LocalDateTime TO = LocalDateTime.of(2025, 5, 22, 0, 0);
+
+  @TempDir
+  Path tempDir;
+
+  private Path log;
+  private Path directory;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    log = tempDir.resolve("cinema.log");
+    directory = tempDir.resolve("rollups");
+    write(log,
+            "20-05-2025 10:00:05 [INFO] - Выполнение метода: HallController.getAll()",
+            "20-05-2025 10:00:06 [INFO] - Метод HallController.getAll() успешно выполнен.",
+            "20-05-2025 10:00:40 [INFO] - Выполнение метода: HallController.getAll()",
+            "20-05-2025 10:01:00 [ERROR] - Внутренняя ошибка сервера: boom",
+            "java.lang.IllegalStateException: boom",
+            "\tat Foo.bar(Foo.java:1)",
+            "20-05-2025 10:01:30 [ERROR] - Ошибка в методе: HallController.get(..). Сообщение: x",
+            "21-05-2025 09:00:00 [DEBUG] - Кэш прогрет");
+  }
+
+  @Test
+  void update_countsLevelsEndpointsAndExceptionsPerMinute() throws IOException {
+    LogRollups rollups = new LogRollups(log, directory);
+
+    rollups.update();
+    List<LogRollup> minutes = rollups.query(FROM, TO, 1);
+
+    assertEquals(3, minutes.size());
+    assertEquals(LocalDateTime.of(2025, 5, 20, 10, 0), minutes.get(0).getStart());
+    assertEquals(Map.of("INFO", 3L), minutes.get(0).getLevels());
+    assertEquals(Map.of("HallController.getAll()", 2L), minutes.get(0).getEndpoints());
+    assertEquals(Map.of("ERROR", 2L), minutes.get(1).getLevels());
+    assertEquals(Map.of("java.lang.IllegalStateException", 1L),
+            minutes.get(1).getExceptions());
+    assertEquals(Map.of("DEBUG", 1L), minutes.get(2).getLevels());
+  }
+
+  @Test
+  void query_sumsMinutesIntoPeriods() throws IOException {
+    LogRollups rollups = new LogRollups(log, directory);
+    rollups.update();
+
+    List<LogRollup> days = rollups.query(FROM, TO, 24 * 60);
+
+    assertEquals(2, days.size());
+    assertEquals(FROM, days.get(0).getStart());
+    assertEquals(Map.of("INFO", 3L, "ERROR", 2L), days.get(0).getLevels());
+    assertEquals(Map.of("DEBUG", 1L), days.get(1).getLevels());
+  }
+
+  @Test
+  void update_countsOnlyAppendedCompleteLines() throws IOException {
+    LogRollups rollups = new LogRollups(log, directory);
+    rollups.update();
+    Files.writeString(log, "21-05-2025 09:00:10 [ERROR] - новая\n21-05-2025 09:00:20 [ERR",
+            StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+    rollups.update();
+    Files.writeString(log, "OR] - дописана\n", StandardCharsets.UTF_8,
+            StandardOpenOption.APPEND);
+    rollups.update();
+
+    LogRollup minute = rollups.query(LocalDateTime.of(2025, 5, 21, 9, 0), TO, 1).get(0);
+    assertEquals(Map.of("DEBUG", 1L, "ERROR", 2L), minute.getLevels());
+  }
+
+  @Test
+  void rollups_arePersistedAndNotCountedTwiceAfterRestart() throws IOException {
+    new LogRollups(log, directory).update();
+
+    LogRollups restarted = new LogRollups(log, directory);
+    restarted.update();
+    List<LogRollup> afterRestart = restarted.query(FROM, TO, 24 * 60);
+    Files.delete(log);
+    List<LogRollup> withoutLog = new LogRollups(log, directory).query(FROM, TO, 24 * 60);
+
+    assertEquals(Map.of("INFO", 3L, "ERROR", 2L), afterRestart.get(0).getLevels());
+    assertEquals(Map.of("INFO", 3L, "ERROR", 2L), withoutLog.get(0).getLevels());
+    assertEquals(Map.of("HallController.getAll()", 2L), withoutLog.get(0).getEndpoints());
+  }
+
+  @Test
+  void update_rotatedLog_isCountedFromTheStart() throws IOException {
+    LogRollups rollups = new LogRollups(log, directory);
+    rollups.update();
+    write(log, "22-05-2025 08:00:00 [WARN] - после ротации");
+
+    rollups.update();
+
+    List<LogRollup> minutes = rollups.query(LocalDateTime.of(2025, 5, 22, 0, 0),
+            LocalDateTime.of(2025, 5, 23, 0, 0), 1);
+    assertEquals(1, minutes.size());
+    assertEquals(Map.of("WARN", 1L), minutes.get(0).getLevels());
+  }
+
+  @Test
+  void expire_deletesDaysBeforeTheOldestKept() throws IOException {
+    LogRollups rollups = new LogRollups(log, directory);
+    rollups.update();
+
+    rollups.expire(LocalDate.of(2025, 5, 21));
+
+    assertFalse(Files.exists(directory.resolve("2025-05-20.rollup")));
+    assertTrue(Files.exists(directory.resolve("2025-05-21.rollup")));
+    assertEquals(1, rollups.query(FROM, TO, 24 * 60).size());
+  }
+
+  private static void write(Path file, String... lines) throws IOException {
+    Files.write(file, List.of(lines), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,75 @@
+package com.example.cinema.metrics;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeavyHittersTest {
+
+  @Test
+  void top_findsHotKeysAmongManyColdOnes() {
+    HeavyHitters hitters = new HeavyHitters(20, 1024);
+    Random random = new Random(42);
+    for (int i = 0; i < 200_000; i++) {
+      // Пять горячих ключей получают по 5% обращений, остальные рассеяны по миллиону ключей
+      if (random.nextInt(4) == 0) {
+        hitters.record(random.nextInt(5));
+      } else {
+        hitters.record(1_000 + random.nextInt(1_000_000));
+      }
+    }
+
+    List<HeavyHitter> top = hitters.top(5);
+
+    assertEquals(List.of(0L, 1L, 2L, 3L, 4L),
+            top.stream().map(HeavyHitter::getId).sorted().collect(Collectors.toList()));
+    for (HeavyHitter hitter : top) {
+      assertTrue(hitter.getCount() >= 9_000, "count of " + hitter.getId());
+    }
+  }
+
+  @Test
+  void top_keepsAtMostCapacityCandidates() {
+    HeavyHitters hitters = new HeavyHitters(3, 256);
+    for (long key = 0; key < 1_000; key++) {
+      hitters.record(key);
+    }
+
+    assertTrue(hitters.top(100).size() <= 3);
+    assertTrue(hitters.top(0).isEmpty());
+    assertTrue(hitters.top(-1).isEmpty());
+  }
+
+  @Test
+  void decay_letsNewlyHotKeysOvertakeFormerOnes() {
+    HeavyHitters hitters = new HeavyHitters(2, 256);
+    for (int i = 0; i < 1_000; i++) {
+      hitters.record(1);
+    }
+    for (int i = 0; i < 4; i++) {
+      hitters.decay();
+    }
+    for (int i = 0; i < 200; i++) {
+      hitters.record(2);
+    }
+
+    List<HeavyHitter> top = hitters.top(2);
+
+    assertEquals(2L, top.get(0).getId());
+    assertEquals(200, top.get(0).getCount());
+    assertEquals(62, hitters.estimate(1));
+  }
+
+  @Test
+  void decay_dropsKeysNoLongerAccessed() {
+    HeavyHitters hitters = new HeavyHitters(2, 256);
+    hitters.record(1);
+
+    hitters.decay();
+
+    assertTrue(hitters.top(2).isEmpty());
+  }
+}
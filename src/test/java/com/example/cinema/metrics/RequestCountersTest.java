@@ -0,0 +1,91 @@
+package com.example.cinema.metrics;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestCountersTest {
+
+  private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+  private final RequestCounters counters = new RequestCounters(Duration.ofSeconds(10), now::get);
+
+  @Test
+  void recorder_countsCallsByEndpointAndStatus() {
+    IntConsumer halls = counters.recorder("HallController.getAllHalls()");
+    IntConsumer hall = counters.recorder("HallController.getHallById(..)");
+    halls.accept(200);
+    halls.accept(200);
+    hall.accept(404);
+    hall.accept(-1);
+
+    Map<String, Map<Integer, VisitCount>> snapshot = counters.snapshot();
+
+    assertEquals(2, snapshot.get("HallController.getAllHalls()").get(200).getTotal());
+    assertEquals(1, snapshot.get("HallController.getHallById(..)").get(404).getLastMinute());
+    assertEquals(1, snapshot.get("HallController.getHallById(..)").get(0).getTotal());
+    assertEquals(1, snapshot.get("HallController.getAllHalls()").size());
+  }
+
+  @Test
+  void snapshot_dropsCallsThatLeftEachWindow() {
+    IntConsumer recorder = counters.recorder("A.m()");
+    for (int i = 0; i < 60; i++) {
+      recorder.accept(200);
+    }
+    now.addAndGet(TimeUnit.MINUTES.toNanos(2));
+    recorder.accept(200);
+    now.addAndGet(TimeUnit.MINUTES.toNanos(10));
+    recorder.accept(200);
+
+    VisitCount count = counters.snapshot().get("A.m()").get(200);
+
+    assertEquals(62, count.getTotal());
+    assertEquals(1, count.getLastMinute());
+    assertEquals(1, count.getLastFiveMinutes());
+    assertEquals(62, count.getLastHour());
+    assertEquals(1 / 60.0, count.getMinuteRate(), 1e-9);
+    now.addAndGet(TimeUnit.HOURS.toNanos(1));
+    assertEquals(0, counters.snapshot().get("A.m()").get(200).getLastHour());
+  }
+
+  @Test
+  void recorder_reusesBucketsAfterTheRingWrapsAround() {
+    IntConsumer recorder = counters.recorder("A.m()");
+    recorder.accept(200);
+    recorder.accept(200);
+    now.addAndGet(TimeUnit.HOURS.toNanos(1));
+    recorder.accept(200);
+
+    VisitCount count = counters.snapshot().get("A.m()").get(200);
+
+    assertEquals(3, count.getTotal());
+    assertEquals(1, count.getLastMinute());
+    assertEquals(1, count.getLastHour());
+  }
+
+  @Test
+  void recorder_fromMultipleThreads_keepsEveryCall() throws InterruptedException {
+    IntConsumer recorder = counters.recorder("A.m()");
+    Thread[] threads = new Thread[8];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread(() -> {
+        for (int j = 0; j < 10_000; j++) {
+          recorder.accept(200);
+        }
+      });
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    VisitCount count = counters.snapshot().get("A.m()").get(200);
+    assertEquals(80_000, count.getTotal());
+    assertEquals(80_000, count.getLastMinute());
+  }
+}
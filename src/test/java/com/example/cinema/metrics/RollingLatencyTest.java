@@ -0,0 +1,88 @@
+package com.example.cinema.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RollingLatencyTest {
+
+  private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+  private final RollingLatency latency = new RollingLatency(Duration.ofSeconds(60), 6, now::get);
+
+  @Test
+  void histogram_bucketBoundsStayWithinRelativeError() {
+    for (long value : new long[] {0, 1, 31, 32, 33, 63, 64, 1_000, 123_456, 987_654_321L,
+            LatencyHistogram.MAX_VALUE}) {
+      long highest = LatencyHistogram.highestValue(LatencyHistogram.index(value));
+      assertTrue(highest >= value, "bucket of " + value);
+      assertTrue(highest - value <= value / 32, "error for " + value);
+    }
+  }
+
+  @Test
+  void snapshot_reportsPercentilesOfTheWindow() {
+    for (int i = 1; i <= 1000; i++) {
+      latency.record(TimeUnit.MICROSECONDS.toNanos(i * 10L));
+    }
+
+    LatencySnapshot snapshot = latency.snapshot();
+
+    assertEquals(1000, snapshot.getCount());
+    assertEquals(5.0, snapshot.getP50(), 5.0 * 0.04);
+    assertEquals(9.0, snapshot.getP90(), 9.0 * 0.04);
+    assertEquals(9.9, snapshot.getP99(), 9.9 * 0.04);
+    assertEquals(9.99, snapshot.getP999(), 9.99 * 0.04);
+    assertEquals(10.0, snapshot.getMax(), 10.0 * 0.04);
+    assertEquals(5.0, snapshot.getMean(), 5.0 * 0.04);
+  }
+
+  @Test
+  void snapshot_dropsSlicesThatLeftTheWindow() {
+    latency.record(TimeUnit.MILLISECONDS.toNanos(500));
+    now.addAndGet(TimeUnit.SECONDS.toNanos(30));
+    latency.record(TimeUnit.MILLISECONDS.toNanos(2));
+
+    assertEquals(2, latency.snapshot().getCount());
+    now.addAndGet(TimeUnit.SECONDS.toNanos(40));
+    LatencySnapshot later = latency.snapshot();
+    now.addAndGet(TimeUnit.SECONDS.toNanos(60));
+    latency.record(TimeUnit.MILLISECONDS.toNanos(1));
+    LatencySnapshot reused = latency.snapshot();
+
+    assertEquals(1, later.getCount());
+    assertEquals(2.0, later.getMax(), 0.1);
+    assertEquals(1, reused.getCount());
+    assertEquals(3, reused.getTotalCount());
+  }
+
+  @Test
+  void endpointLatencies_keepsOneDistributionPerEndpoint() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    EndpointLatencies latencies = new EndpointLatencies(Duration.ofMinutes(1), 6, registry);
+
+    latencies.recorder("HallController.getAllHalls()").accept(1_000_000);
+    latencies.recorder("HallController.getAllHalls()").accept(2_000_000);
+    latencies.recorder("LogController.getStatus(..)").accept(3_000_000);
+
+    assertEquals(2, latencies.snapshot().get("HallController.getAllHalls()").getCount());
+    assertEquals(1, latencies.snapshot().get("LogController.getStatus(..)").getCount());
+    Timer timer = registry.get(EndpointLatencies.TIMER)
+            .tag("endpoint", "HallController.getAllHalls()").timer();
+    assertEquals(2, timer.count());
+    assertEquals(3.0, timer.totalTime(TimeUnit.MILLISECONDS), 0.001);
+  }
+
+  @Test
+  void snapshot_negativeTicker_keepsRecentSlices() {
+    RollingLatency negative = new RollingLatency(Duration.ofSeconds(60), 6,
+            () -> -TimeUnit.HOURS.toNanos(1));
+    negative.record(TimeUnit.MILLISECONDS.toNanos(3));
+
+    assertEquals(1, negative.snapshot().getCount());
+  }
+}
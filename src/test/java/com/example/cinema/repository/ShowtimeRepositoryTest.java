@@ -0,0 +1,184 @@
+package com.example.cinema.repository;
+
+import com.example.cinema.dto.ShowtimeDto;
+import com.example.cinema.model.Hall;
+import com.example.cinema.model.Showtime;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+  "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+  "spring.jpa.show-sql=false",
+  "spring.jpa.properties.hibernate.generate_statistics=true",
+  "spring.jpa.properties.hibernate.jdbc.batch_size=500"
+})
+class ShowtimeRepositoryTest {
+
+  private static final int HALLS = 20;
+  private static final int MANY_SHOWTIMES = 10_000;
+  private static final int SHOWTIMES = 1_000;
+  private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 10, 0);
+
+  @Autowired
+  private ShowtimeRepository showtimeRepository;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  private Statistics statistics;
+
+  private void persistShowtimes(int count) {
+    Hall[] halls = new Hall[HALLS];
+    for (int i = 0; i < HALLS; i++) {
+      halls[i] = new Hall("Hall " + i, 100 + i);
+      entityManager.persist(halls[i]);
+    }
+    for (int i = 0; i < count; i++) {
+      // Через каждые 4 сеанса время повторяется, чтобы проверить сортировку по ID
+      entityManager.persist(new Showtime(START.plusHours(i / 4), "Film " + i, halls[i % HALLS]));
+    }
+    entityManager.flush();
+    entityManager.clear();
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  @Test
+  void findAllShowtimeDtos_loadsShowtimesWithHallsInOneStatement() {
+    persistShowtimes(MANY_SHOWTIMES);
+
+    List<ShowtimeDto> showtimes = showtimeRepository.findAllShowtimeDtos();
+
+    assertEquals(MANY_SHOWTIMES, showtimes.size());
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertEquals(0, statistics.getEntityLoadCount());
+    ShowtimeDto last = showtimes.get(MANY_SHOWTIMES - 1);
+    assertEquals("Film " + (MANY_SHOWTIMES - 1), last.getFilmTitle());
+    assertEquals("Hall " + ((MANY_SHOWTIMES - 1) % HALLS), last.getHall().getName());
+  }
+
+  @Test
+  void findPageAfter_walksAllShowtimesInKeysetOrder() {
+    persistShowtimes(SHOWTIMES);
+    int pageSize = 30;
+    List<ShowtimeDto> page = showtimeRepository.findFirstPage(PageRequest.ofSize(pageSize));
+    int seen = 0;
+    ShowtimeDto previous = null;
+    while (!page.isEmpty()) {
+      for (ShowtimeDto showtime : page) {
+        if (previous != null) {
+          assertTrue(previous.getDateTime().isBefore(showtime.getDateTime())
+                  || previous.getDateTime().equals(showtime.getDateTime())
+                  && previous.getId() < showtime.getId());
+        }
+        previous = showtime;
+        seen++;
+      }
+      page = showtimeRepository.findPageAfter(
+              previous.getDateTime(), previous.getId(), PageRequest.ofSize(pageSize));
+    }
+
+    assertEquals(SHOWTIMES, seen);
+  }
+
+  @Test
+  void findByHallIdAndDate_matchesHalfOpenDay() {
+    Hall hall = new Hall("Hall A", 100);
+    entityManager.persist(hall);
+    LocalDate day = START.toLocalDate();
+    entityManager.persist(new Showtime(day.atStartOfDay(), "Midnight", hall));
+    entityManager.persist(new Showtime(day.atTime(23, 59, 59), "Late", hall));
+    entityManager.persist(new Showtime(day.plusDays(1).atStartOfDay(), "Next day", hall));
+    entityManager.flush();
+
+    List<Showtime> showtimes = showtimeRepository.findByHallIdAndDate(hall.getId(), day);
+
+    assertEquals(List.of("Midnight", "Late"),
+            showtimes.stream().map(Showtime::getFilmTitle).collect(Collectors.toList()));
+  }
+
+  @Test
+  void dateTimeRangeQuery_usesHallAndDateTimeIndex() {
+    String plan = (String) entityManager.createNativeQuery("EXPLAIN SELECT * FROM showtimes s "
+            + "WHERE s.hall_id = 1 AND s.date_time >= TIMESTAMP '2025-01-01 00:00:00' "
+            + "AND s.date_time < TIMESTAMP '2025-01-02 00:00:00'").getSingleResult();
+
+    // H2 выводит условия, проверяемые по индексу, в комментарии после имени таблицы
+    String indexConditions = plan.substring(plan.indexOf("/*"), plan.indexOf("*/"));
+    assertTrue(indexConditions.contains("IDX_SHOWTIMES_HALL_ID_DATE_TIME:"), plan);
+    assertTrue(indexConditions.contains("HALL_ID ="), plan);
+    assertTrue(indexConditions.contains("DATE_TIME >="), plan);
+    assertTrue(indexConditions.contains("DATE_TIME <"), plan);
+  }
+
+  @Test
+  void streamAll_returnsEveryShowtimeInOrder() {
+    persistShowtimes(SHOWTIMES);
+    List<Long> ids;
+    try (Stream<ShowtimeDto> showtimes = showtimeRepository.streamAll()) {
+      ids = showtimes.map(ShowtimeDto::getId).collect(Collectors.toList());
+    }
+
+    assertEquals(SHOWTIMES, ids.size());
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertEquals(ids.stream().sorted().collect(Collectors.toList()), ids);
+  }
+
+  @Test
+  void keysetPages_includeShowtimesWithoutDateLast() {
+    Hall hall = new Hall("Hall A", 100);
+    entityManager.persist(hall);
+    entityManager.persist(new Showtime(null, "Undated 1", hall));
+    entityManager.persist(new Showtime(START.plusHours(1), "Later", hall));
+    entityManager.persist(new Showtime(null, "Undated 2", hall));
+    entityManager.persist(new Showtime(START, "Earlier", hall));
+    entityManager.flush();
+    PageRequest two = PageRequest.ofSize(2);
+
+    List<ShowtimeDto> first = showtimeRepository.findFirstPage(two);
+    ShowtimeDto later = first.get(1);
+    List<ShowtimeDto> second = showtimeRepository.findPageAfter(
+            later.getDateTime(), later.getId(), two);
+    List<ShowtimeDto> rest = showtimeRepository.findUndatedPageAfter(second.get(0).getId(), two);
+
+    assertEquals(List.of("Earlier", "Later"), titles(first));
+    assertEquals(List.of("Undated 1", "Undated 2"), titles(second));
+    assertEquals(List.of("Undated 2"), titles(rest));
+  }
+
+  private static List<String> titles(List<ShowtimeDto> showtimes) {
+    return showtimes.stream().map(ShowtimeDto::getFilmTitle).collect(Collectors.toList());
+  }
+
+  @Test
+  void streamAll_includesShowtimesWithoutDateLast() {
+    Hall hall = new Hall("Hall A", 100);
+    entityManager.persist(hall);
+    entityManager.persist(new Showtime(null, "Undated", hall));
+    entityManager.persist(new Showtime(START, "Dated", hall));
+    entityManager.flush();
+
+    List<String> titles;
+    try (Stream<ShowtimeDto> showtimes = showtimeRepository.streamAll()) {
+      titles = showtimes.map(ShowtimeDto::getFilmTitle).collect(Collectors.toList());
+    }
+
+    assertEquals(List.of("Dated", "Undated"), titles);
+  }
+}
@@ -0,0 +1,91 @@
+package com.example.cinema.repository;
+
+import com.example.cinema.model.VisitCounter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+  "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+  "spring.jpa.show-sql=false",
+  "spring.jpa.properties.hibernate.generate_statistics=true",
+  "spring.jpa.properties.hibernate.jdbc.batch_size=50"
+})
+class VisitCounterRepositoryTest {
+
+  private static final int ROWS = 100;
+  private static final LocalDateTime NOW = LocalDateTime.of(2025, 5, 20, 12, 0);
+
+  @Autowired
+  private VisitCounterRepository visitCounterRepository;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  private Statistics statistics;
+
+  @BeforeEach
+  void setUp() {
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  private List<VisitCounter> rows(long visits) {
+    List<VisitCounter> rows = new ArrayList<>();
+    for (int i = 0; i < ROWS; i++) {
+      rows.add(new VisitCounter("a", "Controller.method" + i + "()", 200, visits, NOW));
+    }
+    return rows;
+  }
+
+  @Test
+  void saveAll_newRows_insertsWithoutSelectingThem() {
+    visitCounterRepository.saveAll(rows(1L));
+    entityManager.flush();
+
+    assertEquals(ROWS, statistics.getEntityInsertCount());
+    assertEquals(0, statistics.getEntityLoadCount());
+  }
+
+  @Test
+  void findByInstance_loadedRowsAreNotNew() {
+    visitCounterRepository.saveAll(rows(1L));
+    entityManager.flush();
+    entityManager.clear();
+
+    List<VisitCounter> loaded = visitCounterRepository.findByInstance("a");
+
+    assertEquals(ROWS, loaded.size());
+    assertTrue(loaded.stream().noneMatch(VisitCounter::isNew));
+  }
+
+  @Test
+  void saveAll_existingRows_updatesTotals() {
+    visitCounterRepository.saveAll(rows(1L));
+    entityManager.flush();
+    entityManager.clear();
+    List<VisitCounter> updated = rows(2L);
+    updated.forEach(row -> row.setNew(false));
+
+    visitCounterRepository.saveAll(updated);
+    entityManager.flush();
+    entityManager.clear();
+
+    assertEquals(ROWS, statistics.getEntityUpdateCount());
+    assertTrue(visitCounterRepository.findByInstance("a").stream()
+            .allMatch(row -> row.getVisits() == 2L));
+  }
+}
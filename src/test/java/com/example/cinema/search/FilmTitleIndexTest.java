@@ -0,0 +1,127 @@
+package com.example.cinema.search;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FilmTitleIndexTest {
+
+  private static final LocalDateTime NOW = LocalDateTime.of(2025, 6, 1, 12, 0);
+
+  private final FilmTitleIndex index = new FilmTitleIndex();
+
+  @Test
+  void search_findsSubstringInAnyCase() {
+    index.put(1L, "Inception", NOW.plusHours(1));
+    index.put(2L, "The Matrix", NOW.plusHours(2));
+    index.put(3L, "Matrix Reloaded", NOW.plusHours(3));
+
+    assertEquals(List.of("Inception"), index.search("CEPT", 10, NOW));
+    assertEquals(List.of("Matrix Reloaded", "The Matrix"), index.search("matrix", 10, NOW));
+    assertEquals(List.of(), index.search("dune", 10, NOW));
+  }
+
+  @Test
+  void search_shortQuery_usesShortGrams() {
+    index.put(1L, "Up", NOW.plusHours(1));
+    index.put(2L, "Tenet", NOW.plusHours(1));
+
+    assertEquals(List.of("Up"), index.search("up", 10, NOW));
+    assertEquals(List.of("Tenet"), index.search("N", 10, NOW));
+    assertEquals(List.of(), index.search("x", 10, NOW));
+  }
+
+  @Test
+  void suggest_shortPrefix_matchesWordStarts() {
+    index.put(1L, "The Matrix", NOW.plusHours(1));
+    index.put(2L, "Submatrix", NOW.plusHours(1));
+
+    assertEquals(List.of("The Matrix"), index.suggest("m", 10, NOW));
+    assertEquals(List.of("Submatrix", "The Matrix"), index.suggest("", 10, NOW));
+  }
+
+  @Test
+  void remove_lastShowtime_dropsShortGrams() {
+    index.put(1L, "Up", NOW.plusHours(1));
+
+    index.remove(1L);
+
+    assertEquals(List.of(), index.search("u", 10, NOW));
+  }
+
+  @Test
+  void rebuild_keepsUpdatesMadeWhileLoading() {
+    index.put(1L, "Inception", NOW.plusHours(1));
+    index.put(2L, "Tenet", NOW.plusHours(1));
+
+    index.rebuild(fresh -> {
+      fresh.put(1L, "Inception", NOW.plusHours(1));
+      fresh.put(2L, "Tenet", NOW.plusHours(1));
+      assertEquals(List.of("Inception"), index.search("incep", 10, NOW));
+      index.put(3L, "Dune", NOW.plusHours(2));
+      index.remove(2L);
+    });
+
+    assertEquals(List.of("Dune"), index.search("dune", 10, NOW));
+    assertEquals(List.of(), index.search("tenet", 10, NOW));
+    assertEquals(2, index.size());
+  }
+
+  @Test
+  void rebuild_loaderFails_keepsCurrentContents() {
+    index.put(1L, "Inception", NOW.plusHours(1));
+
+    assertThrows(IllegalStateException.class, () -> index.rebuild(fresh -> {
+      throw new IllegalStateException("database is down");
+    }));
+    index.put(2L, "Dune", NOW.plusHours(1));
+
+    assertEquals(List.of("Inception"), index.search("incep", 10, NOW));
+    assertEquals(2, index.size());
+  }
+
+  @Test
+  void suggest_matchesTitleAndWordPrefixes_rankedByUpcomingSessions() {
+    index.put(1L, "The Matrix", NOW.plusHours(1));
+    index.put(2L, "Matrix Reloaded", NOW.plusHours(1));
+    index.put(3L, "Matrix Reloaded", NOW.plusHours(5));
+    index.put(4L, "The Matrix", NOW.minusDays(1));
+    index.put(5L, "Submatrix", NOW.plusHours(1));
+
+    assertEquals(List.of("Matrix Reloaded", "The Matrix"), index.suggest("Mat", 10, NOW));
+    assertEquals(List.of("Matrix Reloaded"), index.suggest("mat", 1, NOW));
+  }
+
+  @Test
+  void put_showtimeWithoutDate_isSearchable() {
+    index.put(1L, "Undated", null);
+
+    assertEquals(List.of("Undated"), index.search("dated", 10, NOW));
+  }
+
+  @Test
+  void put_existingShowtime_movesItToNewTitle() {
+    index.put(1L, "Inception", NOW.plusHours(1));
+
+    index.put(1L, "Interstellar", NOW.plusHours(1));
+
+    assertEquals(List.of(), index.search("incep", 10, NOW));
+    assertEquals(List.of("Interstellar"), index.search("stella", 10, NOW));
+    assertEquals(1, index.size());
+  }
+
+  @Test
+  void remove_lastShowtime_dropsTitle() {
+    index.put(1L, "Inception", NOW.plusHours(1));
+    index.put(2L, "Inception", NOW.plusHours(2));
+
+    index.remove(1L);
+    assertEquals(List.of("Inception"), index.search("incep", 10, NOW));
+
+    index.remove(2L);
+    assertEquals(List.of(), index.search("incep", 10, NOW));
+    assertEquals(0, index.size());
+  }
+}
@@ -1,6 +1,7 @@
 package com.example.cinema.service;
 
 import com.example.cinema.exception.ResourceNotFoundException;
+import com.example.cinema.metrics.PopularEntities;
 import com.example.cinema.model.Hall;
 import com.example.cinema.repository.HallRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -29,6 +30,9 @@ class HallServiceTest {
   @Mock
   private VisitCounterService visitCounterService;
 
+  @Mock
+  private PopularEntities popularEntities;
+
   @InjectMocks
   private HallService hallService;
 
@@ -118,6 +122,18 @@ class HallServiceTest {
     assertTrue(result.isEmpty());
   }
 
+  @Test
+  void getHallById_countsViewsOfExistingHallsOnly() {
+    when(hallRepository.findById(1L)).thenReturn(Optional.of(hall));
+    when(hallRepository.findById(2L)).thenReturn(Optional.empty());
+
+    hallService.getHallById(1L);
+    hallService.getHallById(2L);
+
+    verify(popularEntities).recordHall(1L);
+    verify(popularEntities, never()).recordHall(2L);
+  }
+
   @Test
   void updateHall_success() {
     when(hallRepository.findById(1L)).thenReturn(Optional.of(hall));
@@ -1,6 +1,8 @@
 package com.example.cinema.service;
 
 import com.example.cinema.exception.ResourceNotFoundException;
+import com.example.cinema.exception.ValidationException;
+import com.example.cinema.logs.LogTaskStats;
 import com.example.cinema.model.LogObject;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,22 +12,35 @@ import org.mockito.InjectMocks;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.core.io.Resource;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.PosixFilePermission;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -169,22 +184,44 @@ class LogServiceTest {
     LogObject logObject = new LogObject(taskId, "IN_PROGRESS");
     logService.tasks.put(taskId, logObject);
 
-    // 2. Прерывание потока
+    // 2. Прерывание потока до начала обработки
     Thread testThread = new Thread(() -> {
-      try {
-        logService.createLogs(taskId, "15-01-2023");
-      } catch (Exception e) {
-        // Ожидаемое прерывание
-      }
+      Thread.currentThread().interrupt();
+      logService.createLogs(taskId, "15-01-2023");
     });
     testThread.start();
-    testThread.interrupt();
     testThread.join();
 
-    // 3. Проверки
+    // 3. Задача не должна навсегда остаться в статусе IN_PROGRESS
     LogObject updatedTask = logService.tasks.get(taskId);
     assertNotNull(updatedTask);
-    assertEquals("IN_PROGRESS", updatedTask.getStatus()); // или другое ожидаемое состояние
+    assertEquals("FAILED", updatedTask.getStatus());
+    assertEquals("Создание логов прервано", updatedTask.getErrorMessage());
+  }
+
+  @Test
+  void createLogs_success_reportsProgress() throws Exception {
+    Path tempLogFile = tempDir.resolve("cinema.log");
+    Files.write(tempLogFile, List.of(
+            "14-05-2025 Log message 1",
+            "15-05-2025 Log message 2",
+            "15-05-2025 Log message 3"
+    ));
+    logService.setLogFilePath(tempLogFile.toString());
+
+    Long taskId = 1L;
+    LogObject logObject = new LogObject(taskId, "IN_PROGRESS");
+    logService.tasks.put(taskId, logObject);
+    assertEquals(0, logObject.getPercent());
+    assertNull(logObject.getEtaSeconds());
+
+    logService.createLogs(taskId, "15-05-2025");
+
+    assertEquals("COMPLETED", logObject.getStatus());
+    assertEquals(2, logObject.getLinesMatched());
+    assertTrue(logObject.getBytesTotal() > Files.size(tempLogFile));
+    assertEquals(logObject.getBytesTotal(), logObject.getBytesScanned());
+    assertEquals(100, logObject.getPercent());
   }
 
   @Test
@@ -319,8 +356,9 @@ class LogServiceTest {
 
     executor.shutdown();
 
-    // 5. Проверяем, что все вызовы были обработаны
-    verify(logService.self, times(threadCount)).createLogs(anyLong(), anyString());
+    // 5. Запросы за одну дату объединяются: выгрузка создаётся один раз на дату
+    verify(logService.self, times(2)).createLogs(anyLong(), anyString());
+    assertEquals(threadCount - 2, logService.getTaskStats().getReuseCount());
   }
 
   @Test
@@ -417,4 +455,251 @@ class LogServiceTest {
       logService.createLogs(1000L, "15-05-2025");
     });
   }
-}
\ No newline at end of file
+
+  @Test
+  void createLogAsync_registryFull_evictsOldestFinishedTaskWithItsFile() throws Exception {
+    logService.setClock(Clock.fixed(Instant.parse("2025-05-15T12:00:00Z"), ZoneOffset.UTC));
+    logService.setRegistryLimits(2, Duration.ofHours(3), DataSize.ofGigabytes(1));
+    doNothing().when(logService.self).createLogs(anyLong(), anyString());
+    LogObject oldest = completedTask(1L, Instant.parse("2025-05-15T10:00:00Z"));
+    LogObject newer = completedTask(2L, Instant.parse("2025-05-15T11:00:00Z"));
+    logService.idCounter = new AtomicLong(3);
+
+    Long id = logService.createLogAsync("15-05-2025");
+
+    assertEquals(3L, id);
+    assertFalse(logService.tasks.containsKey(1L));
+    assertFalse(Files.exists(Path.of(oldest.getFilePath())));
+    assertSame(newer, logService.tasks.get(2L));
+    assertEquals(1, logService.getTaskStats().getEvictionCount());
+  }
+
+  @Test
+  void createLogAsync_allTasksInProgress_isRejected() {
+    logService.setRegistryLimits(1, Duration.ofHours(1), DataSize.ofGigabytes(1));
+    logService.tasks.put(1L, new LogObject(1L, "IN_PROGRESS"));
+    logService.idCounter = new AtomicLong(2);
+
+    ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+            () -> logService.createLogAsync("15-05-2025"));
+
+    assertEquals(HttpStatus.TOO_MANY_REQUESTS, exception.getStatusCode());
+    assertEquals(1, logService.tasks.size());
+  }
+
+  @Test
+  void sweepTasks_removesFinishedTasksAfterTimeToLive() throws Exception {
+    Instant now = Instant.parse("2025-05-15T12:00:00Z");
+    logService.setClock(Clock.fixed(now, ZoneOffset.UTC));
+    logService.setRegistryLimits(10, Duration.ofHours(1), DataSize.ofGigabytes(1));
+    LogObject expired = completedTask(1L, now.minus(Duration.ofMinutes(61)));
+    completedTask(2L, now.minus(Duration.ofMinutes(59)));
+    logService.tasks.put(3L, new LogObject(3L, "IN_PROGRESS"));
+
+    logService.sweepTasks();
+
+    assertEquals(Set.of(2L, 3L), logService.tasks.keySet());
+    assertFalse(Files.exists(Path.of(expired.getFilePath())));
+    assertEquals(1, logService.getTaskStats().getExpirationCount());
+  }
+
+  @Test
+  void createLogs_overDiskQuota_evictsOldestExtracts() throws Exception {
+    Path tempLogFile = tempDir.resolve("cinema.log");
+    Files.write(tempLogFile, List.of("15-05-2025 Test log"));
+    logService.setLogFilePath(tempLogFile.toString());
+    logService.setClock(Clock.fixed(Instant.parse("2025-05-15T12:00:00Z"), ZoneOffset.UTC));
+    LogObject oldest = completedTask(1L, Instant.parse("2025-05-15T10:00:00Z"));
+    completedTask(2L, Instant.parse("2025-05-15T11:00:00Z"));
+    // Две старые выгрузки по 10 байт и новая на 20 байт не помещаются в квоту
+    logService.setRegistryLimits(10, Duration.ofHours(3), DataSize.ofBytes(35));
+    logService.tasks.put(3L, new LogObject(3L, "IN_PROGRESS"));
+
+    logService.createLogs(3L, "15-05-2025");
+
+    assertEquals(Set.of(2L, 3L), logService.tasks.keySet());
+    assertFalse(Files.exists(Path.of(oldest.getFilePath())));
+    LogTaskStats stats = logService.getTaskStats();
+    assertEquals(2, stats.getCompleted());
+    assertEquals(10 + Files.size(Path.of(logService.tasks.get(3L).getFilePath())),
+            stats.getDiskUsageBytes());
+    assertEquals(1, stats.getEvictionCount());
+  }
+
+  private LogObject completedTask(Long id, Instant finishedAt) throws IOException {
+    Path file = tempDir.resolve("extract-" + id + ".log");
+    Files.writeString(file, "0123456789");
+    LogObject task = new LogObject(id, "COMPLETED");
+    task.setFilePath(file.toString());
+    task.setFileSize(10);
+    task.setFinishedAt(finishedAt);
+    logService.tasks.put(id, task);
+    return task;
+  }
+
+  @Test
+  void createLogAsync_invalidDate_isRejectedBeforeRegistering() {
+    assertThrows(ValidationException.class, () -> logService.createLogAsync("2025-13-99"));
+    assertThrows(ValidationException.class, () -> logService.createLogAsync(" "));
+
+    assertTrue(logService.tasks.isEmpty());
+    verify(logService.self, never()).createLogs(anyLong(), anyString());
+  }
+
+  @Test
+  void createLogAsync_submissionRejected_unregistersTask() {
+    doThrow(new TaskRejectedException("Очередь заполнена"))
+            .when(logService.self).createLogs(anyLong(), anyString());
+
+    ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+            () -> logService.createLogAsync("15-05-2025"));
+
+    assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatusCode());
+    assertTrue(logService.tasks.isEmpty());
+    doNothing().when(logService.self).createLogs(anyLong(), anyString());
+    assertNotNull(logService.tasks.get(logService.createLogAsync("15-05-2025")));
+  }
+
+  @Test
+  void createLogs_unexpectedException_marksTaskFailed() {
+    logService.tasks.put(1L, new LogObject(1L, "IN_PROGRESS"));
+
+    logService.createLogs(1L, "2025-13-99");
+
+    assertEquals("FAILED", logService.tasks.get(1L).getStatus());
+    assertNotNull(logService.tasks.get(1L).getFinishedAt());
+  }
+
+  @Test
+  void createLogAsync_sameDateInProgress_returnsRunningTask() {
+    doNothing().when(logService.self).createLogs(anyLong(), anyString());
+
+    Long first = logService.createLogAsync("15-05-2025");
+    Long second = logService.createLogAsync("15-05-2025");
+    Long otherDate = logService.createLogAsync("16-05-2025");
+
+    assertEquals(first, second);
+    assertNotEquals(first, otherDate);
+    assertEquals(2, logService.tasks.size());
+    verify(logService.self, times(1)).createLogs(first, "15-05-2025");
+    assertEquals(1, logService.getTaskStats().getReuseCount());
+  }
+
+  @Test
+  void createLogAsync_completedDate_reusedOnlyForPastDays() throws Exception {
+    logService.setClock(Clock.fixed(Instant.parse("2025-05-15T12:00:00Z"), ZoneOffset.UTC));
+    doNothing().when(logService.self).createLogs(anyLong(), anyString());
+    Long yesterday = logService.createLogAsync("14-05-2025");
+    Long today = logService.createLogAsync("15-05-2025");
+    for (Long id : List.of(yesterday, today)) {
+      LogObject task = logService.tasks.get(id);
+      Path file = tempDir.resolve("extract-" + id + ".log");
+      Files.writeString(file, task.getDate() + " Test log\n");
+      task.setFilePath(file.toString());
+      task.setFinishedAt(Instant.parse("2025-05-15T11:59:00Z"));
+      task.setStatus("COMPLETED");
+    }
+
+    assertEquals(yesterday, logService.createLogAsync("14-05-2025"));
+    Long todayAgain = logService.createLogAsync("15-05-2025");
+
+    assertNotEquals(today, todayAgain);
+    verify(logService.self, times(3)).createLogs(anyLong(), anyString());
+  }
+
+  @Test
+  void downloadCreatedLogs_acceptGzip_servesCompressedCopyWithValidators() throws Exception {
+    Path extract = tempDir.resolve("logs-15-05-2025.log");
+    Files.writeString(extract, "15-05-2025 10:00:00 [INFO] - Запрос обработан\n".repeat(200));
+    LogObject task = new LogObject(1L, "COMPLETED");
+    task.setFilePath(extract.toString());
+    task.setFileSize(Files.size(extract));
+    logService.tasks.put(1L, task);
+
+    ResponseEntity<Resource> plain = logService.downloadCreatedLogs(1L, false);
+    ResponseEntity<Resource> gzip = logService.downloadCreatedLogs(1L, true);
+
+    assertNotNull(plain.getHeaders().getETag());
+    assertEquals(Files.getLastModifiedTime(extract).toMillis() / 1000,
+            plain.getHeaders().getLastModified() / 1000);
+    assertNull(plain.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    assertEquals("gzip", gzip.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    assertEquals(List.of(HttpHeaders.ACCEPT_ENCODING), gzip.getHeaders().getVary());
+    assertNotEquals(plain.getHeaders().getETag(), gzip.getHeaders().getETag());
+    try (InputStream in = new GZIPInputStream(gzip.getBody().getInputStream())) {
+      assertArrayEquals(Files.readAllBytes(extract), in.readAllBytes());
+    }
+    assertTrue(task.getCompressedSize() > 0 && task.getCompressedSize() < task.getFileSize());
+    assertEquals(gzip.getHeaders().getETag(),
+            logService.downloadCreatedLogs(1L, true).getHeaders().getETag());
+  }
+
+  @Test
+  void downloadCreatedLogs_compressedCopyOverDiskQuota_evictsOldestExtracts() throws Exception {
+    LogObject oldest = completedTask(1L, Instant.parse("2025-05-15T10:00:00Z"));
+    Path extract = tempDir.resolve("logs-15-05-2025.log");
+    Files.writeString(extract, "15-05-2025 10:00:00 [INFO] - Запрос обработан\n".repeat(200));
+    LogObject task = new LogObject(2L, "COMPLETED");
+    task.setFilePath(extract.toString());
+    task.setFileSize(Files.size(extract));
+    task.setFinishedAt(Instant.parse("2025-05-15T11:00:00Z"));
+    logService.tasks.put(2L, task);
+    // Обе выгрузки помещаются в квоту, а вместе со сжатой копией — уже нет
+    logService.setRegistryLimits(10, Duration.ofHours(3),
+            DataSize.ofBytes(10 + task.getFileSize() + 1));
+
+    logService.downloadCreatedLogs(2L, true);
+
+    assertEquals(Set.of(2L), logService.tasks.keySet());
+    assertFalse(Files.exists(Path.of(oldest.getFilePath())));
+    assertEquals(task.getFileSize() + task.getCompressedSize(),
+            logService.getTaskStats().getDiskUsageBytes());
+    assertEquals(1, logService.getTaskStats().getEvictionCount());
+  }
+
+  @Test
+  void downloadCreatedLogs_smallExtract_isNotCompressed() throws Exception {
+    Path extract = tempDir.resolve("logs-15-05-2025.log");
+    Files.writeString(extract, "15-05-2025 Test log\n");
+    LogObject task = new LogObject(1L, "COMPLETED");
+    task.setFilePath(extract.toString());
+    logService.tasks.put(1L, task);
+
+    ResponseEntity<Resource> response = logService.downloadCreatedLogs(1L, true);
+
+    assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    assertFalse(Files.exists(tempDir.resolve("logs-15-05-2025.log.gz")));
+  }
+
+  @Test
+  void queryLogs_streamsMatchingEntriesOfTheDay() throws Exception {
+    Path log = tempDir.resolve("cinema.log");
+    Files.write(log, List.of(
+            "15-05-2025 10:00:00 [INFO] - Сеанс создан",
+            "15-05-2025 10:05:00 [ERROR] - Зал не найден",
+            "16-05-2025 10:05:00 [ERROR] - Другой день"), StandardCharsets.UTF_8);
+    logService.setLogFilePath(log.toString());
+
+    ResponseEntity<StreamingResponseBody> response = logService.queryLogs("15-05-2025",
+            List.of("ERROR"), "10:00", null, "не найден", false, 10);
+    ByteArrayOutputStream body = new ByteArrayOutputStream();
+    response.getBody().writeTo(body);
+
+    assertEquals("15-05-2025 10:05:00 [ERROR] - Зал не найден\n",
+            body.toString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void queryLogs_invalidArguments_throwValidationException() {
+    assertThrows(ValidationException.class, () -> logService.queryLogs(" ",
+            List.of(), null, null, null, false, 10));
+    assertThrows(ValidationException.class, () -> logService.queryLogs("2025-05-15",
+            List.of(), null, null, null, false, 10));
+    assertThrows(ValidationException.class, () -> logService.queryLogs("15-05-2025",
+            List.of(), "25:00", null, null, false, 10));
+    assertThrows(ValidationException.class, () -> logService.queryLogs("15-05-2025",
+            List.of(), null, null, "[", true, 10));
+    assertThrows(ValidationException.class, () -> logService.queryLogs("15-05-2025",
+            List.of(), null, null, null, false, 100_000));
+  }
+}
@@ -1,10 +1,18 @@
 package com.example.cinema.service;
 
+import com.example.cinema.cache.EvictionMode;
 import com.example.cinema.cache.ShowtimeCache;
+import com.example.cinema.cache.ShowtimeQueryCache;
+import com.example.cinema.dto.ShowtimeDto;
+import com.example.cinema.dto.ShowtimePageDto;
+import com.example.cinema.exception.ValidationException;
+import com.example.cinema.metrics.HeavyHitter;
+import com.example.cinema.metrics.PopularEntities;
 import com.example.cinema.model.Hall;
 import com.example.cinema.model.Showtime;
 import com.example.cinema.repository.HallRepository;
 import com.example.cinema.repository.ShowtimeRepository;
+import com.example.cinema.search.FilmTitleIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -12,16 +20,24 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import static org.mockito.ArgumentMatchers.eq;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -36,6 +52,15 @@ class ShowtimeServiceTest {
   @Mock
   private ShowtimeCache showtimeCache;
 
+  @Mock
+  private ShowtimeQueryCache showtimeQueryCache;
+
+  @Mock
+  private FilmTitleIndex filmTitleIndex;
+
+  @Mock
+  private PopularEntities popularEntities;
+
   @InjectMocks
   private ShowtimeService showtimeService;
 
@@ -61,6 +86,45 @@ class ShowtimeServiceTest {
 
 
 
+  @Test
+  void createShowtime_cachesUnderGeneratedId() {
+    when(hallRepository.findById(1L)).thenReturn(Optional.of(hall));
+    when(showtimeRepository.save(any(Showtime.class))).thenReturn(showtime);
+
+    Showtime result = showtimeService.createShowtime(1L, "Inception", testDateTime);
+
+    assertSame(showtime, result);
+    verify(showtimeCache).put(1L, showtime);
+    verify(showtimeCache, never()).put(isNull(), any());
+  }
+
+  @Test
+  void createShowtime_inTransaction_cachesOnlyAfterCommit() {
+    when(hallRepository.findById(1L)).thenReturn(Optional.of(hall));
+    when(showtimeRepository.save(any(Showtime.class))).thenReturn(showtime);
+
+    List<TransactionSynchronization> synchronizations = runInTransaction(
+            () -> showtimeService.createShowtime(1L, "Inception", testDateTime));
+    verify(showtimeCache, never()).put(any(), any());
+
+    synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    verify(showtimeCache).put(1L, showtime);
+  }
+
+  @Test
+  void updateShowtime_rolledBack_leavesNoCachedEntry() {
+    when(showtimeRepository.findById(1L)).thenReturn(Optional.of(showtime));
+    when(hallRepository.findById(1L)).thenReturn(Optional.of(hall));
+    when(showtimeRepository.save(any(Showtime.class))).thenReturn(showtime);
+
+    List<TransactionSynchronization> synchronizations = runInTransaction(
+            () -> showtimeService.updateShowtime(1L, showtime));
+    synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+    verify(showtimeCache, never()).put(any(), any());
+    verify(showtimeCache, times(2)).remove(1L);
+  }
+
   @Test
   void createShowtime_hallNotFound() {
     when(hallRepository.findById(1L)).thenReturn(Optional.empty());
@@ -94,7 +158,33 @@ class ShowtimeServiceTest {
 
     assertNotNull(result);
     assertEquals("Inception", result.getFilmTitle());
-    verify(showtimeCache).put(1L, showtime);
+    verify(showtimeCache).putIfUnchanged(1L, showtime, 0L);
+  }
+
+  @Test
+  void getShowtimeById_updateDuringRead_keepsUpdatedShowtimeCached() {
+    ShowtimeCache cache = new ShowtimeCache(100, EvictionMode.LFU,
+            Duration.ZERO, Duration.ZERO, 0.0);
+    ShowtimeService service = new ShowtimeService(showtimeRepository, hallRepository,
+            cache, showtimeQueryCache, filmTitleIndex, popularEntities);
+    LocalDateTime future = LocalDateTime.now().plusDays(1);
+    Showtime stale = new Showtime(future, "Inception", hall);
+    stale.setId(1L);
+    Showtime updated = new Showtime(future.plusHours(2), "Interstellar", hall);
+    updated.setId(1L);
+    // Обновление сеанса завершается, пока чтение ещё держит старую версию из базы.
+    when(showtimeRepository.findById(1L))
+            .thenAnswer(invocation -> {
+              service.updateShowtime(1L, updated);
+              return Optional.of(stale);
+            })
+            .thenReturn(Optional.of(new Showtime(future, "Inception", hall)));
+    when(hallRepository.findById(1L)).thenReturn(Optional.of(hall));
+    when(showtimeRepository.save(any(Showtime.class))).thenReturn(updated);
+
+    assertSame(stale, service.getShowtimeById(1L));
+
+    assertSame(updated, cache.get(1L));
   }
 
   @Test
@@ -108,6 +198,47 @@ class ShowtimeServiceTest {
     );
 
     assertEquals("Showtime not found", exception.getMessage());
+    verify(popularEntities, never()).recordShowtime(anyLong());
+  }
+
+  @Test
+  void getShowtimeById_countsViewsOfCachedAndLoadedShowtimes() {
+    when(showtimeCache.get(1L)).thenReturn(showtime);
+    when(showtimeCache.get(2L)).thenReturn(null);
+    when(showtimeRepository.findById(2L)).thenReturn(Optional.of(showtime));
+
+    showtimeService.getShowtimeById(1L);
+    showtimeService.getShowtimeById(2L);
+
+    verify(popularEntities).recordShowtime(1L);
+    verify(popularEntities).recordShowtime(2L);
+  }
+
+  @Test
+  void warmUpCache_loadsMostViewedShowtimesMissingFromCache() {
+    Showtime other = new Showtime();
+    other.setId(3L);
+    when(popularEntities.topShowtimes(3)).thenReturn(List.of(
+            new HeavyHitter(1L, 50), new HeavyHitter(3L, 20), new HeavyHitter(7L, 10)));
+    when(showtimeCache.containsKey(1L)).thenReturn(true);
+    when(showtimeCache.containsKey(3L)).thenReturn(false);
+    when(showtimeCache.containsKey(7L)).thenReturn(false);
+    when(showtimeRepository.findAllById(List.of(3L, 7L))).thenReturn(List.of(other));
+
+    int loaded = showtimeService.warmUpCache(3);
+
+    assertEquals(1, loaded);
+    verify(showtimeCache).putIfUnchanged(3L, other, 0L);
+    verify(showtimeCache, never()).get(anyLong());
+  }
+
+  @Test
+  void warmUpCache_everyShowtimeCached_skipsQuery() {
+    when(popularEntities.topShowtimes(10)).thenReturn(List.of(new HeavyHitter(1L, 5)));
+    when(showtimeCache.containsKey(1L)).thenReturn(true);
+
+    assertEquals(0, showtimeService.warmUpCache(10));
+    verify(showtimeRepository, never()).findAllById(any());
   }
 
   @Test
@@ -235,4 +366,155 @@ class ShowtimeServiceTest {
     assertEquals(1, result.size());
     assertEquals(testDateTime, result.get(0).getDateTime());
   }
-}
\ No newline at end of file
+
+  @Test
+  void filterByDate_fromQueryCache() {
+    LocalDate testDate = testDateTime.toLocalDate();
+    when(showtimeQueryCache.getByDate(1L, testDate)).thenReturn(Optional.of(List.of(showtime)));
+
+    List<Showtime> result = showtimeService.filterByDate(1L, testDate);
+
+    assertEquals(List.of(showtime), result);
+    verify(showtimeRepository, never()).findByHallIdAndDate(any(), any());
+  }
+
+  @Test
+  void filterByTitle_miss_cachesResultWithVersionReadBeforeQuery() {
+    when(showtimeQueryCache.version(1L)).thenReturn(7L);
+    when(showtimeRepository.findByHallIdAndFilmTitleContainingIgnoreCase(1L, "Incep"))
+            .thenReturn(List.of(showtime));
+
+    showtimeService.filterByTitle(1L, "Incep");
+
+    verify(showtimeQueryCache).putByTitle(1L, "Incep", 7L, List.of(showtime));
+  }
+
+  @Test
+  void updateShowtime_invalidatesOldAndNewQueryResults() {
+    Hall otherHall = new Hall();
+    otherHall.setId(2L);
+    Showtime updated = new Showtime(testDateTime.plusDays(1), "Interstellar", otherHall);
+    when(showtimeRepository.findById(1L)).thenReturn(Optional.of(showtime));
+    when(hallRepository.findById(2L)).thenReturn(Optional.of(otherHall));
+    when(showtimeRepository.save(any(Showtime.class))).thenReturn(showtime);
+
+    showtimeService.updateShowtime(1L, updated);
+
+    verify(showtimeQueryCache).invalidate(1L, testDateTime, "Inception");
+    verify(showtimeQueryCache).invalidate(2L, testDateTime.plusDays(1), "Interstellar");
+  }
+
+  @Test
+  void filterByDateRange_queriesHalfOpenRange() {
+    LocalDate from = testDateTime.toLocalDate();
+    when(showtimeRepository.findByHallIdAndDateTimeRange(
+            1L, from.atStartOfDay(), from.plusDays(7).atStartOfDay()))
+            .thenReturn(List.of(showtime));
+
+    List<Showtime> result = showtimeService.filterByDateRange(1L, from, from.plusDays(6));
+
+    assertEquals(List.of(showtime), result);
+  }
+
+  @Test
+  void filterByDateRange_reversedRange() {
+    LocalDate from = testDateTime.toLocalDate();
+
+    assertThrows(ValidationException.class,
+            () -> showtimeService.filterByDateRange(1L, from, from.minusDays(1)));
+    verifyNoInteractions(showtimeRepository);
+  }
+
+  @Test
+  void filterByDateRange_tooLongRange() {
+    LocalDate from = testDateTime.toLocalDate();
+    when(showtimeRepository.findByHallIdAndDateTimeRange(
+            1L, from.atStartOfDay(), from.plusDays(31).atStartOfDay()))
+            .thenReturn(List.of());
+
+    assertTrue(showtimeService.filterByDateRange(1L, from, from.plusDays(30)).isEmpty());
+    assertThrows(ValidationException.class,
+            () -> showtimeService.filterByDateRange(1L, from, from.plusDays(31)));
+    assertThrows(ValidationException.class, () -> showtimeService.filterByDateRange(
+            1L, LocalDate.of(1, 1, 1), LocalDate.of(9999, 12, 31)));
+  }
+
+  @Test
+  void updateShowtime_inTransaction_reindexesTitleOnlyAfterCommit() {
+    Showtime updated = new Showtime(testDateTime, "Interstellar", hall);
+    when(showtimeRepository.findById(1L)).thenReturn(Optional.of(showtime));
+    when(hallRepository.findById(1L)).thenReturn(Optional.of(hall));
+    when(showtimeRepository.save(any(Showtime.class))).thenReturn(showtime);
+
+    List<TransactionSynchronization> synchronizations = runInTransaction(
+            () -> showtimeService.updateShowtime(1L, updated));
+    verifyNoInteractions(filmTitleIndex);
+
+    synchronizations.forEach(TransactionSynchronization::afterCommit);
+    verify(filmTitleIndex).put(1L, "Interstellar", testDateTime);
+  }
+
+  @Test
+  void deleteShowtime_removesTitleFromIndex() {
+    when(showtimeRepository.findById(1L)).thenReturn(Optional.of(showtime));
+
+    showtimeService.deleteShowtime(1L);
+
+    verify(filmTitleIndex).remove(1L);
+  }
+
+  @Test
+  void getShowtimePage_followsCursorToLastPage() {
+    ShowtimeDto first = new ShowtimeDto(1L, testDateTime, "Inception", 1L, "Hall A", 100);
+    ShowtimeDto second = new ShowtimeDto(2L, testDateTime, "Tenet", 1L, "Hall A", 100);
+    ShowtimeDto third = new ShowtimeDto(3L, testDateTime.plusHours(3), "Dune", 1L, "Hall A", 100);
+    when(showtimeRepository.findFirstPage(PageRequest.ofSize(3)))
+            .thenReturn(List.of(first, second, third));
+    when(showtimeRepository.findPageAfter(testDateTime, 2L, PageRequest.ofSize(3)))
+            .thenReturn(List.of(third));
+
+    ShowtimePageDto firstPage = showtimeService.getShowtimePage(null, 2);
+    ShowtimePageDto lastPage = showtimeService.getShowtimePage(firstPage.getNextCursor(), 2);
+
+    assertEquals(List.of(first, second), firstPage.getContent());
+    assertEquals(List.of(third), lastPage.getContent());
+    assertNull(lastPage.getNextCursor());
+  }
+
+  @Test
+  void getShowtimePage_undatedShowtimes_comeLastAndKeepPaging() {
+    ShowtimeDto dated = new ShowtimeDto(1L, testDateTime, "Inception", 1L, "Hall A", 100);
+    ShowtimeDto undated = new ShowtimeDto(2L, null, "Tenet", 1L, "Hall A", 100);
+    ShowtimeDto last = new ShowtimeDto(3L, null, "Dune", 1L, "Hall A", 100);
+    when(showtimeRepository.findPageAfter(testDateTime, 1L, PageRequest.ofSize(2)))
+            .thenReturn(List.of(undated, last));
+    when(showtimeRepository.findUndatedPageAfter(2L, PageRequest.ofSize(2)))
+            .thenReturn(List.of(last));
+    String cursor = Base64.getUrlEncoder().withoutPadding()
+            .encodeToString((testDateTime + "|1").getBytes(StandardCharsets.UTF_8));
+
+    ShowtimePageDto page = showtimeService.getShowtimePage(cursor, 1);
+    ShowtimePageDto lastPage = showtimeService.getShowtimePage(page.getNextCursor(), 1);
+
+    assertEquals(List.of(undated), page.getContent());
+    assertEquals(List.of(last), lastPage.getContent());
+    assertNull(lastPage.getNextCursor());
+  }
+
+  @Test
+  void getShowtimePage_invalidCursor() {
+    assertThrows(ValidationException.class,
+            () -> showtimeService.getShowtimePage("not a cursor!", 10));
+    verifyNoInteractions(showtimeRepository);
+  }
+
+  private static List<TransactionSynchronization> runInTransaction(Runnable action) {
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      action.run();
+      return TransactionSynchronizationManager.getSynchronizations();
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+}
@@ -0,0 +1,136 @@
+package com.example.cinema.service;
+
+import com.example.cinema.metrics.VisitCount;
+import com.example.cinema.model.VisitCounter;
+import com.example.cinema.repository.VisitCounterRepository;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VisitCounterStoreTest {
+
+  private static final LocalDateTime NOW = LocalDateTime.of(2025, 5, 20, 12, 0);
+
+  @Mock
+  private VisitCounterRepository repository;
+
+  private VisitCounterService visits;
+  private VisitCounterStore store;
+
+  @BeforeEach
+  void setUp() {
+    visits = new VisitCounterService();
+    store = new VisitCounterStore(repository, visits, "a", 9090);
+    store.setClock(Clock.fixed(Instant.parse("2025-05-20T12:00:00Z"), ZoneOffset.UTC));
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<VisitCounter> flushAndCaptureSaved() {
+    ArgumentCaptor<List<VisitCounter>> saved = ArgumentCaptor.forClass(List.class);
+    store.flush();
+    verify(repository, atLeastOnce()).saveAll(saved.capture());
+    return saved.getValue();
+  }
+
+  @Test
+  void flush_restoresOwnTotalsAndContinuesCounting() {
+    when(repository.findByInstance("a")).thenReturn(List.of(
+            new VisitCounter("a", VisitCounterService.HALL_VISITS, 0, 40L, NOW),
+            new VisitCounter("a", "HallController.getAllHalls()", 200, 40L, NOW)));
+    visits.increment();
+    visits.recorder("HallController.getAllHalls()").accept(200);
+
+    List<VisitCounter> saved = flushAndCaptureSaved();
+
+    assertEquals(41L, visits.getCounter());
+    assertEquals(41, visits.getEndpointCounts(null)
+            .get("HallController.getAllHalls()").get(200).getTotal());
+    assertEquals(2, saved.size());
+    assertTrue(saved.stream().allMatch(row -> row.getVisits() == 41L));
+  }
+
+  @Test
+  void flush_writesOnlyChangedCounters() {
+    IntConsumer halls = visits.recorder("HallController.getAllHalls()");
+    IntConsumer hall = visits.recorder("HallController.getHallById(..)");
+    halls.accept(200);
+    hall.accept(404);
+    store.flush();
+
+    halls.accept(200);
+    List<VisitCounter> saved = flushAndCaptureSaved();
+
+    assertEquals(1, saved.size());
+    assertEquals(VisitCounter.id("a", "HallController.getAllHalls()", 200),
+            saved.get(0).getId());
+    assertEquals(2L, saved.get(0).getVisits());
+    assertEquals(NOW, saved.get(0).getUpdatedAt());
+    assertFalse(saved.get(0).isNew());
+  }
+
+  @Test
+  void flush_marksOnlyUnwrittenRowsAsNew() {
+    when(repository.findByInstance("a")).thenReturn(List.of(
+            new VisitCounter("a", "HallController.getAllHalls()", 200, 40L, NOW)));
+    visits.recorder("HallController.getAllHalls()").accept(200);
+    visits.recorder("HallController.getHallById(..)").accept(404);
+
+    List<VisitCounter> saved = flushAndCaptureSaved();
+
+    Map<String, Boolean> isNew = saved.stream()
+            .collect(Collectors.toMap(VisitCounter::getEndpoint, VisitCounter::isNew));
+    assertFalse(isNew.get("HallController.getAllHalls()"));
+    assertTrue(isNew.get("HallController.getHallById(..)"));
+    assertTrue(isNew.get(VisitCounterService.HALL_VISITS));
+  }
+
+  @Test
+  void flush_mergesOtherInstancesAtReadTime() {
+    when(repository.findByInstanceNot("a")).thenReturn(List.of(
+            new VisitCounter("b", VisitCounterService.HALL_VISITS, 0, 5L, NOW),
+            new VisitCounter("c", VisitCounterService.HALL_VISITS, 0, 7L, NOW),
+            new VisitCounter("b", "ShowtimeController.getAllShowtimes()", 200, 3L, NOW)));
+    visits.increment();
+
+    store.flush();
+
+    assertEquals(13L, visits.getCounter());
+    Map<Integer, VisitCount> showtimes =
+            visits.getEndpointCounts(null).get("ShowtimeController.getAllShowtimes()");
+    assertEquals(3, showtimes.get(200).getTotal());
+    assertEquals(0, showtimes.get(200).getLastMinute());
+    assertFalse(visits.getEndpointCounts(null).containsKey(VisitCounterService.HALL_VISITS));
+  }
+
+  @Test
+  void flush_failedRestore_writesNothingUntilTotalsAreLoaded() {
+    when(repository.findByInstance("a"))
+            .thenThrow(new DataAccessResourceFailureException("нет соединения"))
+            .thenReturn(List.of(new VisitCounter("a", VisitCounterService.HALL_VISITS, 0,
+                    100L, NOW)));
+    visits.increment();
+
+    store.flush();
+    verify(repository, never()).saveAll(anyList());
+
+    List<VisitCounter> saved = flushAndCaptureSaved();
+    assertEquals(101L, saved.get(0).getVisits());
+  }
+}